@@ -0,0 +1,91 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.dto.Location;
+import com.example.demo.model.dto.PaymentDetails;
+import com.example.demo.model.dto.TransactionDetails;
+import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.model.entity.TransactionRecord;
+import com.example.demo.service.TransactionHistoryService;
+
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic customers, requests and history shared by the benchmarks.
+ * Everything is derived from a fixed seed, so runs are comparable.
+ */
+final class BenchmarkData {
+
+    static final Location[] LOCATIONS = {
+            new Location("Boston", "MA"), new Location("Cambridge", "MA"), new Location("New York", "NY"),
+            new Location("Chicago", "IL"), new Location("Austin", "TX"), new Location("Seattle", "WA"),
+            new Location("Denver", "CO"), new Location("Miami", "FL"), new Location("Portland", "OR"),
+            new Location("Atlanta", "GA"), new Location("Phoenix", "AZ"), new Location("Detroit", "MI"),
+            new Location("Nashville", "TN"), new Location("Raleigh", "NC"), new Location("Madison", "WI"),
+            new Location("Boise", "ID")
+    };
+
+    private BenchmarkData() {
+    }
+
+    static String customer(int index) {
+        return "Customer " + index;
+    }
+
+    /**
+     * Requests spread over the given customers. About one in ten is suspicious in some way
+     * (blocklisted IP, name mismatch, high amount or a location far from home); the rest are clean.
+     * The count must be a power of two, so callers can cycle through them with a mask.
+     */
+    static TransactionRequest[] requests(int count, int customers, SplittableRandom random) {
+        TransactionRequest[] requests = new TransactionRequest[count];
+        for (int i = 0; i < count; i++) {
+            int customerIndex = random.nextInt(customers);
+            String customer = customer(customerIndex);
+            Location home = home(customerIndex);
+            Location merchant = home;
+            String ipAddress = "203.0." + random.nextInt(256) + "." + random.nextInt(256);
+            String nameOnCard = customer;
+            double amount = 5 + random.nextInt(300);
+
+            if (random.nextInt(10) == 0) {
+                switch (random.nextInt(4)) {
+                    case 0 -> ipAddress = "10.0.0.50";
+                    case 1 -> nameOnCard = "Someone Else";
+                    case 2 -> amount = 2_500;
+                    default -> merchant = LOCATIONS[random.nextInt(LOCATIONS.length)];
+                }
+            }
+            requests[i] = new TransactionRequest(customer, ipAddress, home,
+                    new PaymentDetails(String.format("%04d", random.nextInt(10_000)), nameOnCard, amount),
+                    new TransactionDetails("Merchant " + random.nextInt(100), merchant, 1 + random.nextInt(5)));
+        }
+        return requests;
+    }
+
+    /**
+     * Saves the given number of records for each customer, spread over the last 90 days, oldest first.
+     * Most are made at home, the rest in a few other locations, as real histories are.
+     */
+    static void populate(TransactionHistoryService history, int customers, int recordsPerCustomer,
+                         SplittableRandom random) {
+        LocalDateTime now = LocalDateTime.now();
+        long spanMinutes = 90L * 24 * 60;
+        for (int customerIndex = 0; customerIndex < customers; customerIndex++) {
+            String customer = customer(customerIndex);
+            Location home = home(customerIndex);
+            for (int i = 0; i < recordsPerCustomer; i++) {
+                // Timestamps ascending, ending about an hour ago so the velocity window starts out empty
+                long minutesAgo = 60 + spanMinutes - (spanMinutes * (i + 1) / recordsPerCustomer);
+                Location location = random.nextInt(5) == 0 ? LOCATIONS[random.nextInt(4)] : home;
+                history.saveTransaction(new TransactionRecord(customer, location.getCity(), location.getState(),
+                        5.0 + random.nextInt(300), now.minusMinutes(minutesAgo), "203.0.113.7",
+                        "Merchant " + random.nextInt(100)));
+            }
+        }
+    }
+
+    static Location home(int customerIndex) {
+        return LOCATIONS[customerIndex % LOCATIONS.length];
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.domain.CardDetailsSignalEvaluator;
+import com.example.demo.domain.IpAddressSignalEvaluator;
+import com.example.demo.domain.LocationSignalEvaluator;
+import com.example.demo.domain.TransactionSignalEvaluator;
+import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.FraudDetectionService;
+import com.example.demo.service.IpBlocklistService;
+import com.example.demo.service.TransactionHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end FraudDetectionService.scoreTransaction (all four evaluators plus the history save), on one thread and
+ * on as many threads as there are cores, in each execution mode.
+ * The service and its history (10,000 customers with 50 records each) are rebuilt before every iteration, since
+ * each scored transaction is saved and the history would otherwise keep growing through the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(time = 2)
+@Measurement(time = 2)
+public class FraudScoringBenchmark {
+
+    private static final int REQUESTS = 16_384;
+    private static final int CUSTOMERS = 10_000;
+
+    @Param({"SEQUENTIAL", "PARALLEL", "SHARDED"})
+    private ScoringProperties.Execution execution;
+
+    private FraudDetectionService service;
+    private TransactionRequest[] requests;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        TransactionHistoryService history = new TransactionHistoryService();
+        BenchmarkData.populate(history, CUSTOMERS, 50, random);
+
+        ScoringProperties properties = new ScoringProperties();
+        properties.setExecution(execution);
+        service = new FraudDetectionService(List.of(
+                new IpAddressSignalEvaluator(new IpReputationProperties(), new IpBlocklistService()),
+                new CardDetailsSignalEvaluator(),
+                new LocationSignalEvaluator(history),
+                new TransactionSignalEvaluator(history)), history, properties);
+        requests = BenchmarkData.requests(REQUESTS, CUSTOMERS, random);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        service.close();
+    }
+
+    /**
+     * Each benchmark thread walks the requests from its own offset.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next = (int) Thread.currentThread().threadId() * 7_919;
+
+        TransactionRequest next(TransactionRequest[] requests) {
+            return requests[next++ & (REQUESTS - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public FraudScoreResponse singleThreaded(Cursor cursor) {
+        return service.scoreTransaction(cursor.next(requests));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public FraudScoreResponse multiThreaded(Cursor cursor) {
+        return service.scoreTransaction(cursor.next(requests));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.domain.IpAddressSignalEvaluator;
+import com.example.demo.domain.ip.CidrTrie;
+import com.example.demo.domain.ip.IpAddress;
+import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Location;
+import com.example.demo.model.dto.PaymentDetails;
+import com.example.demo.model.dto.TransactionDetails;
+import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.IpBlocklistService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IP address signal against a blocklist of 1M+ CIDR blocks (90% IPv4 /16-/32, 10% IPv6 /32-/64).
+ * Queries are a mix of addresses inside random blocks and random addresses, so both hit and miss paths are measured.
+ * lookup is parse + trie match only (allocation-free); evaluate is the whole evaluator including building the signal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IpAddressSignalBenchmark {
+
+    private static final int QUERIES = 4_096;
+
+    @Param({"1000000", "2000000"})
+    private int blocks;
+
+    private CidrTrie trie;
+    private IpAddressSignalEvaluator evaluator;
+    private String[] addresses;
+    private TransactionRequest[] requests;
+    private int next;
+
+    private final IpAddress parsed = new IpAddress();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> cidrs = new ArrayList<>(blocks);
+        long[] ipv4Networks = new long[blocks];
+        for (int i = 0; i < blocks; i++) {
+            if (i % 10 == 9) {
+                long prefix = 0x2000_0000_0000_0000L | (random.nextLong() >>> 4);
+                cidrs.add(String.format("%x:%x:%x:%x::/%d", prefix >>> 48, (prefix >>> 32) & 0xFFFF,
+                        (prefix >>> 16) & 0xFFFF, prefix & 0xFFFF, 32 + random.nextInt(33)));
+            } else {
+                ipv4Networks[i] = random.nextLong(1L << 32);
+                cidrs.add(ipv4(ipv4Networks[i]) + "/" + (16 + random.nextInt(17)));
+            }
+        }
+        trie = new CidrTrie(blocks);
+        for (String cidr : cidrs) {
+            trie.add(cidr, 1);
+        }
+        // The evaluator builds its own trie from the same blocks (plus its three built-in addresses)
+        IpReputationProperties properties = new IpReputationProperties();
+        properties.setBlocklist(cidrs);
+        evaluator = new IpAddressSignalEvaluator(properties, new IpBlocklistService());
+
+        addresses = new String[QUERIES];
+        requests = new TransactionRequest[QUERIES];
+        Location location = new Location("Boston", "MA");
+        for (int i = 0; i < QUERIES; i++) {
+            long address = i % 2 == 0
+                    ? ipv4Networks[random.nextInt(blocks / 10) * 10]
+                    : random.nextLong(1L << 32);
+            addresses[i] = i % 8 == 7
+                    ? "2001:db8::" + Long.toHexString(address & 0xFFFF)
+                    : ipv4(address);
+            requests[i] = new TransactionRequest("Customer " + i, addresses[i], location,
+                    new PaymentDetails("4242", "Customer " + i, 100.0),
+                    new TransactionDetails("Merchant", location, 1));
+        }
+    }
+
+    @Benchmark
+    public int lookup() {
+        String address = addresses[next++ & (QUERIES - 1)];
+        return parsed.parse(address) ? trie.lookup(parsed) : CidrTrie.NO_MATCH;
+    }
+
+    @Benchmark
+    public FraudSignal evaluate() {
+        return evaluator.evaluate(requests[next++ & (QUERIES - 1)]);
+    }
+
+    private static String ipv4(long address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.domain.CardDetailsSignalEvaluator;
+import com.example.demo.domain.IpAddressSignalEvaluator;
+import com.example.demo.domain.LocationSignalEvaluator;
+import com.example.demo.domain.TransactionSignalEvaluator;
+import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.FraudDetectionService;
+import com.example.demo.service.IpBlocklistService;
+import com.example.demo.service.TransactionHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of scoring in SHARDED mode as the number of shards grows, with as many calling threads as there are
+ * cores, so the shards (not the callers) are the limit.
+ * Throughput should rise with the shard count up to the number of cores and flatten beyond it; compare with
+ * FraudScoringBenchmark.multiThreaded in SEQUENTIAL mode for the cost of the hand-off to a shard.
+ * Same history and requests as FraudScoringBenchmark, rebuilt before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(time = 2)
+@Measurement(time = 2)
+public class ShardScalingBenchmark {
+
+    private static final int REQUESTS = 16_384;
+    private static final int CUSTOMERS = 10_000;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int shards;
+
+    private FraudDetectionService service;
+    private TransactionRequest[] requests;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        TransactionHistoryService history = new TransactionHistoryService();
+        BenchmarkData.populate(history, CUSTOMERS, 50, random);
+
+        ScoringProperties properties = new ScoringProperties();
+        properties.setExecution(ScoringProperties.Execution.SHARDED);
+        properties.setShards(shards);
+        service = new FraudDetectionService(List.of(
+                new IpAddressSignalEvaluator(new IpReputationProperties(), new IpBlocklistService()),
+                new CardDetailsSignalEvaluator(),
+                new LocationSignalEvaluator(history),
+                new TransactionSignalEvaluator(history)), history, properties);
+        requests = BenchmarkData.requests(REQUESTS, CUSTOMERS, random);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        service.close();
+    }
+
+    /**
+     * Each benchmark thread walks the requests from its own offset.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next = (int) Thread.currentThread().threadId() * 7_919;
+
+        TransactionRequest next(TransactionRequest[] requests) {
+            return requests[next++ & (REQUESTS - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public FraudScoreResponse score(Cursor cursor) {
+        return service.scoreTransaction(cursor.next(requests));
+    }
+}
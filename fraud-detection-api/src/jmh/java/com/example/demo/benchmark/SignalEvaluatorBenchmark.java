@@ -0,0 +1,66 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.domain.CardDetailsSignalEvaluator;
+import com.example.demo.domain.IpAddressSignalEvaluator;
+import com.example.demo.domain.LocationSignalEvaluator;
+import com.example.demo.domain.SignalEvaluator;
+import com.example.demo.domain.TransactionSignalEvaluator;
+import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.IpBlocklistService;
+import com.example.demo.service.TransactionHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each signal evaluator's evaluate on its own, against 1,000 customers with 100 history records each.
+ * About one request in ten is suspicious, so the measured mix is mostly the common clean path.
+ * Run with the gc profiler (the default in build.gradle) to see bytes allocated per evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignalEvaluatorBenchmark {
+
+    private static final int REQUESTS = 8_192;
+    private static final int CUSTOMERS = 1_000;
+
+    @Param({"ipAddress", "cardDetails", "location", "transaction"})
+    private String signal;
+
+    private SignalEvaluator evaluator;
+    private TransactionRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        TransactionHistoryService history = new TransactionHistoryService();
+        BenchmarkData.populate(history, CUSTOMERS, 100, random);
+
+        evaluator = switch (signal) {
+            case "ipAddress" -> new IpAddressSignalEvaluator(new IpReputationProperties(), new IpBlocklistService());
+            case "cardDetails" -> new CardDetailsSignalEvaluator();
+            case "location" -> new LocationSignalEvaluator(history);
+            case "transaction" -> new TransactionSignalEvaluator(history);
+            default -> throw new IllegalArgumentException("Unknown signal: " + signal);
+        };
+        requests = BenchmarkData.requests(REQUESTS, CUSTOMERS, random);
+    }
+
+    @Benchmark
+    public FraudSignal evaluate() {
+        return evaluator.evaluate(requests[next++ & (REQUESTS - 1)]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.HistoryProperties;
+import com.example.demo.model.dto.Location;
+import com.example.demo.model.entity.TransactionRecord;
+import com.example.demo.service.TransactionHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionHistoryService operations for customers with 10, 1,000 and 100,000 records each, on both backends.
+ * The history is rebuilt before every iteration, so the records saved by saveTransaction do not pile up across iterations.
+ * Retention limits are lifted (nothing sweeps here anyway), so the per-customer sizes are exactly the parameter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(time = 2)
+@Measurement(time = 2)
+public class TransactionHistoryBenchmark {
+
+    private static final int CUSTOMERS = 8;
+    private static final int RECORDS = 4_096;
+
+    @Param({"10", "1000", "100000"})
+    private int recordsPerCustomer;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    private HistoryProperties.Backend backend;
+
+    private TransactionHistoryService history;
+    private TransactionRecord[] records;
+    private LocalDateTime velocityWindowStart;
+    private LocalDateTime dayStart;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        if (history != null) {
+            history.close();
+        }
+        HistoryProperties properties = new HistoryProperties();
+        properties.setBackend(backend);
+        properties.getRetention().setMaxRecordsPerCustomer(Integer.MAX_VALUE);
+        history = new TransactionHistoryService(properties);
+
+        SplittableRandom random = new SplittableRandom(42);
+        BenchmarkData.populate(history, CUSTOMERS, recordsPerCustomer, random);
+
+        LocalDateTime now = LocalDateTime.now();
+        velocityWindowStart = now.minusMinutes(10);
+        dayStart = now.minusDays(1);
+        records = new TransactionRecord[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            int customerIndex = random.nextInt(CUSTOMERS);
+            Location location = BenchmarkData.LOCATIONS[random.nextInt(BenchmarkData.LOCATIONS.length)];
+            records[i] = new TransactionRecord(BenchmarkData.customer(customerIndex), location.getCity(),
+                    location.getState(), 100.0, now, "203.0.113.7", "Merchant");
+        }
+    }
+
+    @Benchmark
+    public void saveTransaction() {
+        history.saveTransaction(records[next++ & (RECORDS - 1)]);
+    }
+
+    @Benchmark
+    public long countRecentTransactions() {
+        return history.countRecentTransactions(records[next++ & (RECORDS - 1)].getCustomerName(), velocityWindowStart);
+    }
+
+    @Benchmark
+    public boolean hasVisitedLocation() {
+        TransactionRecord record = records[next++ & (RECORDS - 1)];
+        return history.hasVisitedLocation(record.getCustomerName(), record.getCity(), record.getState());
+    }
+
+    @Benchmark
+    public List<TransactionRecord> getRecentTransactions() {
+        return history.getRecentTransactions(records[next++ & (RECORDS - 1)].getCustomerName(), dayStart);
+    }
+}
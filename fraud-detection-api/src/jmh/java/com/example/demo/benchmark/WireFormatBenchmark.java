@@ -0,0 +1,105 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Location;
+import com.example.demo.model.dto.PaymentDetails;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
+import com.example.demo.model.dto.TransactionDetails;
+import com.example.demo.model.dto.TransactionRequest;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the score-transaction request and response DTOs per wire format (JSON, Smile, CBOR).
+ * Bytes on the wire for each format are printed once per trial, before the measurements.
+ * The response is the full view of a typical four-signal result, details included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private TransactionRequest request;
+    private FraudScoreResponse response;
+    private ObjectWriter requestWriter;
+    private ObjectWriter responseWriter;
+    private ObjectReader requestReader;
+    private ObjectReader responseReader;
+    private byte[] requestBytes;
+    private byte[] responseBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        });
+        requestWriter = mapper.writerFor(TransactionRequest.class);
+        responseWriter = mapper.writerFor(FraudScoreResponse.class);
+        requestReader = mapper.readerFor(TransactionRequest.class);
+        responseReader = mapper.readerFor(FraudScoreResponse.class);
+
+        Location location = new Location("Boston", "MA");
+        request = new TransactionRequest("John Doe", "203.0.113.24", location,
+                new PaymentDetails("4242", "John Doe", 149.99),
+                new TransactionDetails("Electronics Store", new Location("Cambridge", "MA"), 3));
+        response = new FraudScoreResponse(List.of(
+                FraudSignal.of("ipAddress", false, List.of(Reason.of(ReasonCode.IP_NOT_LISTED))),
+                FraudSignal.of("cardDetails", true, List.of(Reason.of(ReasonCode.CARD_NAME_MATCH),
+                        Reason.of(ReasonCode.CARD_TEST_NUMBER))),
+                FraudSignal.of("location", true, List.of(Reason.of(ReasonCode.LOCATION_MISMATCH),
+                        Reason.of(ReasonCode.LOCATIONS, "Boston", "MA", "Cambridge", "MA"),
+                        Reason.of(ReasonCode.LOCATION_NEW, "Cambridge", "MA"))),
+                FraudSignal.of("transaction", false, List.of(Reason.of(ReasonCode.VELOCITY_NORMAL, 3, 10),
+                        Reason.of(ReasonCode.TRANSACTION_NORMAL)))), "built-in");
+        response.getSignals().forEach(FraudSignal::getDetails); // Render once, so encoding measures encoding only
+
+        requestBytes = requestWriter.writeValueAsBytes(request);
+        responseBytes = responseWriter.writeValueAsBytes(response);
+        System.out.printf("%n%s bytes on the wire: request %d, response %d%n",
+                format, requestBytes.length, responseBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeRequest() throws IOException {
+        return requestWriter.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public TransactionRequest decodeRequest() throws IOException {
+        return requestReader.readValue(requestBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public FraudScoreResponse decodeResponse() throws IOException {
+        return responseReader.readValue(responseBytes);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of POST /api/score-transaction: starts the boot jar, drives it with Workload traffic at a fixed
+ * (open-loop) request rate, and writes a latency report.
+ * Requests are sent on schedule whether or not earlier ones have answered, and each latency is measured from the time
+ * the request was due, not when it was actually sent, so a stalled server shows up in the percentiles instead of
+ * silently lowering the load (no coordinated omission).
+ * Run through Gradle: ./gradlew loadTest [-PloadRate=2000] [-PloadDuration=60] [-PloadWarmup=15] [-PloadCustomers=100000]
+ */
+public final class LoadTest {
+
+    private final Map<String, String> options;
+    private final int rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Path reportDirectory;
+
+    private final Recorder latencies = new Recorder(3);
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "15")));
+        this.duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        this.reportDirectory = Path.of(options.getOrDefault("report", "build/reports/loadtest"));
+    }
+
+    /**
+     * Options as --name=value: jar (required unless url is given), url, port, rate, warmup, duration, customers, zipf, seed, report.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        Files.createDirectories(reportDirectory);
+        String port = options.getOrDefault("port", "18080");
+        String baseUrl = options.getOrDefault("url", "http://localhost:" + port);
+
+        Process application = options.containsKey("url") ? null : start(Path.of(options.get("jar")), port);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            awaitReady(client, baseUrl, application);
+
+            Workload workload = new Workload(Integer.parseInt(options.getOrDefault("customers", "100000")),
+                    Double.parseDouble(options.getOrDefault("zipf", "1.1")),
+                    Long.parseLong(options.getOrDefault("seed", "42")));
+            Histogram histogram = drive(client, URI.create(baseUrl + "/api/score-transaction"), workload);
+            report(histogram);
+        } finally {
+            if (application != null) {
+                application.destroy();
+                if (!application.waitFor(30, TimeUnit.SECONDS)) {
+                    application.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the application on the JVM running this test, with its output going to app.log in the report directory.
+     */
+    private Process start(Path jar, String port) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException("Application jar not found: " + jar);
+        }
+        String java = ProcessHandle.current().info().command().orElse("java");
+        System.out.printf("Starting %s on port %s%n", jar, port);
+        return new ProcessBuilder(java, "-jar", jar.toString(), "--server.port=" + port)
+                .redirectErrorStream(true)
+                .redirectOutput(reportDirectory.resolve("app.log").toFile())
+                .start();
+    }
+
+    private static void awaitReady(HttpClient client, String baseUrl, Process application) throws InterruptedException {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness")).GET().build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            if (application != null && !application.isAlive()) {
+                throw new IllegalStateException("Application exited during startup, see app.log");
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Application did not become ready within 120 s");
+    }
+
+    /**
+     * Sends requests on a fixed schedule for warmup + duration. Only requests due after the warmup are recorded.
+     */
+    private Histogram drive(HttpClient client, URI uri, Workload workload) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        System.out.printf("Driving %d requests/s: %d s warmup, %d s measured%n",
+                rate, warmup.toSeconds(), duration.toSeconds());
+
+        boolean measuring = false;
+        for (long sent = 0; ; sent++) {
+            long due = start + sent * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            // Generated before waiting, so generation time is not added to the schedule
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(workload.next()))
+                    .build();
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = due >= measureFrom;
+            if (measured && !measuring) {
+                measuring = true;
+                System.out.println("Warmup done, measuring");
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+                if (measured) {
+                    if (error == null && response.statusCode() == 200) {
+                        latencies.recordValue(latencyMicros);
+                        succeeded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        // Let the last requests finish; their latency still counts from when they were due
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        failed.addAndGet(inFlight.get()); // Never answered
+        return latencies.getIntervalHistogram();
+    }
+
+    private void report(Histogram histogram) throws IOException {
+        double seconds = duration.toMillis() / 1000.0;
+        List<String> lines = List.of(
+                "Load test " + Instant.now(),
+                String.format(Locale.ROOT, "target rate      %d requests/s for %.0f s (after %d s warmup)",
+                        rate, seconds, warmup.toSeconds()),
+                String.format(Locale.ROOT, "throughput       %.1f requests/s succeeded", succeeded.get() / seconds),
+                String.format(Locale.ROOT, "requests         %d succeeded, %d failed", succeeded.get(), failed.get()),
+                String.format(Locale.ROOT, "latency p50      %.3f ms", millis(histogram.getValueAtPercentile(50))),
+                String.format(Locale.ROOT, "latency p99      %.3f ms", millis(histogram.getValueAtPercentile(99))),
+                String.format(Locale.ROOT, "latency p99.9    %.3f ms", millis(histogram.getValueAtPercentile(99.9))),
+                String.format(Locale.ROOT, "latency max      %.3f ms", millis(histogram.getMaxValue())));
+
+        Path report = reportDirectory.resolve("report.txt");
+        Files.write(report, lines);
+        try (PrintStream distribution = new PrintStream(reportDirectory.resolve("latency.hgrm").toFile())) {
+            histogram.outputPercentileDistribution(distribution, 1000.0); // In milliseconds
+        }
+        lines.forEach(System.out::println);
+        System.out.printf("Report written to %s (full distribution in latency.hgrm)%n", report);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.loadtest;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic score-transaction traffic with production-like shapes, as JSON request bodies.
+ * Customer popularity is Zipfian (a few customers make most purchases); each customer shops mostly at home,
+ * sometimes in a few regular cities and rarely somewhere new; and now and then a customer fires a quick burst
+ * of purchases, enough to trip the velocity limit. A small share is outright suspicious (blocklisted IP, name
+ * mismatch, very high amount).
+ * Not thread-safe: the load driver generates every request on one thread, from a fixed seed, so runs are reproducible.
+ */
+final class Workload {
+
+    private static final String[][] CITIES = {
+            {"Boston", "MA"}, {"Cambridge", "MA"}, {"New York", "NY"}, {"Buffalo", "NY"}, {"Chicago", "IL"},
+            {"Austin", "TX"}, {"Dallas", "TX"}, {"Houston", "TX"}, {"Seattle", "WA"}, {"Spokane", "WA"},
+            {"Denver", "CO"}, {"Miami", "FL"}, {"Orlando", "FL"}, {"Portland", "OR"}, {"Atlanta", "GA"},
+            {"Phoenix", "AZ"}, {"Detroit", "MI"}, {"Nashville", "TN"}, {"Raleigh", "NC"}, {"Madison", "WI"},
+            {"Boise", "ID"}, {"Omaha", "NE"}, {"Tulsa", "OK"}, {"Reno", "NV"}, {"Salem", "OR"},
+            {"Albany", "NY"}, {"Hartford", "CT"}, {"Richmond", "VA"}, {"Columbus", "OH"}, {"Cleveland", "OH"},
+            {"Pittsburgh", "PA"}, {"Baltimore", "MD"}, {"Louisville", "KY"}, {"Memphis", "TN"}, {"Tucson", "AZ"},
+            {"Fresno", "CA"}, {"Oakland", "CA"}, {"San Diego", "CA"}, {"Sacramento", "CA"}, {"Anchorage", "AK"}
+    };
+
+    private static final String[] BLOCKLISTED_IPS = {"192.168.1.100", "10.0.0.50", "172.16.0.200"};
+
+    /**
+     * Share of purchases made at home, in one of the customer's regular cities, and (the rest) somewhere new.
+     */
+    private static final double HOME_SHARE = 0.85;
+    private static final double REGULAR_SHARE = 0.10;
+
+    private static final double BURST_PROBABILITY = 0.002;
+    private static final double SUSPICIOUS_PROBABILITY = 0.02;
+
+    private final SplittableRandom random;
+    private final double[] popularity; // Cumulative Zipf distribution over customers
+    private final Queue<Integer> burst = new ArrayDeque<>();
+
+    Workload(int customers, double zipfExponent, long seed) {
+        this.random = new SplittableRandom(seed);
+        this.popularity = zipfCumulative(customers, zipfExponent);
+    }
+
+    /**
+     * The next request body.
+     */
+    String next() {
+        Integer queued = burst.poll();
+        int customer = queued != null ? queued : nextCustomer();
+        if (queued == null && random.nextDouble() < BURST_PROBABILITY) {
+            // A burst: the same customer buys several more times right away, past the velocity threshold
+            for (int i = 3 + random.nextInt(4); i > 0; i--) {
+                burst.add(customer);
+            }
+        }
+
+        String name = "Customer " + customer;
+        String[] home = CITIES[customer % CITIES.length];
+        String[] merchant = merchantCity(customer, home);
+        String nameOnCard = name;
+        String ipAddress = (1 + random.nextInt(223)) + "." + random.nextInt(256) + "." + random.nextInt(256) + "." + (1 + random.nextInt(254));
+        double amount = Math.min(5_000, Math.exp(3.5 + random.nextDouble() * 2.5)); // Mostly $30-$400
+        int items = 1 + random.nextInt(6);
+
+        if (random.nextDouble() < SUSPICIOUS_PROBABILITY) {
+            switch (random.nextInt(3)) {
+                case 0 -> ipAddress = BLOCKLISTED_IPS[random.nextInt(BLOCKLISTED_IPS.length)];
+                case 1 -> nameOnCard = "Someone Else";
+                default -> amount = 1_500 + random.nextInt(3_000);
+            }
+        }
+
+        return String.format(Locale.ROOT, """
+                {"customerName":"%s","ipAddress":"%s","location":{"city":"%s","state":"%s"},\
+                "paymentDetails":{"cardLast4":"%04d","nameOnCard":"%s","cardAmount":%.2f},\
+                "transactionDetails":{"merchantName":"Merchant %d","merchantLocation":{"city":"%s","state":"%s"},\
+                "purchasedItemCount":%d}}""",
+                name, ipAddress, home[0], home[1], customer % 10_000, nameOnCard, amount,
+                random.nextInt(500), merchant[0], merchant[1], items);
+    }
+
+    private String[] merchantCity(int customer, String[] home) {
+        double where = random.nextDouble();
+        if (where < HOME_SHARE) {
+            return home;
+        }
+        if (where < HOME_SHARE + REGULAR_SHARE) {
+            // Each customer has the same two regular cities every time, so these become repeat locations
+            return CITIES[(customer * 7 + 1 + random.nextInt(2)) % CITIES.length];
+        }
+        return CITIES[random.nextInt(CITIES.length)];
+    }
+
+    private int nextCustomer() {
+        int index = Arrays.binarySearch(popularity, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, popularity.length - 1);
+    }
+
+    private static double[] zipfCumulative(int customers, double exponent) {
+        double[] cumulative = new double[customers];
+        double sum = 0;
+        for (int rank = 0; rank < customers; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < customers; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+}
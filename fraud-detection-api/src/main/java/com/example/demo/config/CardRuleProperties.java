@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import com.example.demo.domain.card.CardRuleSet;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for the card pattern rules of the card details signal.
+ * Bound from the "fraud.card.*" properties in application.properties; every value has a default so the evaluator also works when constructed directly in tests.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud.card")
+public class CardRuleProperties {
+
+    /**
+     * Last 4 digits all the same (e.g. 1111)
+     */
+    private CardRuleSet.Action repeatedDigits = CardRuleSet.Action.FLAG;
+
+    /**
+     * Last 4 digits counting up or down (e.g. 1234); advisory by default because many real cards end this way
+     */
+    private CardRuleSet.Action sequentialRuns = CardRuleSet.Action.ADVISORY;
+
+    /**
+     * Last 4 digits of a well-known test card number; advisory by default because real cards share these suffixes
+     */
+    private CardRuleSet.Action testCards = CardRuleSet.Action.ADVISORY;
+
+    /**
+     * Suffixes of the test card numbers published by the major card networks and payment processors
+     */
+    private List<String> testCardSuffixes = new ArrayList<>(List.of(
+            "4242", // Visa 4242 4242 4242 4242
+            "1111", // Visa 4111 1111 1111 1111
+            "0002", // Visa 4000 0000 0000 0002 (decline test)
+            "5556", // Visa debit 4000 0566 5566 5556
+            "4444", // Mastercard 5555 5555 5555 4444
+            "5100", // Mastercard 5105 1051 0510 5100
+            "0005", // Amex 3782 822463 10005
+            "1117"  // Discover 6011 1111 1111 1117
+    ));
+
+    /**
+     * Denylisted card suffix and cardholder name combinations
+     */
+    private CardRuleSet.Action denylist = CardRuleSet.Action.FLAG;
+
+    /**
+     * Entries of the denylist as "suffix:name on card", e.g. "4821:John Doe"
+     */
+    private List<String> denylistEntries = new ArrayList<>();
+}
@@ -0,0 +1,205 @@
+package com.example.demo.config;
+
+import com.example.demo.service.history.WriteAheadLog;
+import com.example.demo.service.history.WriteBehindQueue;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the transaction history.
+ * Bound from the "fraud.history.*" properties in application.properties; every value has a sensible default so the service also works when constructed directly in tests.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud.history")
+public class HistoryProperties {
+
+    /**
+     * Where transaction records are kept
+     */
+    private Backend backend = Backend.HEAP;
+
+    private Velocity velocity = new Velocity();
+
+    private Retention retention = new Retention();
+
+    private Wal wal = new Wal();
+
+    private Snapshot snapshot = new Snapshot();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Rocksdb rocksdb = new Rocksdb();
+
+    public enum Backend {
+        /**
+         * Per-customer append logs of TransactionRecord objects, with retention
+         */
+        HEAP,
+
+        /**
+         * Columnar rows in off-heap memory segments; retention by age and customer cap, a page of rows at a time
+         */
+        OFF_HEAP,
+
+        /**
+         * Embedded RocksDB database on local disk, durable on its own; retention by age only
+         */
+        ROCKSDB
+    }
+
+    /**
+     * Sliding-window counter used by the velocity check.
+     * Each ring holds window / resolution + 1 buckets (61 x 10s by default): the extra bucket is the one a window starts
+     * partway into, which is counted from the records.
+     */
+    @Data
+    public static class Velocity {
+
+        /**
+         * Longest velocity window answered from the ring; keep it at least the rule file's transaction.velocity.window-minutes,
+         * since longer windows are answered by scanning the customer's history
+         */
+        private Duration window = Duration.ofMinutes(10);
+
+        /**
+         * Time span covered by a single bucket
+         */
+        private Duration resolution = Duration.ofSeconds(10);
+
+        /**
+         * Number of buckets kept in each customer's ring
+         */
+        public int buckets() {
+            long resolutionMillis = resolution.toMillis();
+            return (int) ((window.toMillis() + resolutionMillis - 1) / resolutionMillis) + 1;
+        }
+    }
+
+    /**
+     * Retention policy enforced by the background sweeper.
+     */
+    @Data
+    public static class Retention {
+
+        /**
+         * Records older than this are dropped
+         */
+        private Duration maxAge = Duration.ofDays(90);
+
+        /**
+         * Only the newest records are kept per customer (heap backend only)
+         */
+        private int maxRecordsPerCustomer = 1_000;
+
+        /**
+         * Above this many customers the least recently active ones are evicted
+         */
+        private int maxCustomers = 1_000_000;
+
+        /**
+         * Customers visited per sweep, which bounds the work done in a single run
+         */
+        private int sweepBatchSize = 1_000;
+
+        /**
+         * Customers sampled per eviction; the least recently active of the sample is evicted
+         */
+        private int evictionSampleSize = 16;
+    }
+
+    /**
+     * Optional write-ahead log that makes history survive restarts.
+     */
+    @Data
+    public static class Wal {
+
+        private boolean enabled = false;
+
+        /**
+         * Directory holding the log segment files
+         */
+        private String directory = "data/wal";
+
+        /**
+         * Size of each memory-mapped segment file
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * ALWAYS (group commit before responding), INTERVAL (background force) or NEVER (left to the OS)
+         */
+        private WriteAheadLog.FsyncPolicy fsync = WriteAheadLog.FsyncPolicy.INTERVAL;
+
+        /**
+         * How often the INTERVAL policy forces the log to disk
+         */
+        private Duration fsyncInterval = Duration.ofMillis(50);
+    }
+
+    /**
+     * Periodic point-in-time snapshots, loaded on startup so only the write-ahead log tail has to be replayed.
+     * Supported by the heap backend.
+     */
+    @Data
+    public static class Snapshot {
+
+        private boolean enabled = false;
+
+        /**
+         * Directory holding the snapshot files
+         */
+        private String directory = "data/snapshots";
+    }
+
+    /**
+     * Optional write-behind: saves are queued and applied by a background writer, off the request path.
+     * Reads for a customer wait (up to readYourWritesTimeout) until that customer's queued saves have been applied.
+     */
+    @Data
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        /**
+         * Saves that can be queued before the overflow policy applies
+         */
+        private int capacity = 8_192;
+
+        /**
+         * Most saves the writer applies in one batch
+         */
+        private int batchSize = 256;
+
+        /**
+         * BLOCK (callers wait for room) or DROP (saves are discarded and counted) when the queue is full
+         */
+        private WriteBehindQueue.OverflowPolicy overflow = WriteBehindQueue.OverflowPolicy.BLOCK;
+
+        /**
+         * Longest a read waits for the same customer's queued saves before reading possibly stale history
+         */
+        private Duration readYourWritesTimeout = Duration.ofSeconds(1);
+    }
+
+    /**
+     * The RocksDB backend. It logs every write itself, so the write-ahead log and snapshots are not used with it.
+     */
+    @Data
+    public static class Rocksdb {
+
+        /**
+         * Directory holding the database
+         */
+        private String directory = "data/history-rocksdb";
+
+        /**
+         * Sync RocksDB's own log on every save (survives an OS crash, not just a process crash), at the cost of a disk flush per save
+         */
+        private boolean syncWrites = false;
+    }
+}
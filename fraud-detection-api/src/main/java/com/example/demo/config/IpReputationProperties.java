@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for the IP address signal.
+ * Bound from the "fraud.ip.*" properties in application.properties; every value has a default so the evaluator also works when constructed directly in tests.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud.ip")
+public class IpReputationProperties {
+
+    /**
+     * Extra fraudulent addresses or CIDR blocks (IPv4 or IPv6), added to the built-in list
+     */
+    private List<String> blocklist = new ArrayList<>();
+
+    private Feed feed = new Feed();
+
+    /**
+     * Large blocklist feed of individual addresses, compiled into a memory-mapped table and reloaded when the file changes.
+     */
+    @Data
+    public static class Feed {
+
+        /**
+         * Feed file, one IPv4 or IPv6 address per line; unset disables the feed
+         */
+        private Path file;
+
+        /**
+         * Compiled table file; defaults to the feed file with ".idx" appended. JVMs on one host can share it
+         */
+        private Path table;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for the external scoring rule file.
+ * Bound from the "fraud.rules.*" properties in application.properties; without a file the built-in rules are used.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud.rules")
+public class RuleProperties {
+
+    /**
+     * YAML rule file (thresholds for amount, items, price per item, velocity and location); reloaded when it changes
+     */
+    private Path file;
+}
@@ -0,0 +1,93 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration for how transactions are scored.
+ * Bound from the "fraud.scoring.*" properties in application.properties; every value has a default so services also work when constructed directly in tests.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "fraud.scoring")
+public class ScoringProperties {
+
+    /**
+     * How the signal evaluators of one transaction are run
+     */
+    private Execution execution = Execution.SEQUENTIAL;
+
+    /**
+     * Time budget of each evaluator in PARALLEL mode; an evaluator that misses it yields a degraded signal
+     */
+    private Duration evaluatorTimeout = Duration.ofMillis(200);
+
+    /**
+     * Skip the remaining evaluators once one reports a definitive block (e.g. a known fraudulent IP)
+     */
+    private boolean shortCircuit = false;
+
+    /**
+     * Number of customer shards in SHARDED mode; 0 means one per available processor
+     */
+    private int shards = 0;
+
+    /**
+     * Transactions that can wait on one shard in SHARDED mode; beyond that, they are answered degraded right away
+     */
+    private int shardQueueCapacity = 1_024;
+
+    /**
+     * Longest a transaction waits for its shard in SHARDED mode before it is answered degraded (it is still scored and saved on the shard)
+     */
+    private Duration shardTimeout = Duration.ofMillis(500);
+
+    private Batch batch = new Batch();
+
+    private Stream stream = new Stream();
+
+    public enum Execution {
+        /**
+         * One evaluator after another on the request thread (latency is the sum of all evaluators)
+         */
+        SEQUENTIAL,
+
+        /**
+         * All evaluators at once on virtual threads (latency is the slowest evaluator, capped by the timeout)
+         */
+        PARALLEL,
+
+        /**
+         * Customers partitioned over single-threaded shards: each transaction is evaluated and recorded on its
+         * customer's shard, so no other transaction of that customer can slip in between its history reads and its save
+         */
+        SHARDED
+    }
+
+    /**
+     * Limits for the batch scoring endpoint.
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * Largest number of transactions accepted in one batch request
+         */
+        private int maxItems = 1_000;
+    }
+
+    /**
+     * Limits for the NDJSON stream endpoint.
+     */
+    @Data
+    public static class Stream {
+
+        /**
+         * Longest input line in characters; a longer line is skipped and answered with an error line
+         */
+        private int maxLineLength = 65_536;
+    }
+}
@@ -1,14 +1,27 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.dto.BatchScoreResponse;
 import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.SignalViews;
 import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.BatchScoringService;
 import com.example.demo.service.FraudDetectionService;
+import com.example.demo.service.RequestTiming;
+import com.example.demo.service.StreamingScoringService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
 /**
  * REST Controller for the fraud detection API.
  * Handles incoming transaction scoring requests.
@@ -20,17 +33,30 @@ passes them to the fraud detection service and returns the fraud analysis result
 @Slf4j
 public class FraudDetectionController {
     
+    private static final String SERVER_TIMING = "Server-Timing";
+    
     private final FraudDetectionService fraudDetectionService;
+    private final BatchScoringService batchScoringService;
+    private final StreamingScoringService streamingScoringService;
     
     /**
      * Endpoint to score a transaction for fraud.
+     * Sent with "X-Server-Timing: true", the response also carries the time spent in each stage, as a Server-Timing
+     * header and as the timing block of the body.
      * 
      * @param request The transaction details to score
+     * @param compact Return only signal names, flags and reason codes, without the rendered details
      * @return FraudScoreResponse containing all fraud signals
      */
     @PostMapping("/score-transaction")
-    public ResponseEntity<FraudScoreResponse> scoreTransaction(
-            @Valid @RequestBody TransactionRequest request) {
+    public ResponseEntity<MappingJacksonValue> scoreTransaction(
+            @Valid @RequestBody TransactionRequest request,
+            @RequestParam(defaultValue = "false") boolean compact) {
+        
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.lap(RequestTiming.VALIDATION); // Since the body was bound
+        }
         
         log.info("Received transaction scoring request for customer: {}", 
                 request.getCustomerName());
@@ -40,6 +66,70 @@ public class FraudDetectionController {
         log.info("Completed fraud scoring with {} signals", 
                 response.getSignals().size());
         
-        return ResponseEntity.ok(response);
+        if (timing == null) {
+            return ResponseEntity.ok(view(response, compact));
+        }
+        Map<String, Double> stages = timing.toMillis();
+        response.setTiming(stages);
+        return ResponseEntity.ok()
+                .header(SERVER_TIMING, RequestTiming.toServerTiming(stages))
+                .body(view(response, compact));
+    }
+    
+    /**
+     * Endpoint to score a batch of transactions in one round trip.
+     * Each item is validated separately: invalid items get their errors in the result while the rest are scored.
+     * 
+     * @param requests The transactions to score
+     * @param compact Return only signal names, flags and reason codes, without the rendered details
+     * @return BatchScoreResponse with one result per transaction, in request order
+     */
+    @PostMapping("/score-transactions")
+    public ResponseEntity<MappingJacksonValue> scoreTransactions(
+            @RequestBody List<TransactionRequest> requests,
+            @RequestParam(defaultValue = "false") boolean compact) {
+        
+        log.info("Received batch scoring request with {} transactions", 
+                requests != null ? requests.size() : 0);
+        
+        BatchScoreResponse response = batchScoringService.scoreTransactions(requests);
+        
+        return ResponseEntity.ok(view(response, compact));
+    }
+    
+    /**
+     * Endpoint to score a stream of transactions sent as newline-delimited JSON.
+     * Writes one FraudScoreResponse (or ErrorResponse for an invalid line) per line as each result is ready,
+     * so arbitrarily large backfills run in constant memory.
+     * 
+     * @param request Carries the NDJSON body, one TransactionRequest per line
+     * @param response Receives the NDJSON results, one per input line
+     * @param compact Return only signal names, flags and reason codes, without the rendered details
+     */
+    @PostMapping(value = "/score-transactions/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void scoreTransactionStream(HttpServletRequest request, HttpServletResponse response,
+            @RequestParam(defaultValue = "false") boolean compact) throws IOException {
+        
+        log.info("Received streaming scoring request");
+        
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        long processed = streamingScoringService.score(
+                request.getInputStream(), response.getOutputStream(), request.getRequestURI(), compact);
+        
+        log.info("Completed streaming scoring of {} transactions", processed);
+    }
+    
+    /**
+     * Compact responses are serialized with the Compact view, which leaves out the details (so they are never rendered).
+     */
+    private static MappingJacksonValue view(Object body, boolean compact) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (compact) {
+            value.setSerializationView(SignalViews.Compact.class);
+        }
+        return value;
     }
 }
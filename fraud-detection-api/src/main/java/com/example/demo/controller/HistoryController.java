@@ -0,0 +1,29 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.dto.HistoryStatsResponse;
+import com.example.demo.service.TransactionHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller exposing the state of the transaction history.
+ * Used by operators to size the heap and check that the retention policy is keeping up.
+ */
+@RestController
+@RequestMapping("/api/history")
+@RequiredArgsConstructor
+public class HistoryController {
+
+    private final TransactionHistoryService historyService;
+
+    /**
+     * Current history size and eviction counters.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<HistoryStatsResponse> stats() {
+        return ResponseEntity.ok(historyService.getStats());
+    }
+}
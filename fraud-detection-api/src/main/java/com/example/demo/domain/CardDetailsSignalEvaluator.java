@@ -1,8 +1,14 @@
 package com.example.demo.domain;
 
+import com.example.demo.config.CardRuleProperties;
+import com.example.demo.domain.card.CardRuleSet;
+import com.example.demo.domain.customer.CustomerIdentity;
 import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
 import com.example.demo.model.dto.TransactionRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -11,41 +17,101 @@ import java.util.List;
 /**
  * Evaluates card-based fraud signals.
  * Checks if the customer's name matches the name on the card and detects suspicious card patterns (like "1111" or "9999"), flagging potential fraud if there's a mismatch or pattern.
+ * The card pattern rules (fraud.card.*) are compiled once into a CardRuleSet, so every rule is checked with a single table lookup.
+ * The reasons for a matching name are prebuilt per rule mask, so a card without a name mismatch costs no allocation beyond the signal.
  */
 @Component
 @Slf4j
-public class CardDetailsSignalEvaluator {
+public class CardDetailsSignalEvaluator implements SignalEvaluator {
     
+    private final CardRuleSet ruleSet;
+    
+    // Indexed by the matched rule mask
+    private final List<Reason>[] matchingNameReasons;
+    
+    public CardDetailsSignalEvaluator() {
+        this(new CardRuleProperties());
+    }
+    
+    @Autowired
+    public CardDetailsSignalEvaluator(CardRuleProperties properties) {
+        this.ruleSet = compile(properties);
+        this.matchingNameReasons = precomputeMatchingNameReasons(ruleSet);
+    }
+    
+    @Override
+    public String name() {
+        return "cardDetails";
+    }
+    
+    @Override
+    public int cost() {
+        // Name comparison plus one table lookup, about as cheap as the IP lookup
+        return COST_STATELESS + 1;
+    }
+    
+    @Override
     public FraudSignal evaluate(TransactionRequest request) {
         log.debug("Evaluating card details signal");
         
-        List<String> details = new ArrayList<>();
-        boolean potentialFraud = false;
-        
         String customerName = request.getCustomerName().trim();
         String nameOnCard = request.getPaymentDetails().getNameOnCard().trim();
         
-        // Check if customer name matches name on card
-        if (!customerName.equalsIgnoreCase(nameOnCard)) {
-            potentialFraud = true;
-            details.add("Customer name does not match name on card");
-            details.add(String.format("Customer: '%s' | Card: '%s'", customerName, nameOnCard));
-        } else {
-            details.add("Customer name matches name on card");
-        }
+        // Check card last 4 digits for patterns (e.g. "1111", "9999", test cards, denylisted combinations)
+        int matchedRules = ruleSet.match(request.getPaymentDetails().getCardLast4(), nameOnCard);
         
-        // Check card last 4 digits for patterns
-        String cardLast4 = request.getPaymentDetails().getCardLast4();
-        if (cardLast4.matches("(\\d)\\1{3}")) {
-            // All same digits (e.g., "1111", "9999")
-            details.add("Card last 4 digits show suspicious pattern (all same digits)");
-            potentialFraud = true;
+        // Check if customer name matches name on card, compared as normalized identities (case, spacing, Unicode forms)
+        if (CustomerIdentity.keyOf(nameOnCard) == request.getCustomerKey()) {
+            return FraudSignal.of("cardDetails", ruleSet.flags(matchedRules), matchingNameReasons[matchedRules]);
         }
         
-        if (!potentialFraud) {
-            details.add("Card details appear legitimate");
+        List<Reason> reasons = new ArrayList<>(2 + Integer.bitCount(matchedRules));
+        reasons.add(Reason.of(ReasonCode.CARD_NAME_MISMATCH));
+        reasons.add(Reason.of(ReasonCode.CARD_NAMES, customerName, nameOnCard));
+        addRuleReasons(reasons, matchedRules);
+        return FraudSignal.of("cardDetails", true, reasons);
+    }
+    
+    /**
+     * Reasons for a card whose name matches, for every possible rule mask, so that path allocates nothing.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Reason>[] precomputeMatchingNameReasons(CardRuleSet ruleSet) {
+        List<Reason>[] byMask = new List[1 << CardRuleSet.Rule.values().length];
+        for (int mask = 0; mask < byMask.length; mask++) {
+            List<Reason> reasons = new ArrayList<>();
+            reasons.add(Reason.of(ReasonCode.CARD_NAME_MATCH));
+            addRuleReasons(reasons, mask);
+            if (!ruleSet.flags(mask)) {
+                reasons.add(Reason.of(ReasonCode.CARD_LEGITIMATE));
+            }
+            byMask[mask] = List.copyOf(reasons);
         }
-        
-        return new FraudSignal("cardDetails", potentialFraud, details);
+        return byMask;
+    }
+    
+    private static void addRuleReasons(List<Reason> reasons, int matchedRules) {
+        if (matchedRules != 0) {
+            for (CardRuleSet.Rule rule : CardRuleSet.rules(matchedRules)) {
+                reasons.add(Reason.of(rule.reason()));
+            }
+        }
+    }
+    
+    private static CardRuleSet compile(CardRuleProperties properties) {
+        CardRuleSet.Builder builder = CardRuleSet.builder()
+                .action(CardRuleSet.Rule.REPEATED_DIGITS, properties.getRepeatedDigits())
+                .action(CardRuleSet.Rule.SEQUENTIAL_RUN, properties.getSequentialRuns())
+                .action(CardRuleSet.Rule.TEST_CARD, properties.getTestCards())
+                .action(CardRuleSet.Rule.DENYLISTED_NAME, properties.getDenylist());
+        properties.getTestCardSuffixes().forEach(builder::testCardSuffix);
+        for (String entry : properties.getDenylistEntries()) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Card denylist entry must be \"suffix:name on card\": " + entry);
+            }
+            builder.denylist(entry.substring(0, separator), entry.substring(separator + 1));
+        }
+        return builder.build();
     }
 }
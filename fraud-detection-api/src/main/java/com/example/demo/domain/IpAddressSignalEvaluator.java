@@ -1,54 +1,119 @@
 package com.example.demo.domain;
 
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.domain.ip.CidrTrie;
+import com.example.demo.domain.ip.IpAddress;
 import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
 import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.IpBlocklistService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Evaluates IP address-based fraud signals.
  * Checks if the transaction's IP address is on a blacklist of known fraudulent IPs or comes from a private network (VPN/proxy), flagging it as suspicious if either is true.
+ * The address is parsed once into a 128-bit integer and matched against radix tries of CIDR blocks, so IPv4 and IPv6 are both supported and a lookup costs the same for three blocks or millions.
+ * Individual addresses from the large blocklist feed are checked in the memory-mapped table kept by IpBlocklistService.
  */
 @Component
 @Slf4j
-public class IpAddressSignalEvaluator {
+public class IpAddressSignalEvaluator implements SignalEvaluator {
     
     // Simple blacklist for demo purposes
     // In production, this would be a database or external service
-    private static final Set<String> KNOWN_FRAUDULENT_IPS = new HashSet<>(Arrays.asList(
+    private static final List<String> KNOWN_FRAUDULENT_IPS = List.of(
         "192.168.1.100",
         "10.0.0.50",
         "172.16.0.200"
+    );
+    
+    // RFC 1918 private IPv4 ranges and IPv6 unique local addresses
+    private static final CidrTrie PRIVATE_NETWORKS = buildTrie(List.of(
+        "10.0.0.0/8",
+        "172.16.0.0/12",
+        "192.168.0.0/16",
+        "fc00::/7"
     ));
     
+    // Parsing target reused per thread, so evaluating a clean address allocates nothing beyond the signal
+    private static final ThreadLocal<IpAddress> PARSED = ThreadLocal.withInitial(IpAddress::new);
+    
+    private static final List<Reason> INVALID = List.of(Reason.of(ReasonCode.IP_INVALID));
+    private static final List<Reason> NOT_LISTED = List.of(Reason.of(ReasonCode.IP_NOT_LISTED));
+    private static final List<Reason> NOT_LISTED_PRIVATE = List.of(
+        Reason.of(ReasonCode.IP_NOT_LISTED),
+        Reason.of(ReasonCode.IP_PRIVATE_NETWORK)
+    );
+    
+    private final CidrTrie blocklist;
+    private final IpBlocklistService feed;
+    
+    @Autowired
+    public IpAddressSignalEvaluator(IpReputationProperties properties, IpBlocklistService feed) {
+        List<String> blocks = new ArrayList<>(KNOWN_FRAUDULENT_IPS);
+        blocks.addAll(properties.getBlocklist());
+        this.blocklist = buildTrie(blocks);
+        this.feed = feed;
+        log.info("IP blocklist loaded with {} blocks", blocklist.size());
+    }
+    
+    @Override
+    public String name() {
+        return "ipAddress";
+    }
+    
+    @Override
+    public int cost() {
+        return COST_STATELESS;
+    }
+    
+    /**
+     * A known fraudulent IP blocks the transaction whatever the other signals say.
+     */
+    @Override
+    public boolean isDefinitiveBlock(FraudSignal signal) {
+        return Boolean.TRUE.equals(signal.getPotentialFraud());
+    }
+    
+    @Override
     public FraudSignal evaluate(TransactionRequest request) {
         log.debug("Evaluating IP address signal");
         
-        List<String> details = new ArrayList<>();
-        boolean potentialFraud = false;
         String ipAddress = request.getIpAddress();
         
-        // Check against blacklist
-        if (KNOWN_FRAUDULENT_IPS.contains(ipAddress)) {
-            potentialFraud = true;
-            details.add("IP address is on the known fraudulent list");
-            details.add(String.format("Flagged IP: %s", ipAddress));
-        } else {
-            details.add("IP address is not known to be fraudulent or malicious");
+        IpAddress address = PARSED.get();
+        if (!address.parse(ipAddress)) {
+            return FraudSignal.of("ipAddress", false, INVALID);
         }
         
         // Check for private IP addresses (potential VPN/proxy)
-        if (ipAddress.startsWith("10.") || ipAddress.startsWith("192.168.") || 
-            ipAddress.startsWith("172.")) {
-            details.add("IP address appears to be from a private network (potential VPN/proxy)");
+        boolean privateNetwork = PRIVATE_NETWORKS.contains(address);
+        
+        // Check against blacklist
+        if (!blocklist.contains(address) && !feed.contains(address)) {
+            return FraudSignal.of("ipAddress", false, privateNetwork ? NOT_LISTED_PRIVATE : NOT_LISTED);
         }
         
-        return new FraudSignal("ipAddress", potentialFraud, details);
+        List<Reason> reasons = new ArrayList<>(3);
+        reasons.add(Reason.of(ReasonCode.IP_BLOCKLISTED));
+        reasons.add(Reason.of(ReasonCode.IP_FLAGGED, ipAddress));
+        if (privateNetwork) {
+            reasons.add(Reason.of(ReasonCode.IP_PRIVATE_NETWORK));
+        }
+        return FraudSignal.of("ipAddress", true, reasons);
+    }
+    
+    private static CidrTrie buildTrie(List<String> blocks) {
+        CidrTrie trie = new CidrTrie(blocks.size());
+        for (String block : blocks) {
+            trie.add(block.trim(), 1);
+        }
+        return trie;
     }
 }
@@ -1,10 +1,14 @@
 package com.example.demo.domain;
 
+import com.example.demo.domain.rules.RuleSet;
 import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
 import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.RuleSetService;
 import com.example.demo.service.TransactionHistoryService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -13,19 +17,46 @@ import java.util.List;
 /**
  * Evaluates location-based fraud signals.
  * Checks if the customer's location matches the merchant's location and if the customer has ever purchased from this location before, flagging as fraud if there's a mismatch or it's a new location.
+ * Whether each finding flags the transaction or is only reported comes from the current RuleSet.
  */
 @Component
 @Slf4j
-@RequiredArgsConstructor
-public class LocationSignalEvaluator {
+public class LocationSignalEvaluator implements SignalEvaluator {
+    
+    // The common case: a returning customer buying locally
+    private static final List<Reason> SAME_AND_VISITED = List.of(
+        Reason.of(ReasonCode.LOCATION_MATCH),
+        Reason.of(ReasonCode.LOCATION_VISITED)
+    );
     
     private final TransactionHistoryService historyService;
+    private final RuleSetService ruleSetService;
+    
+    public LocationSignalEvaluator(TransactionHistoryService historyService) {
+        this(historyService, new RuleSetService());
+    }
+    
+    @Autowired
+    public LocationSignalEvaluator(TransactionHistoryService historyService, RuleSetService ruleSetService) {
+        this.historyService = historyService;
+        this.ruleSetService = ruleSetService;
+    }
+    
+    @Override
+    public String name() {
+        return "location";
+    }
+    
+    @Override
+    public int cost() {
+        return COST_HISTORY;
+    }
     
+    @Override
     public FraudSignal evaluate(TransactionRequest request) {
         log.debug("Evaluating location signal");
         
-        List<String> details = new ArrayList<>();
-        boolean potentialFraud = false;
+        RuleSet.LocationRules rules = ruleSetService.current().location();
         
         String customerName = request.getCustomerName();
         String customerCity = request.getLocation().getCity();
@@ -34,29 +65,36 @@ public class LocationSignalEvaluator {
         String merchantState = request.getTransactionDetails().getMerchantLocation().getState();
         
         // Check if customer and merchant are in same location
-        if (!customerCity.equalsIgnoreCase(merchantCity) || 
-            !customerState.equalsIgnoreCase(merchantState)) {
-            potentialFraud = true;
-            details.add("Customer location differs from merchant location");
-            details.add(String.format("Customer: %s, %s | Merchant: %s, %s", 
-                    customerCity, customerState, merchantCity, merchantState));
-        } else {
-            details.add("Customer and merchant are in the same location");
-        }
+        boolean sameLocation = customerCity.equalsIgnoreCase(merchantCity)
+                && customerState.equalsIgnoreCase(merchantState);
         
         // Check against historical purchase locations
         boolean hasVisitedBefore = historyService.hasVisitedLocation(
-                customerName, merchantCity, merchantState);
+                request.getCustomerKey(), merchantCity, merchantState);
+        
+        if (sameLocation && hasVisitedBefore) {
+            return FraudSignal.of("location", false, SAME_AND_VISITED);
+        }
+        
+        List<Reason> reasons = new ArrayList<>(3);
+        boolean potentialFraud = false;
+        if (!sameLocation) {
+            potentialFraud = rules.flagMerchantMismatch();
+            reasons.add(Reason.of(ReasonCode.LOCATION_MISMATCH));
+            reasons.add(Reason.of(ReasonCode.LOCATIONS, customerCity, customerState, merchantCity, merchantState));
+        } else {
+            reasons.add(Reason.of(ReasonCode.LOCATION_MATCH));
+        }
         
         if (!hasVisitedBefore) {
-            potentialFraud = true;
-            details.add(String.format("New location for customer: %s, %s", merchantCity, merchantState));
+            potentialFraud |= rules.flagNewLocation();
+            reasons.add(Reason.of(ReasonCode.LOCATION_NEW, merchantCity, merchantState));
             log.info("New location detected for customer {}: {}, {}", 
                     customerName, merchantCity, merchantState);
         } else {
-            details.add("Customer has purchased from this location before");
+            reasons.add(Reason.of(ReasonCode.LOCATION_VISITED));
         }
         
-        return new FraudSignal("location", potentialFraud, details);
+        return FraudSignal.of("location", potentialFraud, reasons);
     }
 }
@@ -0,0 +1,49 @@
+package com.example.demo.domain;
+
+import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.TransactionRequest;
+
+import java.util.Set;
+
+/**
+ * A single fraud check that contributes one FraudSignal to a transaction's score.
+ * Every Spring bean implementing this interface is picked up by FraudDetectionService, which orders them by dependencies and cost; adding a check needs no change to the orchestrator.
+ */
+public interface SignalEvaluator {
+
+    /**
+     * Cost of checks that only look at the request (or static in-memory data)
+     */
+    int COST_STATELESS = 10;
+
+    /**
+     * Cost of checks that read the customer's transaction history
+     */
+    int COST_HISTORY = 100;
+
+    /**
+     * Name of the signal this evaluator produces (e.g. "location"); also used to declare dependencies.
+     */
+    String name();
+
+    /**
+     * Relative cost of one evaluation; cheaper evaluators run first.
+     */
+    int cost();
+
+    /**
+     * Names of evaluators that must run before this one.
+     */
+    default Set<String> dependsOn() {
+        return Set.of();
+    }
+
+    FraudSignal evaluate(TransactionRequest request);
+
+    /**
+     * Whether this signal alone is enough to block the transaction, which lets the pipeline skip the remaining (more expensive) evaluators when short-circuiting is enabled.
+     */
+    default boolean isDefinitiveBlock(FraudSignal signal) {
+        return false;
+    }
+}
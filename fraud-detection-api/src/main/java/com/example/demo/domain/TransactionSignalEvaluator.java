@@ -1,10 +1,14 @@
 package com.example.demo.domain;
 
+import com.example.demo.domain.rules.RuleSet;
 import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
 import com.example.demo.model.dto.TransactionRequest;
+import com.example.demo.service.RuleSetService;
 import com.example.demo.service.TransactionHistoryService;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -14,23 +18,45 @@ import java.util.List;
 /**
  * Evaluates transaction-based fraud signals.
  * Checks if the transaction amount is unusually high, item count is suspicious, or if the customer is making too many transactions too quickly (velocity check), flagging potential fraud if any threshold is exceeded.
+ * The thresholds come from the current RuleSet (see RuleSetService), so they can change without a restart.
+ * A transaction within every threshold reuses the reasons cached for the current rules, so it costs no allocation beyond the signal.
  */
 @Component
 @Slf4j
-@RequiredArgsConstructor
-public class TransactionSignalEvaluator {
-    
-    private static final double HIGH_AMOUNT_THRESHOLD = 1000.0;
-    private static final int HIGH_ITEM_COUNT_THRESHOLD = 10;
-    private static final int VELOCITY_THRESHOLD = 3; // More than 3 transactions
-    private static final int VELOCITY_WINDOW_MINUTES = 10; // Within 10 minutes
+public class TransactionSignalEvaluator implements SignalEvaluator {
     
     private final TransactionHistoryService historyService;
+    private final RuleSetService ruleSetService;
+    
+    // Reasons of the common, unremarkable transaction for the rules last seen
+    private volatile NormalReasons normalReasons;
+    
+    public TransactionSignalEvaluator(TransactionHistoryService historyService) {
+        this(historyService, new RuleSetService());
+    }
+    
+    @Autowired
+    public TransactionSignalEvaluator(TransactionHistoryService historyService, RuleSetService ruleSetService) {
+        this.historyService = historyService;
+        this.ruleSetService = ruleSetService;
+    }
+    
+    @Override
+    public String name() {
+        return "transaction";
+    }
+    
+    @Override
+    public int cost() {
+        return COST_HISTORY;
+    }
     
+    @Override
     public FraudSignal evaluate(TransactionRequest request) {
         log.debug("Evaluating transaction signal");
         
-        List<String> details = new ArrayList<>();
+        RuleSet.TransactionRules rules = ruleSetService.current().transaction();
+        List<Reason> reasons = null; // Only allocated once something unusual is found
         boolean potentialFraud = false;
         
         String customerName = request.getCustomerName();
@@ -38,44 +64,71 @@ public class TransactionSignalEvaluator {
         Integer itemCount = request.getTransactionDetails().getPurchasedItemCount();
         
         // Check for unusually high transaction amount
-        if (amount > HIGH_AMOUNT_THRESHOLD) {
+        if (rules.isHighAmount(amount)) {
             potentialFraud = true;
-            details.add(String.format("Transaction amount ($%.2f) exceeds normal threshold ($%.2f)", 
-                    amount, HIGH_AMOUNT_THRESHOLD));
+            reasons = add(reasons, Reason.of(ReasonCode.AMOUNT_HIGH, amount, rules.highAmount()));
         }
         
         // Check for unusually high item count
-        if (itemCount > HIGH_ITEM_COUNT_THRESHOLD) {
+        if (rules.isHighItemCount(itemCount)) {
             potentialFraud = true;
-            details.add(String.format("Item count (%d) is unusually high (threshold: %d)", 
-                    itemCount, HIGH_ITEM_COUNT_THRESHOLD));
+            reasons = add(reasons, Reason.of(ReasonCode.ITEM_COUNT_HIGH, itemCount, rules.highItemCount()));
         }
         
         // Calculate average price per item
         double avgPricePerItem = amount / itemCount;
-        if (avgPricePerItem > 500) {
-            details.add(String.format("High average price per item: $%.2f", avgPricePerItem));
+        if (rules.isHighPricePerItem(avgPricePerItem)) {
+            potentialFraud |= rules.flagHighPricePerItem();
+            reasons = add(reasons, Reason.of(ReasonCode.PRICE_PER_ITEM_HIGH, avgPricePerItem));
         }
         
         // Velocity check - detect rapid succession of transactions
-        LocalDateTime tenMinutesAgo = LocalDateTime.now().minusMinutes(VELOCITY_WINDOW_MINUTES);
-        long recentTransactionCount = historyService.countRecentTransactions(customerName, tenMinutesAgo);
+        int windowMinutes = rules.velocityWindowMinutes();
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(windowMinutes);
+        long recentTransactionCount = historyService.countRecentTransactions(request.getCustomerKey(), windowStart);
         
-        if (recentTransactionCount >= VELOCITY_THRESHOLD) {
+        if (rules.isHighVelocity(recentTransactionCount)) {
             potentialFraud = true;
-            details.add(String.format("Velocity alert: %d transactions in last %d minutes", 
-                    recentTransactionCount, VELOCITY_WINDOW_MINUTES));
+            reasons = add(reasons, Reason.of(ReasonCode.VELOCITY_HIGH, recentTransactionCount, windowMinutes));
             log.warn("Velocity check failed for customer {}: {} transactions in {} minutes",
-                    customerName, recentTransactionCount, VELOCITY_WINDOW_MINUTES);
+                    customerName, recentTransactionCount, windowMinutes);
+        } else if (reasons == null) {
+            return FraudSignal.of("transaction", false, normalReasons(rules));
         } else {
-            details.add(String.format("Transaction velocity normal: %d transactions in last %d minutes",
-                    recentTransactionCount, VELOCITY_WINDOW_MINUTES));
+            reasons.add(velocityNormal(rules));
         }
         
         if (!potentialFraud) {
-            details.add("Transaction amount and item count are within normal ranges");
+            reasons.add(Reason.of(ReasonCode.TRANSACTION_NORMAL));
         }
         
-        return new FraudSignal("transaction", potentialFraud, details);
+        return FraudSignal.of("transaction", potentialFraud, reasons);
+    }
+    
+    /**
+     * Reasons for a transaction with nothing unusual; they depend only on the rules, so they are built once per RuleSet.
+     */
+    private List<Reason> normalReasons(RuleSet.TransactionRules rules) {
+        NormalReasons cached = normalReasons;
+        if (cached == null || cached.rules() != rules) {
+            cached = new NormalReasons(rules, List.of(velocityNormal(rules), Reason.of(ReasonCode.TRANSACTION_NORMAL)));
+            normalReasons = cached;
+        }
+        return cached.reasons();
+    }
+    
+    private static Reason velocityNormal(RuleSet.TransactionRules rules) {
+        return Reason.of(ReasonCode.VELOCITY_NORMAL, rules.velocityThreshold(), rules.velocityWindowMinutes());
+    }
+    
+    private static List<Reason> add(List<Reason> reasons, Reason reason) {
+        if (reasons == null) {
+            reasons = new ArrayList<>(4);
+        }
+        reasons.add(reason);
+        return reasons;
+    }
+    
+    private record NormalReasons(RuleSet.TransactionRules rules, List<Reason> reasons) {
     }
 }
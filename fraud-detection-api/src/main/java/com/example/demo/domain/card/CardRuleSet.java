@@ -0,0 +1,245 @@
+package com.example.demo.domain.card;
+
+import com.example.demo.model.dto.ReasonCode;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Card pattern rules compiled into a lookup table over all 10,000 four-digit card suffixes.
+ * Each suffix maps to a bitmask of the rules it matches, so checking a card against every rule is one array read, however many rules and suffixes are configured.
+ * Only the denylist needs a second step: its bit marks suffixes that have denylisted names, and the cardholder name is then checked for that suffix alone.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CardRuleSet {
+
+    /**
+     * What a matching rule does to the card signal.
+     */
+    public enum Action {
+        /**
+         * Flags the transaction as potential fraud
+         */
+        FLAG,
+
+        /**
+         * Adds a detail without flagging the transaction
+         */
+        ADVISORY,
+
+        /**
+         * The rule is not checked
+         */
+        OFF
+    }
+
+    public enum Rule {
+        REPEATED_DIGITS(ReasonCode.CARD_REPEATED_DIGITS),
+        SEQUENTIAL_RUN(ReasonCode.CARD_SEQUENTIAL_RUN),
+        TEST_CARD(ReasonCode.CARD_TEST_NUMBER),
+        DENYLISTED_NAME(ReasonCode.CARD_DENYLISTED);
+
+        private final ReasonCode reason;
+
+        Rule(ReasonCode reason) {
+            this.reason = reason;
+        }
+
+        /**
+         * Reason reported when the rule matches
+         */
+        public ReasonCode reason() {
+            return reason;
+        }
+
+        public int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    private static final Rule[] RULES = Rule.values();
+    private static final int SUFFIXES = 10_000;
+
+    // suffix (0000-9999) -> bitmask of the rules it matches
+    private final byte[] masks;
+    private final int flaggingRules;
+    // suffix -> normalized cardholder names denylisted with it
+    private final Map<Integer, Set<String>> denylist;
+
+    private CardRuleSet(byte[] masks, int flaggingRules, Map<Integer, Set<String>> denylist) {
+        this.masks = masks;
+        this.flaggingRules = flaggingRules;
+        this.denylist = denylist;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Rules matched by the card, as a bitmask of Rule.bit() values.
+     * Suffixes that are not exactly four ASCII digits match no rule.
+     */
+    public int match(String cardLast4, String nameOnCard) {
+        int suffix = suffixIndex(cardLast4);
+        if (suffix < 0) {
+            return 0;
+        }
+
+        int mask = masks[suffix];
+        if ((mask & Rule.DENYLISTED_NAME.bit()) != 0
+                && (nameOnCard == null || !denylist.get(suffix).contains(normalizeName(nameOnCard)))) {
+            mask &= ~Rule.DENYLISTED_NAME.bit();
+        }
+        return mask;
+    }
+
+    /**
+     * Whether any of the matched rules flags the transaction.
+     */
+    public boolean flags(int matchedRules) {
+        return (matchedRules & flaggingRules) != 0;
+    }
+
+    /**
+     * The rules in a bitmask, in declaration order.
+     */
+    public static List<Rule> rules(int matchedRules) {
+        List<Rule> rules = new ArrayList<>(Integer.bitCount(matchedRules));
+        for (Rule rule : RULES) {
+            if ((matchedRules & rule.bit()) != 0) {
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * The suffix as a number 0-9999, or -1 if it is not exactly four ASCII digits.
+     */
+    static int suffixIndex(String cardLast4) {
+        if (cardLast4 == null || cardLast4.length() != 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = cardLast4.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Collects the rule configuration; build() compiles it.
+     */
+    public static final class Builder {
+
+        private final Map<Rule, Action> actions = new EnumMap<>(Rule.class);
+        private final Set<Integer> testCardSuffixes = new HashSet<>();
+        private final Map<Integer, Set<String>> denylist = new HashMap<>();
+
+        private Builder() {
+            for (Rule rule : RULES) {
+                actions.put(rule, Action.FLAG);
+            }
+            // Too common among real cards to flag on its own
+            actions.put(Rule.SEQUENTIAL_RUN, Action.ADVISORY);
+            // Real cards end in the same digits as published test numbers (e.g. 4242), as CardRuleProperties defaults to
+            actions.put(Rule.TEST_CARD, Action.ADVISORY);
+        }
+
+        public Builder action(Rule rule, Action action) {
+            actions.put(rule, action);
+            return this;
+        }
+
+        public Builder testCardSuffix(String suffix) {
+            testCardSuffixes.add(requireSuffix(suffix));
+            return this;
+        }
+
+        /**
+         * Denylists a suffix for one cardholder name (compared ignoring case and surrounding whitespace).
+         */
+        public Builder denylist(String suffix, String nameOnCard) {
+            denylist.computeIfAbsent(requireSuffix(suffix), k -> new HashSet<>()).add(normalizeName(nameOnCard));
+            return this;
+        }
+
+        public CardRuleSet build() {
+            byte[] masks = new byte[SUFFIXES];
+            for (int suffix = 0; suffix < SUFFIXES; suffix++) {
+                int mask = 0;
+                if (isRepeatedDigits(suffix)) {
+                    mask |= Rule.REPEATED_DIGITS.bit();
+                }
+                if (isSequentialRun(suffix)) {
+                    mask |= Rule.SEQUENTIAL_RUN.bit();
+                }
+                if (testCardSuffixes.contains(suffix)) {
+                    mask |= Rule.TEST_CARD.bit();
+                }
+                if (denylist.containsKey(suffix)) {
+                    mask |= Rule.DENYLISTED_NAME.bit();
+                }
+                masks[suffix] = (byte) mask;
+            }
+
+            int enabledRules = 0;
+            int flaggingRules = 0;
+            for (Map.Entry<Rule, Action> entry : actions.entrySet()) {
+                if (entry.getValue() != Action.OFF) {
+                    enabledRules |= entry.getKey().bit();
+                }
+                if (entry.getValue() == Action.FLAG) {
+                    flaggingRules |= entry.getKey().bit();
+                }
+            }
+            // Disabled rules are compiled out of the table
+            for (int suffix = 0; suffix < SUFFIXES; suffix++) {
+                masks[suffix] &= (byte) enabledRules;
+            }
+
+            Map<Integer, Set<String>> names = new HashMap<>();
+            denylist.forEach((suffix, suffixNames) -> names.put(suffix, Set.copyOf(suffixNames)));
+            return new CardRuleSet(masks, flaggingRules, Map.copyOf(names));
+        }
+
+        private static int requireSuffix(String suffix) {
+            int index = suffixIndex(suffix == null ? null : suffix.trim());
+            if (index < 0) {
+                throw new IllegalArgumentException("Card suffix must be exactly four digits: " + suffix);
+            }
+            return index;
+        }
+
+        private static boolean isRepeatedDigits(int suffix) {
+            return suffix % 1111 == 0;
+        }
+
+        /**
+         * Four digits each one above (or each one below) the previous, e.g. 0123 or 9876.
+         */
+        private static boolean isSequentialRun(int suffix) {
+            int first = suffix / 1000;
+            int second = suffix / 100 % 10;
+            int third = suffix / 10 % 10;
+            int fourth = suffix % 10;
+            int step = second - first;
+            return (step == 1 || step == -1) && third - second == step && fourth - third == step;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.domain.customer;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Who a customer is, independent of how the name was typed: "John Smith", " john  smith" and "JOHN SMITH" are the same customer.
+ * A name is normalized by Unicode compatibility normalization (NFKC), case folding, trimming and collapsing inner
+ * whitespace, then hashed to a 64-bit key that history and evaluators use instead of the name.
+ * Plain ASCII names (the common case) are folded and hashed in a single pass without allocating.
+ * Distinct customers share a key only by hash collision, which at 64 bits stays negligible up to billions of customers.
+ */
+public final class CustomerIdentity {
+
+    /**
+     * Never returned by keyOf, so tables can use it to mark empty slots.
+     */
+    public static final long NO_KEY = 0;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private CustomerIdentity() {
+    }
+
+    /**
+     * The normalized form of a name, the text the key is computed from.
+     */
+    public static String normalize(String name) {
+        String folded = Normalizer.normalize(name, Normalizer.Form.NFKC)
+                .toUpperCase(Locale.ROOT)
+                .toLowerCase(Locale.ROOT);
+        folded = Normalizer.normalize(folded, Normalizer.Form.NFKC);
+
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (isSpace(c)) {
+                pendingSpace = !normalized.isEmpty();
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * The 64-bit key of a name; equal for every name with the same normalized form.
+     */
+    public static long keyOf(String name) {
+        long hash = FNV_OFFSET;
+        boolean started = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                return finish(hashOf(normalize(name)));
+            }
+            if (isSpace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                hash = (hash ^ ' ') * FNV_PRIME;
+                pendingSpace = false;
+            }
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            hash = (hash ^ c) * FNV_PRIME;
+            started = true;
+        }
+        return finish(hash);
+    }
+
+    private static long hashOf(String normalized) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < normalized.length(); i++) {
+            hash = (hash ^ normalized.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Spreads FNV's weak high bits (MurmurHash3 finalizer), so keys can be split into table index and stripe.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == NO_KEY ? 1 : hash;
+    }
+
+    private static boolean isSpace(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+}
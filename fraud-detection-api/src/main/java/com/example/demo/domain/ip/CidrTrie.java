@@ -0,0 +1,241 @@
+package com.example.demo.domain.ip;
+
+import java.util.Arrays;
+
+/**
+ * Path-compressed binary radix trie of CIDR blocks over 128-bit addresses (IPv4 blocks live in the IPv4-mapped range, see IpAddress).
+ * Each node stores its full prefix and length, so a chain of single-child nodes collapses into one edge and a lookup visits at most one node per stored prefix length on its path.
+ * Nodes are kept in parallel primitive arrays rather than objects, so a lookup is a few array reads and allocates nothing.
+ * Build the trie on one thread, then share it read-only (publish it through a final or volatile field).
+ */
+public final class CidrTrie {
+
+    /**
+     * Returned by lookup when no block contains the address.
+     */
+    public static final int NO_MATCH = -1;
+
+    private static final int ROOT = 0;
+    private static final int NO_CHILD = 0; // The root is never a child, so 0 can mean "none"
+
+    private long[] prefixHigh;
+    private long[] prefixLow;
+    private int[] prefixLength;
+    private int[] zeroChild;
+    private int[] oneChild;
+    private int[] values;
+    private int nodes;
+    private int blocks;
+
+    public CidrTrie() {
+        this(16);
+    }
+
+    public CidrTrie(int expectedBlocks) {
+        // A Patricia trie has fewer than two nodes per stored prefix
+        int capacity = Math.max(4, 2 * expectedBlocks);
+        prefixHigh = new long[capacity];
+        prefixLow = new long[capacity];
+        prefixLength = new int[capacity];
+        zeroChild = new int[capacity];
+        oneChild = new int[capacity];
+        values = new int[capacity];
+        newNode(0, 0, 0, NO_MATCH);
+    }
+
+    /**
+     * Adds a block written as "address/length" (or a bare address for a single host), e.g. "10.0.0.0/8" or "2001:db8::/32".
+     * IPv4 lengths count IPv4 bits. Host bits below the prefix length are ignored.
+     *
+     * @throws IllegalArgumentException if the text is not a valid block
+     */
+    public void add(String cidr, int value) {
+        int slash = cidr.indexOf('/');
+        int end = slash < 0 ? cidr.length() : slash;
+        IpAddress address = new IpAddress();
+        if (!address.parse(cidr, 0, end)) {
+            throw new IllegalArgumentException("Invalid CIDR block: " + cidr);
+        }
+
+        int maxLength = address.isIpv4() ? 32 : 128;
+        int length = maxLength;
+        if (slash >= 0) {
+            try {
+                length = Integer.parseInt(cidr, slash + 1, cidr.length(), 10);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid CIDR block: " + cidr, ex);
+            }
+            if (length < 0 || length > maxLength) {
+                throw new IllegalArgumentException("Invalid CIDR prefix length: " + cidr);
+            }
+        }
+        add(address.high(), address.low(), address.isIpv4() ? 96 + length : length, value);
+    }
+
+    /**
+     * Adds a block given as a 128-bit prefix and its length in bits (0-128). Adding the same block again replaces its value.
+     */
+    public void add(long high, long low, int length, int value) {
+        if (length < 0 || length > 128) {
+            throw new IllegalArgumentException("Prefix length must be between 0 and 128: " + length);
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative: " + value);
+        }
+        long keyHigh = maskHigh(high, length);
+        long keyLow = maskLow(low, length);
+
+        int node = ROOT;
+        while (true) {
+            // Invariant: the node's prefix is a prefix of the key
+            int nodeLength = prefixLength[node];
+            if (nodeLength == length) {
+                if (values[node] == NO_MATCH) {
+                    blocks++;
+                }
+                values[node] = value;
+                return;
+            }
+
+            boolean one = bit(keyHigh, keyLow, nodeLength);
+            int child = one ? oneChild[node] : zeroChild[node];
+            if (child == NO_CHILD) {
+                setChild(node, one, newNode(keyHigh, keyLow, length, value));
+                blocks++;
+                return;
+            }
+
+            int childLength = prefixLength[child];
+            int common = Math.min(Math.min(length, childLength),
+                    commonPrefixLength(keyHigh, keyLow, prefixHigh[child], prefixLow[child]));
+            if (common == childLength) {
+                node = child;
+                continue;
+            }
+
+            // The key diverges inside the child's edge: split it with a node at the common prefix
+            int split = newNode(maskHigh(keyHigh, common), maskLow(keyLow, common), common, NO_MATCH);
+            setChild(node, one, split);
+            setChild(split, bit(prefixHigh[child], prefixLow[child], common), child);
+            if (common == length) {
+                values[split] = value;
+            } else {
+                setChild(split, bit(keyHigh, keyLow, common), newNode(keyHigh, keyLow, length, value));
+            }
+            blocks++;
+            return;
+        }
+    }
+
+    /**
+     * Value of the most specific block containing the address, or NO_MATCH.
+     */
+    public int lookup(IpAddress address) {
+        return lookup(address.high(), address.low());
+    }
+
+    /**
+     * Value of the most specific block containing the 128-bit address, or NO_MATCH.
+     */
+    public int lookup(long high, long low) {
+        int best = NO_MATCH;
+        int node = ROOT;
+        while (true) {
+            int length = prefixLength[node];
+            if (maskHigh(high, length) != prefixHigh[node] || maskLow(low, length) != prefixLow[node]) {
+                return best;
+            }
+            if (values[node] != NO_MATCH) {
+                best = values[node];
+            }
+            if (length == 128) {
+                return best;
+            }
+            int child = bit(high, low, length) ? oneChild[node] : zeroChild[node];
+            if (child == NO_CHILD) {
+                return best;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Whether any block contains the address.
+     */
+    public boolean contains(IpAddress address) {
+        return lookup(address.high(), address.low()) != NO_MATCH;
+    }
+
+    /**
+     * Number of distinct blocks added.
+     */
+    public int size() {
+        return blocks;
+    }
+
+    /**
+     * Number of trie nodes, including the root and split nodes.
+     */
+    public int nodeCount() {
+        return nodes;
+    }
+
+    private int newNode(long high, long low, int length, int value) {
+        if (nodes == prefixLength.length) {
+            int capacity = nodes * 2;
+            prefixHigh = Arrays.copyOf(prefixHigh, capacity);
+            prefixLow = Arrays.copyOf(prefixLow, capacity);
+            prefixLength = Arrays.copyOf(prefixLength, capacity);
+            zeroChild = Arrays.copyOf(zeroChild, capacity);
+            oneChild = Arrays.copyOf(oneChild, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int node = nodes++;
+        prefixHigh[node] = high;
+        prefixLow[node] = low;
+        prefixLength[node] = length;
+        zeroChild[node] = NO_CHILD;
+        oneChild[node] = NO_CHILD;
+        values[node] = value;
+        return node;
+    }
+
+    private void setChild(int node, boolean one, int child) {
+        if (one) {
+            oneChild[node] = child;
+        } else {
+            zeroChild[node] = child;
+        }
+    }
+
+    /**
+     * Bit at the given index, counting from the most significant bit of the high word.
+     */
+    private static boolean bit(long high, long low, int index) {
+        return index < 64
+                ? ((high >>> (63 - index)) & 1) != 0
+                : ((low >>> (127 - index)) & 1) != 0;
+    }
+
+    private static long maskHigh(long high, int length) {
+        if (length >= 64) {
+            return high;
+        }
+        return length == 0 ? 0 : high & (-1L << (64 - length));
+    }
+
+    private static long maskLow(long low, int length) {
+        if (length <= 64) {
+            return 0;
+        }
+        return length == 128 ? low : low & (-1L << (128 - length));
+    }
+
+    private static int commonPrefixLength(long high, long low, long otherHigh, long otherLow) {
+        long difference = high ^ otherHigh;
+        if (difference != 0) {
+            return Long.numberOfLeadingZeros(difference);
+        }
+        return 64 + Long.numberOfLeadingZeros(low ^ otherLow); // 128 when equal
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.domain.ip;
+
+/**
+ * An IPv4 or IPv6 address as a 128-bit integer (two longs), parsed without allocating.
+ * IPv4 addresses are stored in the IPv4-mapped IPv6 range (::ffff:a.b.c.d), so one 128-bit trie covers both families and "::ffff:10.0.0.1" is treated exactly like "10.0.0.1".
+ * Instances are mutable and meant to be reused (e.g. one per thread), so a lookup path allocates nothing.
+ */
+public final class IpAddress {
+
+    /**
+     * High 32 bits of the low word of every IPv4-mapped address
+     */
+    static final long IPV4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+    private long high;
+    private long low;
+    private boolean ipv4;
+
+    /**
+     * Parses a dotted IPv4 address or an IPv6 address (with "::" compression and an optional dotted IPv4 tail).
+     * Zone ids, brackets and ports are rejected.
+     *
+     * @return false (leaving this address unchanged) if the text is not a valid address
+     */
+    public boolean parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    public boolean parse(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ':') {
+                return parseIpv6(text, start, end);
+            }
+        }
+
+        long value = parseIpv4(text, start, end);
+        if (value < 0) {
+            return false;
+        }
+        setIpv4(value);
+        return true;
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    /**
+     * Whether this is an IPv4 address (including one written in IPv4-mapped IPv6 form).
+     */
+    public boolean isIpv4() {
+        return ipv4;
+    }
+
+    /**
+     * The IPv4 address as an unsigned 32-bit value; only meaningful when isIpv4().
+     */
+    public long ipv4() {
+        return low & 0xFFFF_FFFFL;
+    }
+
+    @Override
+    public String toString() {
+        if (ipv4) {
+            long value = ipv4();
+            return ((value >>> 24) & 0xFF) + "." + ((value >>> 16) & 0xFF) + "." + ((value >>> 8) & 0xFF) + "." + (value & 0xFF);
+        }
+        StringBuilder text = new StringBuilder(39);
+        for (int group = 0; group < 8; group++) {
+            long word = group < 4 ? high : low;
+            int shift = 48 - 16 * (group & 3);
+            if (group > 0) {
+                text.append(':');
+            }
+            text.append(Long.toHexString((word >>> shift) & 0xFFFF));
+        }
+        return text.toString();
+    }
+
+    private void setIpv4(long value) {
+        this.high = 0;
+        this.low = IPV4_MAPPED_PREFIX | value;
+        this.ipv4 = true;
+    }
+
+    /**
+     * Parses a dotted IPv4 address to its unsigned 32-bit value, or returns -1 if it is not one.
+     */
+    public static long parseIpv4(CharSequence text) {
+        return parseIpv4(text, 0, text.length());
+    }
+
+    static long parseIpv4(CharSequence text, int start, int end) {
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+        int digits = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 3) {
+                    return -1;
+                }
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                value = (value << 8) | octet;
+                octets++;
+                octet = -1;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+
+        if (octets != 3 || octet < 0) {
+            return -1;
+        }
+        return (value << 8) | octet;
+    }
+
+    private boolean parseIpv6(CharSequence text, int start, int end) {
+        // Groups before "::" are shifted into head, groups after it into tail
+        long headHigh = 0;
+        long headLow = 0;
+        int headGroups = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = start;
+        if (text.charAt(i) == ':') {
+            if (end - start < 2 || text.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < end) {
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            while (i < end) {
+                int digit = Character.digit(text.charAt(i), 16);
+                if (digit < 0) {
+                    break;
+                }
+                if (++digits > 4) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+
+            int groupsToAdd;
+            long groupValue;
+            if (i < end && text.charAt(i) == '.') {
+                // Dotted IPv4 tail: must run to the end and counts as two groups
+                long ipv4 = parseIpv4(text, groupStart, end);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                groupsToAdd = 2;
+                groupValue = ipv4;
+                i = end;
+            } else {
+                if (digits == 0) {
+                    return false;
+                }
+                groupsToAdd = 1;
+                groupValue = value;
+            }
+
+            int shift = 16 * groupsToAdd;
+            if (compressed) {
+                tailHigh = (tailHigh << shift) | (tailLow >>> (64 - shift));
+                tailLow = (tailLow << shift) | groupValue;
+                tailGroups += groupsToAdd;
+            } else {
+                headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+                headLow = (headLow << shift) | groupValue;
+                headGroups += groupsToAdd;
+            }
+            if (headGroups + tailGroups > 8) {
+                return false;
+            }
+
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && text.charAt(i) == ':') {
+                if (compressed) {
+                    return false; // Only one "::" is allowed
+                }
+                compressed = true;
+                i++;
+            } else if (i == end) {
+                return false; // Trailing single colon
+            }
+        }
+
+        if (compressed ? headGroups + tailGroups > 7 : headGroups != 8) {
+            return false;
+        }
+
+        // Move the head groups to the top; "::" fills the gap with zeros
+        for (int group = headGroups; group < 8; group++) {
+            headHigh = (headHigh << 16) | (headLow >>> 48);
+            headLow <<= 16;
+        }
+
+        long parsedHigh = headHigh | tailHigh;
+        long parsedLow = headLow | tailLow;
+        if (parsedHigh == 0 && (parsedLow & 0xFFFF_FFFF_0000_0000L) == IPV4_MAPPED_PREFIX) {
+            setIpv4(parsedLow & 0xFFFF_FFFFL);
+        } else {
+            this.high = parsedHigh;
+            this.low = parsedLow;
+            this.ipv4 = false;
+        }
+        return true;
+    }
+}
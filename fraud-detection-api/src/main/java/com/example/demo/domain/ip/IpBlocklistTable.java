@@ -0,0 +1,358 @@
+package com.example.demo.domain.ip;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only set of individual IP addresses compiled from a blocklist feed into a memory-mapped binary file.
+ * The file is a header, the addresses as sorted 128-bit keys (see IpAddress) and a Bloom filter over them; a lookup checks the Bloom filter first,
+ * so almost every clean address is answered without touching the table, and binary-searches the table only for possible hits.
+ * Because the data is mapped rather than read into the heap, a table of tens of millions of addresses costs no heap, and JVMs on the same host that map the same file share its pages in the OS page cache.
+ * The mapping uses an automatic arena: it is unmapped once the table is unreachable, so a table that has been swapped out stays valid for lookups still using it.
+ */
+public final class IpBlocklistTable {
+
+    /**
+     * What compiling a feed produced.
+     */
+    public record CompileResult(Path table, long addresses, long invalidLines, long bytes) {
+    }
+
+    private static final int MAGIC = 0x46444942; // "FDIB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final int ENTRY_BYTES = 16;
+
+    private static final int BLOOM_BITS_PER_ADDRESS = 10;
+    private static final int BLOOM_HASHES = 7; // ~1% false positives at 10 bits per address
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final IpBlocklistTable EMPTY = new IpBlocklistTable(null, MemorySegment.NULL, 0, 1, -1, -1);
+
+    private final Path file;
+    private final MemorySegment segment;
+    private final long count;
+    private final long bloomMask;
+    private final long feedModifiedMillis;
+    private final long feedBytes;
+
+    private IpBlocklistTable(Path file, MemorySegment segment, long count, long bloomWords,
+                             long feedModifiedMillis, long feedBytes) {
+        this.file = file;
+        this.segment = segment;
+        this.count = count;
+        this.bloomMask = bloomWords * 64 - 1;
+        this.feedModifiedMillis = feedModifiedMillis;
+        this.feedBytes = feedBytes;
+    }
+
+    /**
+     * A table that contains nothing.
+     */
+    public static IpBlocklistTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles a feed (one IPv4 or IPv6 address per line; blank lines and lines starting with '#' are skipped) into a table file.
+     * The table is built in a temporary file next to the target and atomically renamed, so readers never map half a table;
+     * sorting happens inside the mapped file, so compiling does not hold the addresses in the heap either.
+     * Lines that are not valid addresses are skipped and counted.
+     */
+    public static CompileResult compile(Path feed, Path table) throws IOException {
+        long feedModifiedMillis = Files.getLastModifiedTime(feed).toMillis();
+        long feedBytes = Files.size(feed);
+
+        long candidates = 0;
+        try (BufferedReader reader = Files.newBufferedReader(feed, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isAddressLine(line)) {
+                    candidates++;
+                }
+            }
+        }
+
+        Path directory = table.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, table.getFileName().toString(), ".tmp");
+        try {
+            long count;
+            long invalid = 0;
+            long bytes;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                try (Arena arena = Arena.ofConfined()) {
+                    MemorySegment out = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            HEADER_BYTES + candidates * ENTRY_BYTES + bloomWords(candidates) * 8, arena);
+
+                    count = 0;
+                    IpAddress address = new IpAddress();
+                    try (BufferedReader reader = Files.newBufferedReader(feed, StandardCharsets.US_ASCII)) {
+                        String line;
+                        while ((line = reader.readLine()) != null && count < candidates) {
+                            if (!isAddressLine(line)) {
+                                continue;
+                            }
+                            if (!address.parse(line.trim())) {
+                                invalid++;
+                                continue;
+                            }
+                            long offset = HEADER_BYTES + count * ENTRY_BYTES;
+                            out.set(LONG, offset, address.high());
+                            out.set(LONG, offset + 8, address.low());
+                            count++;
+                        }
+                    }
+
+                    sort(out, 0, count - 1);
+                    count = deduplicate(out, count);
+
+                    long bloomWords = bloomWords(count);
+                    long bloomOffset = HEADER_BYTES + count * ENTRY_BYTES;
+                    long bloomMask = bloomWords * 64 - 1;
+                    // The filter starts where duplicate entries were written before deduplicate, so clear it first
+                    out.asSlice(bloomOffset, bloomWords * 8).fill((byte) 0);
+                    for (long i = 0; i < count; i++) {
+                        long offset = HEADER_BYTES + i * ENTRY_BYTES;
+                        long hash = hash(out.get(LONG, offset), out.get(LONG, offset + 8));
+                        long step = Long.rotateLeft(hash, 32) | 1;
+                        for (int k = 0; k < BLOOM_HASHES; k++) {
+                            long bit = (hash + k * step) & bloomMask;
+                            long wordOffset = bloomOffset + (bit >>> 6) * 8;
+                            out.set(LONG, wordOffset, out.get(LONG, wordOffset) | (1L << bit));
+                        }
+                    }
+
+                    out.set(INT, 0, MAGIC);
+                    out.set(INT, 4, VERSION);
+                    out.set(LONG, 8, count);
+                    out.set(LONG, 16, bloomWords);
+                    out.set(INT, 24, BLOOM_HASHES);
+                    out.set(LONG, 32, feedModifiedMillis);
+                    out.set(LONG, 40, feedBytes);
+                    out.force();
+                    bytes = bloomOffset + bloomWords * 8;
+                }
+                // Unmapped by now; drop the room reserved for invalid and duplicate lines
+                channel.truncate(bytes);
+                channel.force(true);
+            }
+
+            Files.move(temporary, table, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new CompileResult(table, count, invalid, bytes);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a compiled table file.
+     *
+     * @throws IllegalArgumentException if the file is not a complete table of a supported version
+     */
+    public static IpBlocklistTable open(Path table) throws IOException {
+        try (FileChannel channel = FileChannel.open(table, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IllegalArgumentException("IP blocklist table " + table.getFileName() + " is truncated");
+            }
+            // The mapping outlives the channel; the automatic arena unmaps it once the table is unreachable
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+            if (segment.get(INT, 0) != MAGIC || segment.get(INT, 4) != VERSION || segment.get(INT, 24) != BLOOM_HASHES) {
+                throw new IllegalArgumentException("IP blocklist table " + table.getFileName() + " has an unsupported format");
+            }
+
+            long count = segment.get(LONG, 8);
+            long bloomWords = segment.get(LONG, 16);
+            if (count < 0 || bloomWords != bloomWords(count)
+                    || segment.byteSize() != HEADER_BYTES + count * ENTRY_BYTES + bloomWords * 8) {
+                throw new IllegalArgumentException("IP blocklist table " + table.getFileName() + " is truncated");
+            }
+            return new IpBlocklistTable(table, segment, count, bloomWords, segment.get(LONG, 32), segment.get(LONG, 40));
+        }
+    }
+
+    /**
+     * Whether the table holds exactly this address. Allocation-free.
+     */
+    public boolean contains(IpAddress address) {
+        return contains(address.high(), address.low());
+    }
+
+    public boolean contains(long high, long low) {
+        if (count == 0) {
+            return false;
+        }
+
+        long hash = hash(high, low);
+        long step = Long.rotateLeft(hash, 32) | 1;
+        long bloomOffset = HEADER_BYTES + count * ENTRY_BYTES;
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            long bit = (hash + k * step) & bloomMask;
+            if ((segment.get(LONG, bloomOffset + (bit >>> 6) * 8) & (1L << bit)) == 0) {
+                return false; // Definitely not in the table
+            }
+        }
+
+        long lowIndex = 0;
+        long highIndex = count - 1;
+        while (lowIndex <= highIndex) {
+            long middle = (lowIndex + highIndex) >>> 1;
+            long offset = HEADER_BYTES + middle * ENTRY_BYTES;
+            int comparison = compare(segment.get(LONG, offset), segment.get(LONG, offset + 8), high, low);
+            if (comparison < 0) {
+                lowIndex = middle + 1;
+            } else if (comparison > 0) {
+                highIndex = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of distinct addresses.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * The mapped file, or null for the empty table.
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Whether this table was compiled from the feed in its current state (same modification time and size).
+     */
+    public boolean isCompiledFrom(Path feed) throws IOException {
+        return Files.getLastModifiedTime(feed).toMillis() == feedModifiedMillis && Files.size(feed) == feedBytes;
+    }
+
+    private static boolean isAddressLine(String line) {
+        String trimmed = line.trim();
+        return !trimmed.isEmpty() && trimmed.charAt(0) != '#';
+    }
+
+    /**
+     * Bloom filter size in 64-bit words: a power of two of at least BLOOM_BITS_PER_ADDRESS bits per address.
+     */
+    private static long bloomWords(long addresses) {
+        long bits = Math.max(64, addresses * BLOOM_BITS_PER_ADDRESS);
+        return Long.highestOneBit(bits - 1) << 1 >>> 6;
+    }
+
+    private static long hash(long high, long low) {
+        return mix(high * 0x9E37_79B9_7F4A_7C15L ^ mix(low));
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51_AFD7_ED55_8CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CE_B9FE_1A85_EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static int compare(long high, long low, long otherHigh, long otherLow) {
+        int comparison = Long.compareUnsigned(high, otherHigh);
+        return comparison != 0 ? comparison : Long.compareUnsigned(low, otherLow);
+    }
+
+    /**
+     * Sorts the entries between the two indexes (inclusive) in place: quicksort, recursing into the smaller side so
+     * the stack stays logarithmic, with insertion sort for short ranges.
+     */
+    private static void sort(MemorySegment entries, long from, long to) {
+        while (to - from > 16) {
+            long pivotIndex = from + ((to - from) >>> 1);
+            long pivotHigh = entries.get(LONG, HEADER_BYTES + pivotIndex * ENTRY_BYTES);
+            long pivotLow = entries.get(LONG, HEADER_BYTES + pivotIndex * ENTRY_BYTES + 8);
+
+            long left = from;
+            long right = to;
+            while (left <= right) {
+                while (compareAt(entries, left, pivotHigh, pivotLow) < 0) {
+                    left++;
+                }
+                while (compareAt(entries, right, pivotHigh, pivotLow) > 0) {
+                    right--;
+                }
+                if (left <= right) {
+                    swap(entries, left++, right--);
+                }
+            }
+
+            if (right - from < to - left) {
+                sort(entries, from, right);
+                from = left;
+            } else {
+                sort(entries, left, to);
+                to = right;
+            }
+        }
+
+        for (long i = from + 1; i <= to; i++) {
+            for (long j = i; j > from && compareAt(entries, j - 1, entries.get(LONG, HEADER_BYTES + j * ENTRY_BYTES),
+                    entries.get(LONG, HEADER_BYTES + j * ENTRY_BYTES + 8)) > 0; j--) {
+                swap(entries, j - 1, j);
+            }
+        }
+    }
+
+    private static int compareAt(MemorySegment entries, long index, long high, long low) {
+        long offset = HEADER_BYTES + index * ENTRY_BYTES;
+        return compare(entries.get(LONG, offset), entries.get(LONG, offset + 8), high, low);
+    }
+
+    private static void swap(MemorySegment entries, long first, long second) {
+        long firstOffset = HEADER_BYTES + first * ENTRY_BYTES;
+        long secondOffset = HEADER_BYTES + second * ENTRY_BYTES;
+        long high = entries.get(LONG, firstOffset);
+        long low = entries.get(LONG, firstOffset + 8);
+        entries.set(LONG, firstOffset, entries.get(LONG, secondOffset));
+        entries.set(LONG, firstOffset + 8, entries.get(LONG, secondOffset + 8));
+        entries.set(LONG, secondOffset, high);
+        entries.set(LONG, secondOffset + 8, low);
+    }
+
+    /**
+     * Removes adjacent duplicates from the sorted entries and returns the new count.
+     */
+    private static long deduplicate(MemorySegment entries, long count) {
+        if (count == 0) {
+            return 0;
+        }
+        long kept = 1;
+        for (long i = 1; i < count; i++) {
+            long offset = HEADER_BYTES + i * ENTRY_BYTES;
+            long high = entries.get(LONG, offset);
+            long low = entries.get(LONG, offset + 8);
+            if (compareAt(entries, kept - 1, high, low) != 0) {
+                long keptOffset = HEADER_BYTES + kept * ENTRY_BYTES;
+                entries.set(LONG, keptOffset, high);
+                entries.set(LONG, keptOffset + 8, low);
+                kept++;
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.domain.rules;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned set of scoring thresholds, compiled from a YAML rule file.
+ * Every rule is a record of primitive fields with a predicate method, so evaluating one costs the same as comparing against a constant; a new file produces a new RuleSet instead of changing this one.
+ *
+ * @param version identifies the rule file the set was compiled from; returned with every score it produced
+ */
+public record RuleSet(String version, TransactionRules transaction, LocationRules location) {
+
+    /**
+     * Version of the built-in rules used when no rule file is configured.
+     */
+    public static final String BUILT_IN_VERSION = "built-in";
+
+    /**
+     * Amount, item count, price-per-item and velocity rules.
+     *
+     * @param velocityThreshold transactions within the window at which the customer is flagged
+     */
+    public record TransactionRules(double highAmount, int highItemCount, double highPricePerItem,
+                                   boolean flagHighPricePerItem, int velocityThreshold, int velocityWindowMinutes) {
+
+        public TransactionRules {
+            requirePositive("transaction.high-amount", highAmount);
+            requirePositive("transaction.high-item-count", highItemCount);
+            requirePositive("transaction.high-price-per-item", highPricePerItem);
+            requirePositive("transaction.velocity.threshold", velocityThreshold);
+            requirePositive("transaction.velocity.window-minutes", velocityWindowMinutes);
+        }
+
+        public boolean isHighAmount(double amount) {
+            return amount > highAmount;
+        }
+
+        public boolean isHighItemCount(int itemCount) {
+            return itemCount > highItemCount;
+        }
+
+        public boolean isHighPricePerItem(double pricePerItem) {
+            return pricePerItem > highPricePerItem;
+        }
+
+        public boolean isHighVelocity(long recentTransactions) {
+            return recentTransactions >= velocityThreshold;
+        }
+    }
+
+    /**
+     * Whether a location finding flags the transaction or is only reported.
+     */
+    public record LocationRules(boolean flagMerchantMismatch, boolean flagNewLocation) {
+    }
+
+    public RuleSet {
+        if (version == null || version.isBlank()) {
+            throw new IllegalArgumentException("Rule set version is required");
+        }
+    }
+
+    /**
+     * The rules the evaluators have always used.
+     */
+    public static RuleSet defaults() {
+        return new RuleSet(BUILT_IN_VERSION,
+                new TransactionRules(1000.0, 10, 500.0, false, 3, 10),
+                new LocationRules(true, true));
+    }
+
+    /**
+     * Compiles a YAML rule file. Only "version" is required; any rule left out keeps its built-in value.
+     * <pre>
+     * version: "2025-06-01.1"
+     * transaction:
+     *   high-amount: 1000.0
+     *   high-item-count: 10
+     *   high-price-per-item: 500.0
+     *   flag-high-price-per-item: false
+     *   velocity:
+     *     threshold: 3
+     *     window-minutes: 10
+     * location:
+     *   flag-merchant-mismatch: true
+     *   flag-new-location: true
+     * </pre>
+     *
+     * @throws IllegalArgumentException if the file is not valid YAML, has an unknown key or a value of the wrong type or range
+     */
+    public static RuleSet parse(Reader yaml) {
+        Object document;
+        try {
+            document = new Yaml(new SafeConstructor(new LoaderOptions())).load(yaml);
+        } catch (YAMLException ex) {
+            throw new IllegalArgumentException("Rule file is not valid YAML: " + ex.getMessage(), ex);
+        }
+
+        Map<String, Object> root = section(document, "rule file", Set.of("version", "transaction", "location"));
+        Object version = root.get("version");
+        if (version == null) {
+            throw new IllegalArgumentException("Rule file has no version");
+        }
+        if (!(version instanceof String || version instanceof Number)) {
+            // An unquoted date would otherwise come back as a timestamp
+            throw new IllegalArgumentException("version must be a string; quote it if it looks like a date");
+        }
+
+        RuleSet defaults = defaults();
+        TransactionRules transactionDefaults = defaults.transaction();
+        Map<String, Object> transaction = section(root.get("transaction"), "transaction",
+                Set.of("high-amount", "high-item-count", "high-price-per-item", "flag-high-price-per-item", "velocity"));
+        Map<String, Object> velocity = section(transaction.get("velocity"), "transaction.velocity",
+                Set.of("threshold", "window-minutes"));
+        Map<String, Object> location = section(root.get("location"), "location",
+                Set.of("flag-merchant-mismatch", "flag-new-location"));
+
+        return new RuleSet(version.toString(),
+                new TransactionRules(
+                        decimal(transaction, "transaction.high-amount", transactionDefaults.highAmount()),
+                        integer(transaction, "transaction.high-item-count", transactionDefaults.highItemCount()),
+                        decimal(transaction, "transaction.high-price-per-item", transactionDefaults.highPricePerItem()),
+                        bool(transaction, "transaction.flag-high-price-per-item", transactionDefaults.flagHighPricePerItem()),
+                        integer(velocity, "transaction.velocity.threshold", transactionDefaults.velocityThreshold()),
+                        integer(velocity, "transaction.velocity.window-minutes", transactionDefaults.velocityWindowMinutes())),
+                new LocationRules(
+                        bool(location, "location.flag-merchant-mismatch", defaults.location().flagMerchantMismatch()),
+                        bool(location, "location.flag-new-location", defaults.location().flagNewLocation())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Object value, String path, Set<String> allowedKeys) {
+        if (value == null) {
+            return Map.of();
+        }
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(path + " must be a mapping");
+        }
+        Map<String, Object> section = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (!allowedKeys.contains(key)) {
+                throw new IllegalArgumentException("Unknown rule " + (path.equals("rule file") ? key : path + "." + key));
+            }
+            section.put(key, entry.getValue());
+        }
+        return section;
+    }
+
+    private static double decimal(Map<String, Object> section, String path, double defaultValue) {
+        Object value = section.get(leafKey(path));
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException(path + " must be a number");
+        }
+        return number.doubleValue();
+    }
+
+    private static int integer(Map<String, Object> section, String path, int defaultValue) {
+        Object value = section.get(leafKey(path));
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Integer number)) {
+            throw new IllegalArgumentException(path + " must be a whole number");
+        }
+        return number;
+    }
+
+    private static boolean bool(Map<String, Object> section, String path, boolean defaultValue) {
+        Object value = section.get(leafKey(path));
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Boolean flag)) {
+            throw new IllegalArgumentException(path + " must be true or false");
+        }
+        return flag;
+    }
+
+    private static String leafKey(String path) {
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
+    private static void requirePositive(String path, double value) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException(path + " must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result for one transaction of a batch scoring request.
+ * Carries either the fraud signals (the same ones the single-transaction endpoint returns) or the validation errors that kept this item from being scored; the other field is omitted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    /**
+     * Position of the transaction in the request array
+     */
+    @JsonView(SignalViews.Compact.class)
+    private int index;
+
+    /**
+     * Fraud signals for the transaction, when it was valid
+     */
+    @JsonView(SignalViews.Compact.class)
+    private List<FraudSignal> signals;
+
+    /**
+     * Version of the scoring rules that produced the signals, when it was valid
+     */
+    @JsonView(SignalViews.Compact.class)
+    private String ruleVersion;
+
+    /**
+     * Why the transaction was not scored, when it was invalid
+     */
+    @JsonView(SignalViews.Compact.class)
+    private List<String> errors;
+}
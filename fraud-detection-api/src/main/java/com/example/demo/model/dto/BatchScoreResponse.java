@@ -0,0 +1,24 @@
+package com.example.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for the batch scoring endpoint.
+ * Holds one result per submitted transaction, in request order, so a few invalid items never fail the whole batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchScoreResponse {
+
+    /**
+     * Per-transaction results, in the same order as the request
+     */
+    @JsonView(SignalViews.Compact.class)
+    private List<BatchItemResult> results;
+}
@@ -1,10 +1,13 @@
 package com.example.demo.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Response DTO containing all fraud signals for a transaction.
@@ -18,5 +21,24 @@ public class FraudScoreResponse {
     /**
      * List of all fraud signals evaluated for this transaction
      */
+    @JsonView(SignalViews.Compact.class)
     private List<FraudSignal> signals;
+    
+    /**
+     * Version of the scoring rules that produced these signals
+     */
+    @JsonView(SignalViews.Compact.class)
+    private String ruleVersion;
+    
+    /**
+     * Milliseconds spent in each stage of the request (bind, validation, each evaluator, history read and write, total);
+     * only present when timing was requested
+     */
+    @JsonView(SignalViews.Compact.class)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timing;
+    
+    public FraudScoreResponse(List<FraudSignal> signals, String ruleVersion) {
+        this(signals, ruleVersion, null);
+    }
 }
@@ -1,6 +1,6 @@
 package com.example.demo.model.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonView;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,24 +9,63 @@ import java.util.List;
 /**
  * Represents a single fraud signal in the response.
  * This represents one fraud check result (like location, IP, transaction, or card), containing the check type, whether it detected fraud (true/false), and detailed reasons why.
+ * Evaluators report structured reasons (codes plus params); the human-readable details are rendered from them only when first read, so the compact response view never formats any text.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class FraudSignal {
-    
+
     /**
      * Type of signal (e.g., "location", "ipAddress", "transaction", "cardDetails")
      */
+    @JsonView(SignalViews.Compact.class)
     private String signal;
-    
+
     /**
      * Whether this signal indicates potential fraud
      */
+    @JsonView(SignalViews.Compact.class)
     private Boolean potentialFraud;
-    
+
     /**
-     * Detailed explanations for this signal's assessment
+     * Machine-readable reasons for this signal's assessment
      */
+    @JsonView(SignalViews.Compact.class)
+    private List<Reason> reasons = List.of();
+
+    /**
+     * Detailed explanations for this signal's assessment; rendered from the reasons unless set explicitly
+     */
+    @JsonView(SignalViews.Full.class)
     private List<String> details;
+
+    /**
+     * A signal explained by free text only, without reason codes.
+     */
+    public FraudSignal(String signal, Boolean potentialFraud, List<String> details) {
+        this.signal = signal;
+        this.potentialFraud = potentialFraud;
+        this.details = details;
+    }
+
+    /**
+     * A signal explained by reason codes; its details are rendered on first read.
+     */
+    public static FraudSignal of(String signal, boolean potentialFraud, List<Reason> reasons) {
+        FraudSignal fraudSignal = new FraudSignal();
+        fraudSignal.signal = signal;
+        fraudSignal.potentialFraud = potentialFraud;
+        fraudSignal.reasons = reasons;
+        return fraudSignal;
+    }
+
+    public List<String> getDetails() {
+        List<String> rendered = details;
+        if (rendered == null && reasons != null) {
+            // Racing readers render equal lists, so the unsynchronized cache is harmless
+            rendered = reasons.stream().map(Reason::render).toList();
+            details = rendered;
+        }
+        return rendered;
+    }
 }
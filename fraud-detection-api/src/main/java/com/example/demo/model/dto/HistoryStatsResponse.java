@@ -0,0 +1,80 @@
+package com.example.demo.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Size, eviction, startup-loading and write-behind counters of the in-memory transaction history.
+ * Returned by the history stats endpoint so operators can see how much is being retained and how much the retention policy is dropping.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryStatsResponse {
+
+    /**
+     * Customers currently held in history
+     */
+    private long customers;
+
+    /**
+     * Transaction records currently held across all customers
+     */
+    private long records;
+
+    /**
+     * Records dropped because they were older than the maximum age
+     */
+    private long expiredRecords;
+
+    /**
+     * Records dropped because a customer exceeded the per-customer cap
+     */
+    private long overflowRecords;
+
+    /**
+     * Customers evicted (idle customers above the customer cap, or customers with no records left)
+     */
+    private long evictedCustomers;
+
+    /**
+     * Velocity checks with a window longer than the velocity ring, answered by scanning the customer's history
+     */
+    private long velocityScans;
+
+    /**
+     * Bytes read at startup (snapshot plus write-ahead log tail)
+     */
+    private long loadedBytes;
+
+    /**
+     * Time spent loading history at startup
+     */
+    private long recoveryMillis;
+
+    /**
+     * JVM uptime when history loading finished and the instance became ready
+     */
+    private long timeToReadyMillis;
+
+    /**
+     * Saves waiting in the write-behind queue
+     */
+    private long writeBehindQueueDepth;
+
+    /**
+     * Saves discarded because the write-behind queue was full (DROP policy)
+     */
+    private long writeBehindDropped;
+
+    /**
+     * Saves that had to wait for room in the write-behind queue (BLOCK policy)
+     */
+    private long writeBehindBlocked;
+
+    /**
+     * Reads that gave up waiting for the same customer's queued saves and may have missed them
+     */
+    private long writeBehindStaleReads;
+}
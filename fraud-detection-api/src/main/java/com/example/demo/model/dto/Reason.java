@@ -0,0 +1,49 @@
+package com.example.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+
+import java.util.List;
+
+/**
+ * One reason behind a fraud signal: a code plus the values its message refers to (amounts, names, thresholds).
+ * Text is only produced by render(), so evaluators that build reasons never format strings.
+ * Reasons without params are shared instances (see of(ReasonCode)), so constant reasons cost no allocation.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record Reason(@JsonView(SignalViews.Compact.class) ReasonCode code,
+                     @JsonView(SignalViews.Compact.class) List<Object> params) {
+
+    private static final Reason[] WITHOUT_PARAMS = new Reason[ReasonCode.values().length];
+
+    static {
+        for (ReasonCode code : ReasonCode.values()) {
+            WITHOUT_PARAMS[code.ordinal()] = new Reason(code, List.of());
+        }
+    }
+
+    public Reason {
+        params = params == null ? List.of() : params;
+    }
+
+    /**
+     * The shared reason for a code without params.
+     */
+    public static Reason of(ReasonCode code) {
+        return WITHOUT_PARAMS[code.ordinal()];
+    }
+
+    public static Reason of(ReasonCode code, Object... params) {
+        return new Reason(code, List.of(params));
+    }
+
+    /**
+     * Human-readable message: the code's template with the params filled in.
+     */
+    public String render() {
+        if (params.isEmpty()) {
+            return code.template();
+        }
+        return String.format(code.template(), params.toArray());
+    }
+}
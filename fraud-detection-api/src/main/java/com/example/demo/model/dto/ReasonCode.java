@@ -0,0 +1,58 @@
+package com.example.demo.model.dto;
+
+/**
+ * Machine-readable reason behind a fraud signal.
+ * Each code carries the message template used to render it for people; the template's %-placeholders are filled from the Reason's params, in order.
+ * Codes are part of the API: add new ones freely, but never rename or reuse one.
+ */
+public enum ReasonCode {
+
+    // ipAddress
+    IP_BLOCKLISTED("IP address is on the known fraudulent list"),
+    IP_FLAGGED("Flagged IP: %s"),
+    IP_NOT_LISTED("IP address is not known to be fraudulent or malicious"),
+    IP_PRIVATE_NETWORK("IP address appears to be from a private network (potential VPN/proxy)"),
+    IP_INVALID("IP address is not a valid IPv4 or IPv6 address"),
+
+    // cardDetails
+    CARD_NAME_MISMATCH("Customer name does not match name on card"),
+    CARD_NAMES("Customer: '%s' | Card: '%s'"),
+    CARD_NAME_MATCH("Customer name matches name on card"),
+    CARD_REPEATED_DIGITS("Card last 4 digits show suspicious pattern (all same digits)"),
+    CARD_SEQUENTIAL_RUN("Card last 4 digits form a sequential run (e.g. 1234 or 9876)"),
+    CARD_TEST_NUMBER("Card last 4 digits match a well-known test card number"),
+    CARD_DENYLISTED("Card last 4 digits and cardholder name are on the card denylist"),
+    CARD_LEGITIMATE("Card details appear legitimate"),
+
+    // location
+    LOCATION_MISMATCH("Customer location differs from merchant location"),
+    LOCATIONS("Customer: %s, %s | Merchant: %s, %s"),
+    LOCATION_MATCH("Customer and merchant are in the same location"),
+    LOCATION_NEW("New location for customer: %s, %s"),
+    LOCATION_VISITED("Customer has purchased from this location before"),
+
+    // transaction
+    AMOUNT_HIGH("Transaction amount ($%.2f) exceeds normal threshold ($%.2f)"),
+    ITEM_COUNT_HIGH("Item count (%d) is unusually high (threshold: %d)"),
+    PRICE_PER_ITEM_HIGH("High average price per item: $%.2f"),
+    VELOCITY_HIGH("Velocity alert: %d transactions in last %d minutes"),
+    VELOCITY_NORMAL("Transaction velocity normal: fewer than %d transactions in last %d minutes"),
+    TRANSACTION_NORMAL("Transaction amount and item count are within normal ranges"),
+
+    // Pipeline
+    SIGNAL_TIMED_OUT("Signal evaluation timed out after %d ms; result degraded"),
+    SIGNAL_FAILED("Signal evaluation failed; result degraded"),
+    SIGNAL_INTERRUPTED("Signal evaluation was interrupted; result degraded"),
+    SHARD_BUSY("Too many transactions waiting for this customer's shard; result degraded"),
+    NOT_EVALUATED_BLOCKED("Not evaluated: transaction already blocked by the %s signal");
+
+    private final String template;
+
+    ReasonCode(String template) {
+        this.template = template;
+    }
+
+    public String template() {
+        return template;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model.dto;
+
+/**
+ * Jackson views of the scoring responses.
+ * Compact carries signal names, flags and reason codes only; Full (the default) adds the rendered details.
+ * Spring Boot turns off default view inclusion, so every response field must name the views it belongs to.
+ */
+public final class SignalViews {
+
+    public interface Compact {
+    }
+
+    public interface Full extends Compact {
+    }
+
+    private SignalViews() {
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.demo.model.dto;
 
+import com.example.demo.domain.customer.CustomerIdentity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Main request DTO for the fraud scoring API.
@@ -13,7 +19,6 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class TransactionRequest {
     
     @NotBlank(message = "Customer name is required")
@@ -33,4 +38,38 @@ public class TransactionRequest {
     @NotNull(message = "Transaction details are required")
     @Valid
     private TransactionDetails transactionDetails;
+    
+    /**
+     * CustomerIdentity key of customerName, computed once per request on first use
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient volatile long customerKey;
+    
+    public TransactionRequest(String customerName, String ipAddress, Location location,
+                              PaymentDetails paymentDetails, TransactionDetails transactionDetails) {
+        this.customerName = customerName;
+        this.ipAddress = ipAddress;
+        this.location = location;
+        this.paymentDetails = paymentDetails;
+        this.transactionDetails = transactionDetails;
+    }
+    
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+        this.customerKey = CustomerIdentity.NO_KEY;
+    }
+    
+    /**
+     * Key of the customer this transaction belongs to: the same for every spelling of the name that normalizes alike.
+     */
+    @JsonIgnore
+    public long getCustomerKey() {
+        if (customerKey == CustomerIdentity.NO_KEY && customerName != null) {
+            customerKey = CustomerIdentity.keyOf(customerName);
+        }
+        return customerKey;
+    }
 }
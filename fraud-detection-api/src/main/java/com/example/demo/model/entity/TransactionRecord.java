@@ -1,18 +1,21 @@
 package com.example.demo.model.entity;
 
-import lombok.AllArgsConstructor;
+import com.example.demo.domain.customer.CustomerIdentity;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
 /**
  * Represents a historical transaction record.
- * This is the internal data structure used to store a simplified version of each transaction in the history (ConcurrentHashMap), enabling fraud detection based on past customer behavior like location patterns and transaction velocity.
+ * This is the internal data structure used to store a simplified version of each transaction in the history, enabling fraud detection based on past customer behavior like location patterns and transaction velocity.
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class TransactionRecord {
     
     private String customerName;
@@ -22,4 +25,35 @@ public class TransactionRecord {
     private LocalDateTime timestamp;
     private String ipAddress;
     private String merchantName;
+    
+    /**
+     * CustomerIdentity key of customerName, computed on first use (or handed over from the request); not persisted
+     */
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient volatile long customerKey;
+    
+    public TransactionRecord(String customerName, String city, String state, Double amount,
+                             LocalDateTime timestamp, String ipAddress, String merchantName) {
+        this.customerName = customerName;
+        this.city = city;
+        this.state = state;
+        this.amount = amount;
+        this.timestamp = timestamp;
+        this.ipAddress = ipAddress;
+        this.merchantName = merchantName;
+    }
+    
+    public void setCustomerName(String customerName) {
+        this.customerName = customerName;
+        this.customerKey = CustomerIdentity.NO_KEY;
+    }
+    
+    public long getCustomerKey() {
+        if (customerKey == CustomerIdentity.NO_KEY && customerName != null) {
+            customerKey = CustomerIdentity.keyOf(customerName);
+        }
+        return customerKey;
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.model.dto.BatchItemResult;
+import com.example.demo.model.dto.BatchScoreResponse;
+import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.TransactionRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scores a batch of transactions in one call.
+ * Each item is validated on its own, so invalid items get errors while the rest are still scored.
+ * Items of the same customer are scored one after another in request order (so each sees the history written by the previous one and velocity counts inside a batch are right); different customers are scored in parallel on virtual threads.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchScoringService {
+
+    private final FraudDetectionService fraudDetectionService;
+    private final TransactionRequestValidator validator;
+    private final ScoringProperties properties;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Scores every transaction of the batch.
+     *
+     * @param requests The transactions, in the order results should be returned
+     * @return One result per transaction, in request order
+     * @throws InvalidBatchException if the batch is empty or larger than the configured maximum
+     */
+    public BatchScoreResponse scoreTransactions(List<TransactionRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidBatchException("At least one transaction is required");
+        }
+        int maxItems = properties.getBatch().getMaxItems();
+        if (requests.size() > maxItems) {
+            throw new InvalidBatchException("A batch can hold at most " + maxItems + " transactions");
+        }
+
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+
+        // Validate everything up front; valid items are grouped by customer, keeping request order inside each group
+        Map<Long, List<Integer>> itemsByCustomer = new LinkedHashMap<>();
+        for (int index = 0; index < requests.size(); index++) {
+            List<String> errors = validator.validate(requests.get(index));
+            if (errors.isEmpty()) {
+                itemsByCustomer.computeIfAbsent(requests.get(index).getCustomerKey(), k -> new ArrayList<>()).add(index);
+            } else {
+                results[index] = new BatchItemResult(index, null, null, errors);
+            }
+        }
+
+        if (itemsByCustomer.size() <= 1) {
+            // Nothing to run in parallel
+            itemsByCustomer.values().forEach(indexes -> scoreInOrder(requests, indexes, results));
+        } else {
+            List<Future<?>> groups = new ArrayList<>(itemsByCustomer.size());
+            for (List<Integer> indexes : itemsByCustomer.values()) {
+                groups.add(executor.submit(() -> scoreInOrder(requests, indexes, results)));
+            }
+            awaitAll(groups);
+        }
+
+        log.debug("Scored batch of {} transactions for {} customers", requests.size(), itemsByCustomer.size());
+        return new BatchScoreResponse(Arrays.asList(results));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Scores one customer's items sequentially. A failure is reported on its own item and does not stop the group.
+     */
+    private void scoreInOrder(List<TransactionRequest> requests, List<Integer> indexes, BatchItemResult[] results) {
+        for (int index : indexes) {
+            try {
+                FraudScoreResponse response = fraudDetectionService.scoreTransaction(requests.get(index));
+                results[index] = new BatchItemResult(index, response.getSignals(), response.getRuleVersion(), null);
+            } catch (RuntimeException ex) {
+                log.error("Failed to score transaction {} of batch", index, ex);
+                results[index] = new BatchItemResult(index, null, null,
+                        List.of(ex.getMessage() != null ? ex.getMessage() : "An unexpected error occurred"));
+            }
+        }
+    }
+
+    private static void awaitAll(List<Future<?>> groups) {
+        try {
+            for (Future<?> group : groups) {
+                group.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            groups.forEach(group -> group.cancel(true));
+            throw new IllegalStateException("Interrupted while scoring batch", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Batch scoring failed", ex.getCause());
+        }
+    }
+}
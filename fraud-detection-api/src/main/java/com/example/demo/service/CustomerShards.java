@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Customers partitioned over single-threaded shards by their 64-bit key (see CustomerIdentity).
+ * All work for one customer runs on the same shard thread, one task after another, so a task that reads a customer's
+ * history and then records to it is never interleaved with another task for that customer, without taking any lock.
+ * Different customers on different shards run in parallel; the caller waits for its task, so it sees the result and
+ * any exception as if it had run the task itself.
+ * Each shard queues a bounded number of tasks and callers wait a bounded time, so a hot customer or a slow history
+ * backend turns into rejected or timed-out calls instead of an ever-growing queue of blocked request threads.
+ */
+public final class CustomerShards {
+
+    private final ExecutorService[] shards;
+
+    public CustomerShards(int shardCount, int queueCapacity) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Shard queue capacity must be positive: " + queueCapacity);
+        }
+        shards = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    Thread.ofPlatform().name("fraud-shard-" + i).daemon().factory(), new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * The shard that owns the customer; keys are already well mixed, so they spread evenly.
+     */
+    public int shardOf(long customerKey) {
+        return (int) Long.remainderUnsigned(customerKey, shards.length);
+    }
+
+    /**
+     * Runs the task on the customer's shard, after the tasks queued there before it, and waits for its result.
+     * A task that times out is not cancelled: it still runs in its turn, so whatever it records stays in order.
+     * Must not be called from a shard thread, which would wait on its own queue.
+     *
+     * @throws RejectedExecutionException if the shard's queue is full (the task does not run)
+     * @throws TimeoutException           if the task has not finished within the timeout
+     */
+    public <T> T call(long customerKey, Callable<T> task, Duration timeout) throws TimeoutException {
+        Future<T> future = shards[shardOf(customerKey)].submit(task);
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for customer shard", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Customer shard task failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Stops the shard threads once the tasks already queued have run.
+     */
+    public void close() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
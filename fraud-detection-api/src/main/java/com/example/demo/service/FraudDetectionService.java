@@ -1,59 +1,404 @@
 package com.example.demo.service;
 
-import com.example.demo.domain.*;
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.domain.SignalEvaluator;
+import com.example.demo.domain.rules.RuleSet;
 import com.example.demo.model.dto.FraudScoreResponse;
 import com.example.demo.model.dto.FraudSignal;
+import com.example.demo.model.dto.Reason;
+import com.example.demo.model.dto.ReasonCode;
 import com.example.demo.model.dto.TransactionRequest;
 import com.example.demo.model.entity.TransactionRecord;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service that orchestrates fraud detection across multiple signal evaluators.
  * This is the main business logic coordinator.
+ * Every SignalEvaluator bean is run as a pipeline: dependencies first, otherwise cheapest first. With fraud.scoring.short-circuit the remaining evaluators are skipped once one of them reports a definitive block.
+ * With fraud.scoring.execution=parallel the history-backed evaluators run concurrently on virtual threads, each within a time budget; an evaluator that misses it is reported as a degraded signal instead of holding up the response.
+ * With fraud.scoring.execution=sharded each transaction is evaluated and saved on its customer's CustomerShards thread, so concurrent transactions of one customer are scored one after another and each sees the ones before it in its velocity count.
+ * All evaluators of one transaction see the same RuleSet, whose version is returned with the signals.
+ * Each evaluation and each whole scoring call is timed into ScoringMetrics; the meters are resolved once, when the pipeline is built.
+ * Requests in profiling mode (see RequestTiming) also get each evaluation and the history write recorded as stages.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FraudDetectionService {
-    
-    private final LocationSignalEvaluator locationEvaluator;
-    private final IpAddressSignalEvaluator ipAddressEvaluator;
-    private final TransactionSignalEvaluator transactionEvaluator;
-    private final CardDetailsSignalEvaluator cardDetailsEvaluator;
+
+    // Evaluators in execution order
+    private final List<SignalEvaluator> pipeline;
     private final TransactionHistoryService historyService;
-    
+    private final ScoringProperties properties;
+    private final RuleSetService ruleSetService;
+    private final ScoringMetrics metrics;
+
+    // Meters and RequestTiming stage names of each evaluator, by pipeline position
+    private final ScoringMetrics.SignalMeters[] meters;
+    private final String[] timingStages;
+
+    // Used only in PARALLEL mode (null otherwise); virtual threads, so a blocked evaluator does not tie up a platform thread
+    private final ExecutorService evaluatorExecutor;
+
+    // Used only in SHARDED mode (null otherwise); the mode is fixed when the service is created
+    private final CustomerShards shards;
+
+    public FraudDetectionService(List<SignalEvaluator> evaluators, TransactionHistoryService historyService) {
+        this(evaluators, historyService, new ScoringProperties());
+    }
+
+    public FraudDetectionService(List<SignalEvaluator> evaluators, TransactionHistoryService historyService,
+                                 ScoringProperties properties) {
+        this(evaluators, historyService, properties, new RuleSetService());
+    }
+
+    public FraudDetectionService(List<SignalEvaluator> evaluators, TransactionHistoryService historyService,
+                                 ScoringProperties properties, RuleSetService ruleSetService) {
+        this(evaluators, historyService, properties, ruleSetService, new ScoringMetrics());
+    }
+
+    @Autowired
+    public FraudDetectionService(List<SignalEvaluator> evaluators, TransactionHistoryService historyService,
+                                 ScoringProperties properties, RuleSetService ruleSetService, ScoringMetrics metrics) {
+        this.pipeline = orderPipeline(evaluators);
+        this.historyService = historyService;
+        this.properties = properties;
+        this.ruleSetService = ruleSetService;
+        this.metrics = metrics;
+        this.meters = pipeline.stream()
+                .map(evaluator -> metrics.forSignal(evaluator.name()))
+                .toArray(ScoringMetrics.SignalMeters[]::new);
+        this.timingStages = pipeline.stream()
+                .map(evaluator -> RequestTiming.evaluatorStage(evaluator.name()))
+                .toArray(String[]::new);
+        this.evaluatorExecutor = properties.getExecution() == ScoringProperties.Execution.PARALLEL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : null;
+        this.shards = properties.getExecution() == ScoringProperties.Execution.SHARDED
+                ? new CustomerShards(properties.getShards() > 0
+                        ? properties.getShards() : Runtime.getRuntime().availableProcessors(),
+                        properties.getShardQueueCapacity())
+                : null;
+
+        log.info("Fraud signal pipeline: {}", pipeline.stream().map(SignalEvaluator::name).toList());
+        if (shards != null) {
+            log.info("Scoring on {} customer shards", shards.shardCount());
+        }
+    }
+
     /**
      * Scores a transaction by running it through all fraud signal evaluators.
      * Also saves the transaction to history for future analysis.
-     * 
+     *
      * @param request The transaction to evaluate
-     * @return FraudScoreResponse with all signals
+     * @return FraudScoreResponse with one signal per evaluator, in pipeline order, and the version of the rules used
      */
     public FraudScoreResponse scoreTransaction(TransactionRequest request) {
+        long start = System.nanoTime();
         log.debug("Starting fraud detection for transaction");
-        
-        List<FraudSignal> signals = new ArrayList<>();
-        
-        // Evaluate each fraud signal independently
-        signals.add(locationEvaluator.evaluate(request));
-        signals.add(ipAddressEvaluator.evaluate(request));
-        signals.add(transactionEvaluator.evaluate(request));
-        signals.add(cardDetailsEvaluator.evaluate(request));
-        
-        // Save transaction to history for future fraud detection
-        saveTransactionToHistory(request);
-        
+
+        RequestTiming timing = RequestTiming.current();
+        RuleSet rules = ruleSetService.current();
+        List<FraudSignal> signals = shards != null
+                ? evaluateAndSaveOnShard(request, rules, timing)
+                : evaluateAndSave(request, rules, timing);
+
         log.debug("Fraud detection complete. Generated {} signals", signals.size());
-        
-        return new FraudScoreResponse(signals);
+
+        metrics.recordScore(System.nanoTime() - start);
+        return new FraudScoreResponse(signals, rules.version());
     }
-    
+
+    /**
+     * Names of the evaluators in the order they run.
+     */
+    public List<String> pipelineOrder() {
+        return pipeline.stream().map(SignalEvaluator::name).toList();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (evaluatorExecutor != null) {
+            evaluatorExecutor.shutdownNow();
+        }
+        if (shards != null) {
+            shards.close();
+        }
+    }
+
+    /**
+     * Evaluates the transaction under the given rules, then saves it to history for future fraud detection.
+     */
+    private List<FraudSignal> evaluateAndSave(TransactionRequest request, RuleSet rules, RequestTiming timing) {
+        List<FraudSignal> signals = ruleSetService.withRuleSet(rules,
+                () -> evaluatorExecutor != null
+                        ? evaluateInParallel(request, rules, timing)
+                        : evaluateSequentially(request, timing));
+
+        long saveStart = timing != null ? System.nanoTime() : 0;
+        saveTransactionToHistory(request);
+        if (timing != null) {
+            timing.add(RequestTiming.HISTORY_WRITE, System.nanoTime() - saveStart);
+        }
+        return signals;
+    }
+
+    /**
+     * Hands the transaction to its customer's shard and waits for the signals, up to the shard timeout.
+     * When the shard is too busy the stateless evaluators run here and the history-backed ones are degraded. A timed-out
+     * transaction is still saved by its shard later; a rejected one is saved here, outside the shard's ordering.
+     */
+    private List<FraudSignal> evaluateAndSaveOnShard(TransactionRequest request, RuleSet rules, RequestTiming timing) {
+        try {
+            return shards.call(request.getCustomerKey(), () -> evaluateAndSaveInShard(request, rules, timing),
+                    properties.getShardTimeout());
+        } catch (TimeoutException ex) {
+            long timeoutMillis = properties.getShardTimeout().toMillis();
+            log.warn("Customer shard did not score the transaction within {} ms", timeoutMillis);
+            return evaluateWithoutHistory(request, rules, timing, Reason.of(ReasonCode.SIGNAL_TIMED_OUT, timeoutMillis));
+        } catch (RejectedExecutionException ex) {
+            log.warn("Customer shard queue is full");
+            List<FraudSignal> signals = evaluateWithoutHistory(request, rules, timing, Reason.of(ReasonCode.SHARD_BUSY));
+            saveTransactionToHistory(request);
+            return signals;
+        }
+    }
+
+    /**
+     * Runs the evaluators that do not read history and reports the others as degraded with the given reason.
+     */
+    private List<FraudSignal> evaluateWithoutHistory(TransactionRequest request, RuleSet rules, RequestTiming timing,
+                                                     Reason reason) {
+        return ruleSetService.withRuleSet(rules, () -> {
+            List<FraudSignal> signals = new ArrayList<>(pipeline.size());
+            for (int i = 0; i < pipeline.size(); i++) {
+                if (pipeline.get(i).cost() < SignalEvaluator.COST_HISTORY) {
+                    FraudSignal signal = evaluate(i, request, timing);
+                    meters[i].recordOutcome(signal);
+                    signals.add(signal);
+                } else {
+                    signals.add(degradedSignal(i, reason));
+                }
+            }
+            return signals;
+        });
+    }
+
+    /**
+     * evaluateAndSave on a shard thread, with the request's timing attached there like on an evaluator thread.
+     * The evaluators run sequentially: the shard thread is the unit of parallelism, and a hop to another thread
+     * would let the next transaction of the customer start before this one is saved.
+     */
+    private List<FraudSignal> evaluateAndSaveInShard(TransactionRequest request, RuleSet rules, RequestTiming timing) {
+        RequestTiming.attach(timing);
+        try {
+            return evaluateAndSave(request, rules, timing);
+        } finally {
+            RequestTiming.end();
+        }
+    }
+
+    /**
+     * Runs the evaluators one after another, stopping early on a definitive block when short-circuiting is enabled.
+     */
+    private List<FraudSignal> evaluateSequentially(TransactionRequest request, RequestTiming timing) {
+        List<FraudSignal> signals = new ArrayList<>(pipeline.size());
+        SignalEvaluator blockedBy = null;
+
+        for (int i = 0; i < pipeline.size(); i++) {
+            SignalEvaluator evaluator = pipeline.get(i);
+            if (blockedBy != null) {
+                signals.add(skippedSignal(i, blockedBy));
+                continue;
+            }
+
+            FraudSignal signal = evaluate(i, request, timing);
+            meters[i].recordOutcome(signal);
+            signals.add(signal);
+            if (properties.isShortCircuit() && evaluator.isDefinitiveBlock(signal)) {
+                blockedBy = evaluator;
+            }
+        }
+        return signals;
+    }
+
+    /**
+     * Runs the leading stateless evaluators inline (they take microseconds, a thread hop would cost more), then
+     * starts the rest at once and collects their signals in pipeline order.
+     * They share one deadline (start + timeout), which is each evaluator's budget since they all start together;
+     * an evaluator with dependencies waits for them inside its own task, within the same deadline.
+     */
+    private List<FraudSignal> evaluateInParallel(TransactionRequest request, RuleSet rules, RequestTiming timing) {
+        List<FraudSignal> signals = new ArrayList<>(pipeline.size());
+
+        int inline = 0;
+        while (inline < pipeline.size() && pipeline.get(inline).cost() < SignalEvaluator.COST_HISTORY) {
+            SignalEvaluator evaluator = pipeline.get(inline);
+            FraudSignal signal = evaluate(inline, request, timing);
+            meters[inline++].recordOutcome(signal);
+            signals.add(signal);
+            if (properties.isShortCircuit() && evaluator.isDefinitiveBlock(signal)) {
+                for (int skipped = inline; skipped < pipeline.size(); skipped++) {
+                    signals.add(skippedSignal(skipped, evaluator));
+                }
+                return signals;
+            }
+        }
+
+        Map<String, Future<FraudSignal>> started = new HashMap<>();
+        List<Future<FraudSignal>> futures = new ArrayList<>(pipeline.size() - inline);
+        for (int i = inline; i < pipeline.size(); i++) {
+            SignalEvaluator evaluator = pipeline.get(i);
+            int position = i;
+            // Dependencies come earlier in the pipeline, so they are already running (or already done inline)
+            List<Future<FraudSignal>> dependencies = evaluator.dependsOn().stream()
+                    .map(started::get)
+                    .filter(dependency -> dependency != null)
+                    .toList();
+            Future<FraudSignal> future = evaluatorExecutor.submit(() -> {
+                for (Future<FraudSignal> dependency : dependencies) {
+                    dependency.get();
+                }
+                // Rules and timing pinned again on the evaluator's own thread
+                RequestTiming.attach(timing);
+                try {
+                    return ruleSetService.withRuleSet(rules, () -> evaluate(position, request, timing));
+                } finally {
+                    RequestTiming.end();
+                }
+            });
+            started.put(evaluator.name(), future);
+            futures.add(future);
+        }
+
+        long timeoutNanos = properties.getEvaluatorTimeout().toNanos();
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int i = 0; i < futures.size(); i++) {
+            signals.add(awaitSignal(futures.get(i), inline + i, deadline, timeoutNanos));
+        }
+        return signals;
+    }
+
+    private FraudSignal awaitSignal(Future<FraudSignal> future, int position, long deadline, long timeoutNanos) {
+        String signalName = pipeline.get(position).name();
+        try {
+            FraudSignal signal = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            meters[position].recordOutcome(signal);
+            return signal;
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            log.warn("Signal evaluator '{}' timed out after {} ms", signalName, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+            return degradedSignal(position,
+                    Reason.of(ReasonCode.SIGNAL_TIMED_OUT, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+        } catch (ExecutionException ex) {
+            log.error("Signal evaluator '{}' failed", signalName, ex.getCause());
+            return degradedSignal(position, Reason.of(ReasonCode.SIGNAL_FAILED));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return degradedSignal(position, Reason.of(ReasonCode.SIGNAL_INTERRUPTED));
+        }
+    }
+
+    /**
+     * A signal that could not be evaluated does not flag fraud on its own (fail open); the reason tells callers it is missing.
+     */
+    private FraudSignal degradedSignal(int position, Reason reason) {
+        meters[position].recordUnavailable();
+        return FraudSignal.of(pipeline.get(position).name(), false, List.of(reason));
+    }
+
+    private FraudSignal skippedSignal(int position, SignalEvaluator blockedBy) {
+        meters[position].recordUnavailable();
+        return FraudSignal.of(pipeline.get(position).name(), false,
+                List.of(Reason.of(ReasonCode.NOT_EVALUATED_BLOCKED, blockedBy.name())));
+    }
+
+    /**
+     * Runs the evaluator at the given pipeline position and records how long it took (also when it throws).
+     */
+    private FraudSignal evaluate(int position, TransactionRequest request, RequestTiming timing) {
+        long start = System.nanoTime();
+        try {
+            return pipeline.get(position).evaluate(request);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            meters[position].recordEvaluation(elapsed);
+            if (timing != null) {
+                timing.add(timingStages[position], elapsed);
+            }
+        }
+    }
+
+    /**
+     * Orders evaluators so that each runs after its dependencies and, among those that are free to run, the
+     * cheapest goes first (ties broken by name so the order is stable).
+     *
+     * @throws IllegalStateException if names are not unique, a dependency is unknown or dependencies form a cycle
+     */
+    static List<SignalEvaluator> orderPipeline(List<SignalEvaluator> evaluators) {
+        Map<String, SignalEvaluator> byName = new HashMap<>();
+        for (SignalEvaluator evaluator : evaluators) {
+            if (byName.put(evaluator.name(), evaluator) != null) {
+                throw new IllegalStateException("Duplicate signal evaluator name: " + evaluator.name());
+            }
+        }
+
+        Map<String, Integer> unmetDependencies = new HashMap<>();
+        Map<String, List<SignalEvaluator>> dependents = new HashMap<>();
+        for (SignalEvaluator evaluator : evaluators) {
+            for (String dependency : evaluator.dependsOn()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalStateException("Signal evaluator '" + evaluator.name()
+                            + "' depends on unknown evaluator '" + dependency + "'");
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(evaluator);
+            }
+            unmetDependencies.put(evaluator.name(), evaluator.dependsOn().size());
+        }
+
+        PriorityQueue<SignalEvaluator> ready = new PriorityQueue<>(
+                Comparator.comparingInt(SignalEvaluator::cost).thenComparing(SignalEvaluator::name));
+        for (SignalEvaluator evaluator : evaluators) {
+            if (evaluator.dependsOn().isEmpty()) {
+                ready.add(evaluator);
+            }
+        }
+
+        List<SignalEvaluator> ordered = new ArrayList<>(evaluators.size());
+        while (!ready.isEmpty()) {
+            SignalEvaluator next = ready.poll();
+            ordered.add(next);
+            for (SignalEvaluator dependent : dependents.getOrDefault(next.name(), List.of())) {
+                if (unmetDependencies.merge(dependent.name(), -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered.size() != evaluators.size()) {
+            throw new IllegalStateException("Signal evaluator dependencies form a cycle");
+        }
+        return List.copyOf(ordered);
+    }
+
     /**
      * Saves the transaction to history for future analysis.
      */
@@ -67,7 +412,9 @@ public class FraudDetectionService {
                 request.getIpAddress(),
                 request.getTransactionDetails().getMerchantName()
         );
-        
+
+        // The request already computed the key; the record would otherwise normalize the name again
+        record.setCustomerKey(request.getCustomerKey());
         historyService.saveTransaction(record);
         log.debug("Saved transaction to history for customer: {}", record.getCustomerName());
     }
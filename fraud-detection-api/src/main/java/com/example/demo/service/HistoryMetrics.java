@@ -0,0 +1,34 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges over the size of the transaction history: customers, records and the largest single customer.
+ * They are read only when metrics are scraped, from counters the history service already maintains, so saves pay nothing for them.
+ */
+@Component
+@RequiredArgsConstructor
+public class HistoryMetrics implements MeterBinder {
+
+    private final TransactionHistoryService historyService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("fraud.history.customers", historyService, TransactionHistoryService::customerCount)
+                .description("Customers currently held in transaction history")
+                .register(registry);
+        Gauge.builder("fraud.history.records", historyService, TransactionHistoryService::recordCount)
+                .description("Transaction records currently held across all customers")
+                .register(registry);
+        if (historyService.tracksLargestCustomer()) {
+            Gauge.builder("fraud.history.largest.customer.records", historyService,
+                            TransactionHistoryService::largestCustomerRecords)
+                    .description("Records held by the customer with the most (refreshed by each full retention sweep)")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Rebuilds transaction history from the newest snapshot and the write-ahead log when the application starts.
+ * Without this every restart would make every customer look new (new location, zero velocity) until history built up again.
+ * Readiness stays REFUSING_TRAFFIC while loading; Spring Boot switches it to ACCEPTING_TRAFFIC once all runners have finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HistoryRecovery implements ApplicationRunner {
+
+    private final TransactionHistoryService historyService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        TransactionHistoryService.RecoveryResult result = historyService.recover();
+        if (result == null) {
+            return;
+        }
+
+        log.info("Loaded transaction history in {} ms: snapshot {} bytes ({} customers, {} transactions), "
+                        + "write-ahead log tail {} bytes ({} transactions); ready {} ms after JVM start",
+                result.recoveryMillis(), result.snapshotBytes(), result.snapshotCustomers(), result.snapshotRecords(),
+                result.logBytes(), result.logRecords(), result.timeToReadyMillis());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+/**
+ * Thrown when a batch scoring request as a whole cannot be accepted (empty or too large).
+ * Problems with individual transactions are reported per item instead.
+ */
+public class InvalidBatchException extends RuntimeException {
+
+    public InvalidBatchException(String message) {
+        super(message);
+    }
+}
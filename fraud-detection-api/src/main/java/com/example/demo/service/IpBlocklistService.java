@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.domain.ip.IpAddress;
+import com.example.demo.domain.ip.IpBlocklistTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the IP blocklist feed (fraud.ip.feed.file) loaded as a memory-mapped IpBlocklistTable and reloads it when the feed changes.
+ * A new table is compiled (unless another JVM already compiled this version of the feed) and mapped completely before it replaces the current one in a single reference swap,
+ * so a lookup sees either the old list or the new one, never a half-loaded list. If a reload fails, the current table stays in use.
+ * A feed that is missing or cannot be loaded at startup does not stop the application: it starts with an empty list and the next poll loads the feed.
+ */
+@Service
+@Slf4j
+public class IpBlocklistService {
+
+    private final Path feed;
+    private final Path table;
+    private final AtomicReference<IpBlocklistTable> current = new AtomicReference<>(IpBlocklistTable.empty());
+
+    public IpBlocklistService() {
+        this(new IpReputationProperties());
+    }
+
+    @Autowired
+    public IpBlocklistService(IpReputationProperties properties) {
+        IpReputationProperties.Feed feedProperties = properties.getFeed();
+        this.feed = feedProperties.getFile();
+        this.table = feedProperties.getTable() != null || feed == null
+                ? feedProperties.getTable()
+                : feed.resolveSibling(feed.getFileName() + ".idx");
+
+        if (feed != null && !Files.exists(feed)) {
+            log.warn("IP blocklist feed {} does not exist; starting with an empty list until it appears", feed);
+        }
+        reloadIfChanged();
+    }
+
+    /**
+     * Whether the current table holds the address.
+     */
+    public boolean contains(IpAddress address) {
+        return current.get().contains(address);
+    }
+
+    /**
+     * Number of addresses in the current table.
+     */
+    public long size() {
+        return current.get().size();
+    }
+
+    /**
+     * Reloads the table if the feed has changed since it was compiled.
+     */
+    @Scheduled(fixedDelayString = "${fraud.ip.feed.poll-interval-ms:5000}",
+            initialDelayString = "${fraud.ip.feed.poll-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (feed == null) {
+            return;
+        }
+        try {
+            if (Files.exists(feed) && !current.get().isCompiledFrom(feed)) {
+                reload();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("IP blocklist reload failed; keeping the current list of {} addresses", size(), ex);
+        }
+    }
+
+    /**
+     * Maps the compiled table, compiling it first if it is missing or was compiled from an older version of the feed, then swaps it in.
+     */
+    synchronized void reload() throws IOException {
+        long start = System.nanoTime();
+        IpBlocklistTable loaded = null;
+        if (Files.exists(table)) {
+            try {
+                loaded = IpBlocklistTable.open(table);
+            } catch (IllegalArgumentException ex) {
+                log.warn("Recompiling unreadable IP blocklist table {}: {}", table, ex.getMessage());
+            }
+        }
+
+        if (loaded == null || !loaded.isCompiledFrom(feed)) {
+            IpBlocklistTable.CompileResult result = IpBlocklistTable.compile(feed, table);
+            if (result.invalidLines() > 0) {
+                log.warn("IP blocklist feed {} has {} lines that are not IP addresses; skipped", feed, result.invalidLines());
+            }
+            loaded = IpBlocklistTable.open(table);
+        }
+
+        IpBlocklistTable previous = current.getAndSet(loaded);
+        log.info("Loaded IP blocklist of {} addresses from {} in {} ms (previously {})",
+                loaded.size(), table, (System.nanoTime() - start) / 1_000_000, previous.size());
+    }
+}
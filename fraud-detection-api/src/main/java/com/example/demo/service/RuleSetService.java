@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuleProperties;
+import com.example.demo.domain.rules.RuleSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the scoring rules (fraud.rules.file) compiled as an immutable RuleSet and swaps in a new one when the file changes, so thresholds change without a restart.
+ * A file that fails to compile is logged and ignored; the current rules stay in use.
+ * FraudDetectionService pins one RuleSet for the whole scoring of a transaction, so every evaluator sees the same rules and the response can name their version even if the file changes mid-request.
+ */
+@Service
+@Slf4j
+public class RuleSetService {
+
+    private final Path file;
+    private final AtomicReference<RuleSet> current = new AtomicReference<>(RuleSet.defaults());
+    private final ThreadLocal<RuleSet> pinned = new ThreadLocal<>();
+
+    // Modification time and size of the file the current rules were compiled from
+    private FileTime loadedModified;
+    private long loadedBytes = -1;
+
+    public RuleSetService() {
+        this(new RuleProperties());
+    }
+
+    @Autowired
+    public RuleSetService(RuleProperties properties) {
+        this.file = properties.getFile();
+        if (file != null) {
+            try {
+                reload();
+            } catch (IOException | IllegalArgumentException ex) {
+                throw new IllegalStateException("Cannot load fraud rules from " + file, ex);
+            }
+        }
+    }
+
+    /**
+     * The rules pinned on this thread by withRuleSet, otherwise the latest rules.
+     */
+    public RuleSet current() {
+        RuleSet ruleSet = pinned.get();
+        return ruleSet != null ? ruleSet : current.get();
+    }
+
+    /**
+     * Runs the action with current() returning the given rules on this thread.
+     */
+    public <T> T withRuleSet(RuleSet ruleSet, Supplier<T> action) {
+        RuleSet previous = pinned.get();
+        pinned.set(ruleSet);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                pinned.remove();
+            } else {
+                pinned.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Recompiles the rules if the file has changed since they were loaded.
+     */
+    @Scheduled(fixedDelayString = "${fraud.rules.poll-interval-ms:5000}",
+            initialDelayString = "${fraud.rules.poll-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (Files.exists(file) && (!Files.getLastModifiedTime(file).equals(loadedModified) || Files.size(file) != loadedBytes)) {
+                reload();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Fraud rules in {} could not be loaded; keeping version {}", file, current.get().version(), ex);
+        }
+    }
+
+    synchronized void reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        long bytes = Files.size(file);
+        RuleSet compiled;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            compiled = RuleSet.parse(reader);
+        } finally {
+            // A broken file is not retried until it changes again
+            loadedModified = modified;
+            loadedBytes = bytes;
+        }
+
+        RuleSet previous = current.getAndSet(compiled);
+        log.info("Loaded fraud rules version {} from {} (previously {})", compiled.version(), file, previous.version());
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.FraudSignal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the scoring pipeline: end-to-end scoreTransaction latency, latency of each signal evaluator
+ * and how often each signal flags fraud.
+ * Meters are looked up once per signal (see forSignal) and kept by the caller, so recording on the request path is a
+ * timer update and a counter increment, with no registry lookup or tag allocation.
+ * Timers publish histogram buckets, from which Prometheus derives percentiles (histogram_quantile) across instances.
+ */
+@Component
+public class ScoringMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(2);
+
+    private final MeterRegistry registry;
+    private final Timer scoreTimer;
+    private final ConcurrentHashMap<String, SignalMeters> signals = new ConcurrentHashMap<>();
+
+    /**
+     * Meters kept in a private registry, for use without Spring (tests, benchmarks).
+     */
+    public ScoringMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    public ScoringMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.scoreTimer = Timer.builder("fraud.score.duration")
+                .description("End-to-end time to score one transaction, history update included")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry);
+    }
+
+    /**
+     * Records one scoreTransaction call that took the given time.
+     */
+    public void recordScore(long nanos) {
+        scoreTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The meters of one signal, registered on first use.
+     */
+    public SignalMeters forSignal(String signal) {
+        return signals.computeIfAbsent(signal, name -> new SignalMeters(registry, name));
+    }
+
+    /**
+     * Latency timer (fraud.evaluator.duration) and outcome counters (fraud.signal.outcomes) of one signal.
+     * The fraud-flag rate is outcomes{outcome="flagged"} over all outcomes of the signal.
+     */
+    public static final class SignalMeters {
+
+        private final Timer evaluations;
+        private final Counter flagged;
+        private final Counter clear;
+        private final Counter unavailable;
+
+        private SignalMeters(MeterRegistry registry, String signal) {
+            this.evaluations = Timer.builder("fraud.evaluator.duration")
+                    .description("Time taken by one signal evaluator")
+                    .tag("signal", signal)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(registry);
+            this.flagged = outcome(registry, signal, "flagged");
+            this.clear = outcome(registry, signal, "clear");
+            this.unavailable = outcome(registry, signal, "unavailable");
+        }
+
+        private static Counter outcome(MeterRegistry registry, String signal, String outcome) {
+            return Counter.builder("fraud.signal.outcomes")
+                    .description("Signals reported, by outcome: flagged, clear, or unavailable (timed out, failed or skipped)")
+                    .tag("signal", signal)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+
+        /**
+         * Records the time one evaluation took, whether or not its signal made it into the response.
+         */
+        public void recordEvaluation(long nanos) {
+            evaluations.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Records a signal reported with an evaluation result.
+         */
+        public void recordOutcome(FraudSignal signal) {
+            if (signal != null && Boolean.TRUE.equals(signal.getPotentialFraud())) {
+                flagged.increment();
+            } else {
+                clear.increment();
+            }
+        }
+
+        /**
+         * Records a signal that was reported without an evaluation result (degraded or skipped).
+         */
+        public void recordUnavailable() {
+            unavailable.increment();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.demo.service;
+
+import com.example.demo.config.GlobalExceptionHandler.ErrorResponse;
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.model.dto.FraudScoreResponse;
+import com.example.demo.model.dto.SignalViews;
+import com.example.demo.model.dto.TransactionRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Scores newline-delimited JSON (NDJSON): one TransactionRequest per input line, one result per output line, in input order.
+ * Only one line is held in memory at a time, and the next line is read only after the previous result has been written, so a client that stops reading the output also stops the input (blocking I/O gives the backpressure for free).
+ * Lines are capped at fraud.scoring.stream.max-line-length characters: a longer line is skipped without being buffered, so one huge or unterminated line cannot fill the heap.
+ * Valid lines go through FraudDetectionService.scoreTransaction, so results match the single-transaction endpoint; invalid and over-long lines produce an ErrorResponse line instead.
+ */
+@Service
+@Slf4j
+public class StreamingScoringService {
+
+    private final FraudDetectionService fraudDetectionService;
+    private final TransactionRequestValidator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final int maxLineLength;
+
+    // Flushing is decided per batch of lines, not after every value
+    private final ObjectWriter resultWriter;
+    private final ObjectWriter compactResultWriter;
+
+    public StreamingScoringService(FraudDetectionService fraudDetectionService, TransactionRequestValidator validator,
+                                   ObjectMapper objectMapper, ScoringProperties properties) {
+        this.fraudDetectionService = fraudDetectionService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(TransactionRequest.class);
+        this.maxLineLength = properties.getStream().getMaxLineLength();
+        this.resultWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.compactResultWriter = resultWriter.withView(SignalViews.Compact.class);
+    }
+
+    /**
+     * Scores every line of the input and writes the results to the output.
+     * Output is flushed whenever the input has no more data buffered, so results reach the client while it is still sending.
+     *
+     * @param path Request path, reported in error lines
+     * @return number of lines processed (blank lines are skipped)
+     */
+    public long score(InputStream input, OutputStream output, String path) throws IOException {
+        return score(input, output, path, false);
+    }
+
+    /**
+     * Same as score(input, output, path), optionally writing compact results (reason codes without rendered details).
+     * Error lines are always written in full.
+     */
+    public long score(InputStream input, OutputStream output, String path, boolean compact) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxLineLength);
+        long lineNumber = 0;
+        long processed = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // The container owns the response stream
+            generator.setRootValueSeparator(null); // Lines are separated explicitly below
+
+            while (reader.next()) {
+                lineNumber++;
+                String line = reader.line();
+                if (!reader.tooLong() && line.isBlank()) {
+                    continue;
+                }
+
+                Object result = reader.tooLong()
+                        ? error("Line Too Long", List.of("line " + lineNumber + ": Line exceeds the limit of "
+                                + maxLineLength + " characters."), path)
+                        : scoreLine(line, lineNumber, path);
+                ObjectWriter writer = compact && result instanceof FraudScoreResponse ? compactResultWriter : resultWriter;
+                writer.writeValue(generator, result);
+                generator.writeRaw('\n');
+                processed++;
+
+                if (!reader.ready()) {
+                    generator.flush();
+                }
+            }
+        }
+
+        log.debug("Scored {} streamed transactions", processed);
+        return processed;
+    }
+
+    private Object scoreLine(String line, long lineNumber, String path) {
+        TransactionRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            return error("Malformed JSON Request",
+                    List.of("line " + lineNumber + ": Invalid JSON format. Please check your request body."), path);
+        }
+
+        List<String> errors = validator.validate(request);
+        if (!errors.isEmpty()) {
+            return error("Validation Failed",
+                    errors.stream().map(error -> "line " + lineNumber + ": " + error).toList(), path);
+        }
+
+        try {
+            return fraudDetectionService.scoreTransaction(request);
+        } catch (RuntimeException ex) {
+            // One failing transaction must not cut off the rest of the stream
+            log.error("Failed to score streamed transaction on line {}", lineNumber, ex);
+            return new ErrorResponse(LocalDateTime.now(), HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                    "Internal Server Error", List.of("line " + lineNumber + ": "
+                    + (ex.getMessage() != null ? ex.getMessage() : "An unexpected error occurred")), path);
+        }
+    }
+
+    private static ErrorResponse error(String error, List<String> messages, String path) {
+        return new ErrorResponse(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), error, messages, path);
+    }
+
+    /**
+     * Reads lines ending in '\n' (an optional '\r' before it is dropped) through a fixed buffer, keeping at most maxChars of a line.
+     * A longer line is read to its end and discarded, so its size never reaches the heap.
+     */
+    private static final class LineReader {
+
+        private final Reader in;
+        private final int maxChars;
+        private final char[] buffer = new char[8_192];
+        private int position;
+        private int limit;
+
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        LineReader(Reader in, int maxChars) {
+            this.in = in;
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * Reads the next line; false at the end of the input. A last line without '\n' still counts.
+         */
+        boolean next() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean started = false;
+            while (true) {
+                if (position == limit) {
+                    int read = in.read(buffer, 0, buffer.length);
+                    if (read < 0) {
+                        return started;
+                    }
+                    position = 0;
+                    limit = read;
+                }
+                started = true;
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++; // The '\n'
+                    if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                        line.setLength(line.length() - 1);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * The line just read; empty if it was too long.
+         */
+        String line() {
+            return line.toString();
+        }
+
+        boolean tooLong() {
+            return tooLong;
+        }
+
+        /**
+         * Whether more input can be read without blocking.
+         */
+        boolean ready() throws IOException {
+            return position < limit || in.ready();
+        }
+
+        private void append(int start, int end) {
+            if (tooLong) {
+                return;
+            }
+            // One extra character leaves room for a '\r' before the '\n'
+            if (line.length() + (end - start) > maxChars + 1) {
+                tooLong = true;
+                line.setLength(0);
+            } else {
+                line.append(buffer, start, end - start);
+            }
+        }
+    }
+}
@@ -1,67 +1,458 @@
 package com.example.demo.service;
 
+import com.example.demo.config.HistoryProperties;
+import com.example.demo.domain.customer.CustomerIdentity;
+import com.example.demo.model.dto.HistoryStatsResponse;
 import com.example.demo.model.entity.TransactionRecord;
+import com.example.demo.service.history.HeapHistoryStore;
+import com.example.demo.service.history.HistorySnapshot;
+import com.example.demo.service.history.HistoryStore;
+import com.example.demo.service.history.OffHeapTransactionStore;
+import com.example.demo.service.history.RocksDbHistoryStore;
+import com.example.demo.service.history.WriteAheadLog;
+import com.example.demo.service.history.WriteBehindQueue;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Service for managing transaction history.
- * Uses in-memory storage for simplicity (production would use a database).
+ * Records are kept by a HistoryStore chosen with fraud.history.backend: in memory (HeapHistoryStore, the default), off-heap (OffHeapTransactionStore) or on disk (RocksDbHistoryStore).
+ * Customers are keyed by their CustomerIdentity key, so every spelling of a name that normalizes alike shares one history; the name-based methods derive the key themselves.
+ * With the heap backend a scheduled sweep enforces the retention policy a small batch of customers at a time, so eviction never pauses scoring.
+ * With fraud.history.wal.enabled every saved record is first appended to a write-ahead log, which is replayed on startup.
+ * With fraud.history.snapshot.enabled the whole state is periodically written to a snapshot; startup loads the newest one and replays only the log after it.
+ * With fraud.history.write-behind.enabled saves are queued and applied by a background writer; reads for a customer first wait for that customer's queued saves, so a caller always sees its own earlier saves.
+ * The lookups used by the evaluators are recorded as the history-read stage of requests in profiling mode (RequestTiming).
  */
 @Service
 @Slf4j
 public class TransactionHistoryService {
-    
-    // In-memory storage: customerName -> list of transactions
-    private final Map<String, List<TransactionRecord>> transactionHistory = new ConcurrentHashMap<>();
-    
+
+    // Where records are kept
+    private final HistoryStore store;
+
+    // The same store when the heap backend is selected (retention and snapshots apply only to it), otherwise null
+    private final HeapHistoryStore heapStore;
+
+    private final HistoryProperties properties;
+
+    // Set only when the write-ahead log is enabled
+    private final WriteAheadLog writeAheadLog;
+
+    // Set only when snapshots are enabled (heap backend)
+    private final Path snapshotDirectory;
+
+    // Set when the log or snapshots are enabled: saves hold the read side across log append and apply,
+    // a snapshot holds the write side just long enough to capture a log position and the state it matches
+    private final ReadWriteLock persistenceLock;
+
+    // Serializes snapshot writers (scheduled and manual)
+    private final Object snapshotLock = new Object();
+
+    // Set only when write-behind is enabled
+    private final WriteBehindQueue<TransactionRecord> writeBehind;
+    private final long readYourWritesTimeoutNanos;
+
+    private volatile boolean recovered;
+    private volatile RecoveryResult lastRecovery;
+
+    /**
+     * What startup recovery loaded: the snapshot, then the write-ahead log tail after it.
+     */
+    public record RecoveryResult(long snapshotBytes, int snapshotCustomers, long snapshotRecords,
+                                 long logRecords, long logBytes, long recoveryMillis, long timeToReadyMillis) {
+    }
+
+    public TransactionHistoryService() {
+        this(new HistoryProperties());
+    }
+
+    @Autowired
+    public TransactionHistoryService(HistoryProperties properties) {
+        this.properties = properties;
+        this.heapStore = properties.getBackend() == HistoryProperties.Backend.HEAP
+                ? new HeapHistoryStore(properties)
+                : null;
+        this.store = switch (properties.getBackend()) {
+            case HEAP -> heapStore;
+            case OFF_HEAP -> newOffHeapStore(properties.getRetention());
+            case ROCKSDB -> newRocksDbStore(properties);
+        };
+
+        HistoryProperties.Wal wal = properties.getWal();
+        boolean rocksDb = properties.getBackend() == HistoryProperties.Backend.ROCKSDB;
+        if (wal.isEnabled() && rocksDb) {
+            log.warn("The RocksDB history backend keeps its own write-ahead log; ignoring fraud.history.wal");
+        }
+        this.writeAheadLog = wal.isEnabled() && !rocksDb
+                ? new WriteAheadLog(Path.of(wal.getDirectory()), (int) wal.getSegmentSize().toBytes(),
+                        wal.getFsync(), wal.getFsyncInterval())
+                : null;
+
+        HistoryProperties.Snapshot snapshot = properties.getSnapshot();
+        if (snapshot.isEnabled() && heapStore == null) {
+            log.warn("Transaction history snapshots are only supported by the heap backend; ignoring fraud.history.snapshot");
+        }
+        this.snapshotDirectory = snapshot.isEnabled() && heapStore != null ? Path.of(snapshot.getDirectory()) : null;
+        this.persistenceLock = writeAheadLog != null || snapshotDirectory != null ? new ReentrantReadWriteLock() : null;
+        this.recovered = persistenceLock == null;
+
+        HistoryProperties.WriteBehind writeBehindProperties = properties.getWriteBehind();
+        this.writeBehind = writeBehindProperties.isEnabled()
+                ? new WriteBehindQueue<>("history-writer", writeBehindProperties.getCapacity(),
+                        writeBehindProperties.getBatchSize(), writeBehindProperties.getOverflow(),
+                        TransactionRecord::getCustomerKey, this::persistBatch)
+                : null;
+        this.readYourWritesTimeoutNanos = writeBehindProperties.getReadYourWritesTimeout().toNanos();
+
+        log.info("Transaction history backend: {}, write-ahead log: {}, snapshots: {}", properties.getBackend(),
+                writeAheadLog != null ? wal.getDirectory() + " (fsync " + wal.getFsync() + ")" : "disabled",
+                snapshotDirectory != null ? snapshotDirectory : "disabled");
+    }
+
     /**
      * Save a transaction to history.
+     * With write-behind the record is only queued here; it becomes visible to this customer's next read either way.
      */
     public void saveTransaction(TransactionRecord record) {
-        transactionHistory
-                .computeIfAbsent(record.getCustomerName(), k -> new ArrayList<>())
-                .add(record);
-        
-        log.debug("Saved transaction for customer: {}", record.getCustomerName());
+        if (writeBehind != null) {
+            if (!writeBehind.offer(record)) {
+                log.debug("Write-behind queue full, dropped transaction for customer: {}", record.getCustomerName());
+            }
+            return;
+        }
+        persist(record);
+    }
+
+    /**
+     * Logs (when enabled) and applies one record. Runs on the caller's thread, or on the write-behind writer.
+     */
+    private void persist(TransactionRecord record) {
+        if (persistenceLock == null) {
+            apply(record);
+            return;
+        }
+
+        Lock lock = persistenceLock.readLock();
+        lock.lock();
+        try {
+            if (writeAheadLog != null) {
+                writeAheadLog.append(record);
+            }
+            apply(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the newest snapshot and replays the write-ahead log written after it. Called once on startup, before
+     * any transaction is scored; saves arriving meanwhile wait until it is done.
+     *
+     * @return what was loaded, or null when neither the log nor snapshots are enabled
+     */
+    public RecoveryResult recover() throws IOException {
+        if (persistenceLock == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Lock lock = persistenceLock.writeLock();
+        lock.lock();
+        try {
+            HistorySnapshot.LoadResult snapshot = null;
+            if (snapshotDirectory != null) {
+                Optional<Path> newest = HistorySnapshot.newest(snapshotDirectory);
+                if (newest.isPresent()) {
+                    snapshot = HistorySnapshot.load(newest.get(), heapStore.snapshotLoader());
+                }
+            }
+
+            long fromPosition = snapshot != null ? snapshot.header().walPosition() : 0;
+            WriteAheadLog.ReplayResult tail = writeAheadLog != null
+                    ? writeAheadLog.replay(fromPosition, this::apply)
+                    : new WriteAheadLog.ReplayResult(0, 0, 0);
+
+            recovered = true;
+            lastRecovery = new RecoveryResult(
+                    snapshot != null ? snapshot.bytes() : 0,
+                    snapshot != null ? snapshot.customers() : 0,
+                    snapshot != null ? snapshot.records() : 0,
+                    tail.records(),
+                    tail.bytes(),
+                    (System.nanoTime() - start) / 1_000_000,
+                    ManagementFactory.getRuntimeMXBean().getUptime()
+            );
+            return lastRecovery;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot on the configured interval, once startup recovery has finished.
+     */
+    @Scheduled(fixedDelayString = "${fraud.history.snapshot.interval-ms:300000}",
+            initialDelayString = "${fraud.history.snapshot.interval-ms:300000}")
+    public void scheduledSnapshot() {
+        if (snapshotDirectory == null || !recovered) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Transaction history snapshot failed", ex);
+        }
+    }
+
+    /**
+     * Writes a point-in-time snapshot of the whole history, then deletes older snapshots and the log segments it covers.
+     * Saves are blocked only while the log position and per-customer record views are captured; encoding and writing happen outside the lock.
+     *
+     * @return size of the snapshot in bytes
+     */
+    public long snapshot() throws IOException {
+        if (snapshotDirectory == null) {
+            throw new IllegalStateException("Transaction history snapshots are not enabled");
+        }
+
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            long walPosition;
+            HeapHistoryStore.CapturedState captured;
+
+            Lock lock = persistenceLock.writeLock();
+            lock.lock();
+            try {
+                walPosition = writeAheadLog != null ? writeAheadLog.writtenPosition() : 0;
+                captured = heapStore.capture();
+            } finally {
+                lock.unlock();
+            }
+            long captureMillis = (System.nanoTime() - start) / 1_000_000;
+
+            HistoryProperties.Velocity velocity = properties.getVelocity();
+            long now = System.currentTimeMillis();
+            HistorySnapshot.Header header = new HistorySnapshot.Header(
+                    now, walPosition, velocity.buckets(), velocity.getResolution().toMillis());
+            long bytes = HistorySnapshot.write(snapshotDirectory, header, captured.locationIds(),
+                    heapStore.customerStates(captured));
+            HistorySnapshot.deleteAllButNewest(snapshotDirectory, 1);
+            if (writeAheadLog != null) {
+                writeAheadLog.deleteSegmentsBefore(walPosition);
+            }
+
+            log.info("Wrote transaction history snapshot: {} customers, {} bytes in {} ms (saves paused {} ms)",
+                    captured.customers().size(), bytes, (System.nanoTime() - start) / 1_000_000, captureMillis);
+            return bytes;
+        }
     }
-    
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.close(); // Applies (and logs) everything still queued
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+        store.close();
+    }
+
+    private void persistBatch(List<TransactionRecord> batch) {
+        for (TransactionRecord record : batch) {
+            try {
+                persist(record);
+            } catch (RuntimeException ex) {
+                log.error("Failed to apply queued transaction for customer: {}", record.getCustomerName(), ex);
+            }
+        }
+    }
+
+    /**
+     * With write-behind, waits until the customer's queued saves have been applied (bounded by the read-your-writes timeout).
+     */
+    private void awaitPendingWrites(long customerKey) {
+        if (writeBehind != null) {
+            writeBehind.awaitApplied(customerKey, readYourWritesTimeoutNanos);
+        }
+    }
+
+    /**
+     * Adds a record to the store (without logging it).
+     */
+    private void apply(TransactionRecord record) {
+        store.saveTransaction(record);
+    }
+
     /**
      * Get all transactions for a customer.
+     * Returns a read-only snapshot that later saves do not affect; it is not a copy.
      */
     public List<TransactionRecord> getCustomerHistory(String customerName) {
-        return new ArrayList<>(transactionHistory.getOrDefault(customerName, new ArrayList<>()));
+        return getCustomerHistory(CustomerIdentity.keyOf(customerName));
     }
-    
+
+    public List<TransactionRecord> getCustomerHistory(long customerKey) {
+        awaitPendingWrites(customerKey);
+        return store.getCustomerHistory(customerKey);
+    }
+
     /**
      * Get recent transactions within a time window.
      */
     public List<TransactionRecord> getRecentTransactions(String customerName, LocalDateTime since) {
-        return getCustomerHistory(customerName).stream()
-                .filter(record -> record.getTimestamp().isAfter(since))
-                .collect(Collectors.toList());
+        return getRecentTransactions(CustomerIdentity.keyOf(customerName), since);
     }
-    
+
+    public List<TransactionRecord> getRecentTransactions(long customerKey, LocalDateTime since) {
+        awaitPendingWrites(customerKey);
+        return store.getRecentTransactions(customerKey, since);
+    }
+
     /**
      * Check if customer has purchased from a specific location before.
+     * Answered from the customer's visited-location index, so the cost does not depend on history length.
      */
     public boolean hasVisitedLocation(String customerName, String city, String state) {
-        return getCustomerHistory(customerName).stream()
-                .anyMatch(record -> record.getCity().equalsIgnoreCase(city) 
-                        && record.getState().equalsIgnoreCase(state));
+        return hasVisitedLocation(CustomerIdentity.keyOf(customerName), city, state);
     }
-    
+
+    public boolean hasVisitedLocation(long customerKey, String city, String state) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return lookUpVisitedLocation(customerKey, city, state);
+        }
+        long start = System.nanoTime();
+        boolean visited = lookUpVisitedLocation(customerKey, city, state);
+        timing.add(RequestTiming.HISTORY_READ, System.nanoTime() - start);
+        return visited;
+    }
+
+    private boolean lookUpVisitedLocation(long customerKey, String city, String state) {
+        awaitPendingWrites(customerKey);
+        return store.hasVisitedLocation(customerKey, city, state);
+    }
+
     /**
      * Count transactions in a time window (for velocity check).
+     * Windows that fit in the customer's velocity ring are answered from the bucket counters in constant time
+     * (accurate to one bucket); longer windows fall back to scanning the history.
      */
     public long countRecentTransactions(String customerName, LocalDateTime since) {
-        return getRecentTransactions(customerName, since).size();
+        return countRecentTransactions(CustomerIdentity.keyOf(customerName), since);
+    }
+
+    public long countRecentTransactions(long customerKey, LocalDateTime since) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return countRecent(customerKey, since);
+        }
+        long start = System.nanoTime();
+        long count = countRecent(customerKey, since);
+        timing.add(RequestTiming.HISTORY_READ, System.nanoTime() - start);
+        return count;
+    }
+
+    private long countRecent(long customerKey, LocalDateTime since) {
+        awaitPendingWrites(customerKey);
+        return store.countRecentTransactions(customerKey, since);
+    }
+
+    /**
+     * Customers currently held in history.
+     */
+    public long customerCount() {
+        return store.customerCount();
+    }
+
+    /**
+     * Transaction records currently held across all customers.
+     */
+    public long recordCount() {
+        return store.recordCount();
+    }
+
+    /**
+     * Records held by the customer with the most. With the heap backend this is refreshed by every full retention
+     * sweep (and raised as saves happen), so after trims it can lag by up to one sweep cycle.
+     */
+    public int largestCustomerRecords() {
+        return store.largestCustomerRecords();
+    }
+
+    /**
+     * Whether the backend keeps track of largestCustomerRecords (the RocksDB backend does not).
+     */
+    public boolean tracksLargestCustomer() {
+        return store.tracksLargestCustomer();
+    }
+
+    /**
+     * Current size of the history and how much the retention policy has dropped so far.
+     */
+    public HistoryStatsResponse getStats() {
+        RecoveryResult recovery = lastRecovery;
+        long loadedBytes = recovery != null ? recovery.snapshotBytes() + recovery.logBytes() : 0;
+        long recoveryMillis = recovery != null ? recovery.recoveryMillis() : 0;
+        long timeToReadyMillis = recovery != null ? recovery.timeToReadyMillis() : 0;
+        long queueDepth = writeBehind != null ? writeBehind.depth() : 0;
+        long droppedWrites = writeBehind != null ? writeBehind.dropped() : 0;
+        long blockedWrites = writeBehind != null ? writeBehind.blocked() : 0;
+        long staleReads = writeBehind != null ? writeBehind.staleReads() : 0;
+
+        return new HistoryStatsResponse(
+                store.customerCount(),
+                store.recordCount(),
+                store.expiredRecords(),
+                heapStore != null ? heapStore.overflowRecords() : 0,
+                store.evictedCustomers(),
+                heapStore != null ? heapStore.velocityScans() : 0,
+                loadedBytes,
+                recoveryMillis,
+                timeToReadyMillis,
+                queueDepth,
+                droppedWrites,
+                blockedWrites,
+                staleReads
+        );
+    }
+
+    /**
+     * Runs one incremental retention pass of the backend (see HeapHistoryStore.sweep and OffHeapTransactionStore.sweep).
+     */
+    @Scheduled(fixedDelayString = "${fraud.history.retention.sweep-interval-ms:1000}")
+    public void sweep() {
+        store.sweep();
+    }
+
+    private static RocksDbHistoryStore newRocksDbStore(HistoryProperties properties) {
+        log.info("The RocksDB history backend expires records by age; fraud.history.retention.max-records-per-customer "
+                + "and max-customers are not enforced");
+        HistoryProperties.Velocity velocity = properties.getVelocity();
+        return new RocksDbHistoryStore(Path.of(properties.getRocksdb().getDirectory()), properties.getRocksdb().isSyncWrites(),
+                properties.getRetention().getMaxAge().toMillis(), properties.getRetention().getSweepBatchSize(),
+                velocity.buckets(), velocity.getResolution().toMillis());
+    }
+
+    private static OffHeapTransactionStore newOffHeapStore(HistoryProperties.Retention retention) {
+        log.info("The off-heap history backend drops whole pages by age and idle customers above the cap; "
+                + "fraud.history.retention.max-records-per-customer is not enforced");
+        return new OffHeapTransactionStore(retention.getMaxAge().toMillis(), retention.getMaxCustomers(),
+                retention.getSweepBatchSize(), retention.getEvictionSampleSize());
     }
 }
@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import com.example.demo.model.dto.TransactionRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates transactions that are not bound through @Valid (batch items, streamed lines).
+ * Messages use the same "field: message" format as the single-transaction endpoint's validation errors.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionRequestValidator {
+
+    private final Validator validator;
+
+    /**
+     * @return the validation errors, sorted so output is stable, or an empty list when the transaction is valid
+     */
+    public List<String> validate(TransactionRequest request) {
+        if (request == null) {
+            return List.of("Transaction is required");
+        }
+
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        List<String> errors = new ArrayList<>(violations.size());
+        for (ConstraintViolation<TransactionRequest> violation : violations) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        errors.sort(null);
+        return errors;
+    }
+}
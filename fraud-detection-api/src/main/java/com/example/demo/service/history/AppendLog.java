@@ -0,0 +1,282 @@
+package com.example.demo.service.history;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent append-only log built from a linked list of fixed-size chunks.
+ * Appenders reserve an index with one atomic increment and write their slot without locking; the published size only advances over slots that have been written, so readers see a gap-free prefix.
+ * Snapshots capture (first chunk, start, end) and read the chunks in place - nothing is copied.
+ * A directory of the chunks in order gives snapshots O(1) random access; it is only updated when a chunk is added (every CHUNK_SIZE appends) or the front is trimmed.
+ * The front of the log can be dropped by a single trimming thread; dropped chunks are released to the GC once no snapshot refers to them.
+ */
+public final class AppendLog<T> {
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final class Chunk {
+        final long base;
+        final AtomicReferenceArray<Object> items = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicReference<Chunk> next = new AtomicReference<>();
+
+        Chunk(long base) {
+            this.base = base;
+        }
+    }
+
+    /**
+     * Retained chunks in order, from the head. Slots below count are never changed, so a later directory may share the
+     * array and fill slots past this one's count.
+     */
+    private static final class Directory {
+        final Chunk[] chunks;
+        final int count;
+
+        Directory(Chunk[] chunks, int count) {
+            this.chunks = chunks;
+            this.count = count;
+        }
+
+        /**
+         * The chunk holding the index, or null if it is outside the directory.
+         */
+        Chunk chunkFor(long index) {
+            long slot = (index - chunks[0].base) >> CHUNK_SHIFT;
+            return slot >= 0 && slot < count ? chunks[(int) slot] : null;
+        }
+
+        Chunk last() {
+            return chunks[count - 1];
+        }
+    }
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    // Oldest retained chunk and first retained index; only moved forward by trimFront
+    private volatile Chunk head;
+    private volatile long start;
+
+    // Newest chunk seen by an appender, used as the starting point when locating a slot
+    private volatile Chunk tail;
+
+    // Replaced under the log's lock; a chunk can be linked shortly before it is added here
+    private volatile Directory directory;
+
+    public AppendLog() {
+        Chunk first = new Chunk(0);
+        this.head = first;
+        this.tail = first;
+        this.directory = new Directory(new Chunk[] {first}, 1);
+    }
+
+    /**
+     * Appends an item and returns its index. Safe to call from any number of threads.
+     */
+    public long append(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Null items cannot be appended");
+        }
+
+        long index = reserved.getAndIncrement();
+        chunkFor(index).items.set((int) (index & CHUNK_MASK), item);
+        publish();
+        return index;
+    }
+
+    /**
+     * Number of items currently visible to readers.
+     */
+    public int size() {
+        return (int) Math.max(0, published.get() - start);
+    }
+
+    /**
+     * Captures a consistent, immutable view of the retained items in append order.
+     */
+    public Snapshot<T> snapshot() {
+        // Read the directory before start and head: trimFront replaces it after them, so it never starts past head
+        Directory chunks = directory;
+        // Read start before head and head before published: start <= published at all times, so from <= to
+        long from = start;
+        Chunk first = head;
+        if (first.base > from) {
+            from = first.base;
+        }
+        long to = published.get();
+        return new Snapshot<>(chunks, first, from, Math.max(from, to));
+    }
+
+    /**
+     * Drops every item before the given index. Must only be called by one thread at a time.
+     */
+    public void trimFront(long newStart) {
+        long target = Math.min(newStart, published.get());
+        if (target <= start) {
+            return;
+        }
+
+        start = target;
+        Chunk first = head;
+        while (first.base + CHUNK_SIZE <= target) {
+            Chunk next = first.next.get();
+            if (next == null) {
+                break;
+            }
+            first = next;
+        }
+        if (first != head) {
+            head = first;
+            updateDirectory(first);
+        }
+    }
+
+    /**
+     * Index of the first retained item.
+     */
+    public long startIndex() {
+        return start;
+    }
+
+    /**
+     * Advances the published size over every consecutively written slot.
+     * Every appender runs this after writing, so whichever writer fills the last gap publishes everything behind it.
+     */
+    private void publish() {
+        while (true) {
+            long visible = published.get();
+            if (visible >= reserved.get()) {
+                return;
+            }
+            if (chunkFor(visible).items.get((int) (visible & CHUNK_MASK)) == null) {
+                return;
+            }
+            published.compareAndSet(visible, visible + 1);
+        }
+    }
+
+    private Chunk chunkFor(long index) {
+        Chunk chunk = tail;
+        if (chunk.base > index) {
+            chunk = head;
+        }
+
+        while (chunk.base + CHUNK_SIZE <= index) {
+            Chunk next = chunk.next.get();
+            if (next == null) {
+                Chunk created = new Chunk(chunk.base + CHUNK_SIZE);
+                if (chunk.next.compareAndSet(null, created)) {
+                    next = created;
+                    updateDirectory(head);
+                } else {
+                    next = chunk.next.get();
+                }
+            }
+            chunk = next;
+        }
+
+        if (chunk.base > tail.base) {
+            tail = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Adds every chunk linked after the directory's last one and drops those before first.
+     */
+    private synchronized void updateDirectory(Chunk first) {
+        Directory current = directory;
+        Chunk[] chunks = current.chunks;
+        int count = current.count;
+        for (Chunk next = chunks[count - 1].next.get(); next != null; next = next.next.get()) {
+            if (count == chunks.length) {
+                chunks = Arrays.copyOf(chunks, count * 2);
+            }
+            chunks[count++] = next;
+        }
+
+        int dropped = (int) ((first.base - chunks[0].base) >> CHUNK_SHIFT);
+        if (dropped > 0) {
+            // A fresh array, so dropped chunks are not kept alive by it
+            count -= dropped;
+            chunks = Arrays.copyOfRange(chunks, dropped, dropped + Math.max(count * 2, 4));
+        }
+        if (count != current.count || chunks != current.chunks) {
+            directory = new Directory(chunks, count);
+        }
+    }
+
+    /**
+     * Read-only view over a range of the log. Iteration walks the chunks directly; get(i) finds its chunk in the
+     * directory captured with the snapshot.
+     */
+    public static final class Snapshot<T> extends AbstractList<T> {
+
+        private final Directory directory;
+        private final Chunk first;
+        private final long from;
+        private final long to;
+
+        private Snapshot(Directory directory, Chunk first, long from, long to) {
+            this.directory = directory;
+            this.first = first;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return (int) (to - from);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int position) {
+            if (position < 0 || position >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size());
+            }
+            long index = from + position;
+            Chunk chunk = directory.chunkFor(index);
+            if (chunk == null) {
+                // Linked but not yet in the directory, so close behind its last chunk
+                chunk = index < directory.chunks[0].base ? first : directory.last();
+                while (chunk.base + CHUNK_SIZE <= index) {
+                    chunk = chunk.next.get();
+                }
+            }
+            return (T) chunk.items.get((int) (index & CHUNK_MASK));
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+                private Chunk chunk = first;
+                private long index = from;
+
+                @Override
+                public boolean hasNext() {
+                    return index < to;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (index >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    while (chunk.base + CHUNK_SIZE <= index) {
+                        chunk = chunk.next.get();
+                    }
+                    return (T) chunk.items.get((int) (index++ & CHUNK_MASK));
+                }
+            };
+        }
+    }
+}
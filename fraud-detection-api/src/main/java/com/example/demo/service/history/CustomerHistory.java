@@ -0,0 +1,197 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Everything the history service keeps for a single customer.
+ * Holds the raw transaction records together with the derived structures (velocity counter, visited-location index) that are updated as each record is saved, so fraud checks can read them without scanning the records.
+ * Records live in an AppendLog: concurrent saves append without blocking each other and readers never lock.
+ * Retention maintenance (trimming, eviction) takes this customer's lock exclusively so derived structures are rebuilt from a stable set of records.
+ * The customer's name is held here once; saved records are pointed at this copy instead of each keeping their own.
+ */
+public class CustomerHistory {
+
+    private final String customerName;
+    private final AppendLog<TransactionRecord> records = new AppendLog<>();
+    private final SlidingWindowCounter velocity;
+    private volatile IntHashSet visitedLocations = new IntHashSet();
+
+    // Saves hold it shared, maintenance holds it exclusively; reads never take it
+    private final StampedLock maintenanceLock = new StampedLock();
+
+    private volatile long lastActivityMillis;
+    private volatile boolean evicted;
+    private final AtomicBoolean queuedForTrim = new AtomicBoolean();
+
+    public CustomerHistory(String customerName, SlidingWindowCounter velocity) {
+        this.customerName = customerName;
+        this.velocity = velocity;
+        this.lastActivityMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Rebuilds a history loaded from a snapshot, taking the derived structures as they were saved instead of recomputing them.
+     */
+    public static CustomerHistory restore(String customerName, List<TransactionRecord> records,
+                                          SlidingWindowCounter velocity, int[] visitedLocationIds) {
+        CustomerHistory history = new CustomerHistory(customerName, velocity);
+        for (TransactionRecord record : records) {
+            record.setCustomerName(customerName); // Key is recomputed only if someone asks for it
+            history.records.append(record);
+        }
+        for (int locationId : visitedLocationIds) {
+            history.visitedLocations.add(locationId);
+        }
+        if (!records.isEmpty()) {
+            history.lastActivityMillis = HistoryTime.toEpochMillis(records.get(records.size() - 1).getTimestamp());
+        }
+        return history;
+    }
+
+    /**
+     * Appends a record and updates the derived structures.
+     *
+     * @param locationId The record's merchant location, encoded by the LocationDictionary
+     * @return the number of records held after the add, or -1 if this history has already been evicted and the caller must retry on a fresh one
+     */
+    public int add(TransactionRecord record, int locationId) {
+        long stamp = maintenanceLock.readLock();
+        try {
+            if (evicted) {
+                return -1;
+            }
+
+            shareName(record);
+            records.append(record);
+            velocity.record(HistoryTime.toEpochMillis(record.getTimestamp()));
+            visitedLocations.add(locationId);
+            lastActivityMillis = System.currentTimeMillis();
+            return records.size();
+        } finally {
+            maintenanceLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Points the record at this history's copy of the name (which may be another spelling of the same customer).
+     */
+    private void shareName(TransactionRecord record) {
+        if (record.getCustomerName() != customerName) {
+            long customerKey = record.getCustomerKey();
+            record.setCustomerName(customerName);
+            record.setCustomerKey(customerKey);
+        }
+    }
+
+    /**
+     * The name the customer was first saved under.
+     */
+    public String customerName() {
+        return customerName;
+    }
+
+    /**
+     * Returns a consistent, read-only view of the records saved so far, without copying them.
+     */
+    public List<TransactionRecord> records() {
+        return records.snapshot();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public SlidingWindowCounter velocity() {
+        return velocity;
+    }
+
+    public boolean hasVisited(int locationId) {
+        return visitedLocations.contains(locationId);
+    }
+
+    /**
+     * Time of the last saved transaction, used to pick idle customers for eviction.
+     */
+    public long lastActivityMillis() {
+        return lastActivityMillis;
+    }
+
+    /**
+     * Claims the right to queue this history for trimming, so a customer over the cap is queued once, not on every save.
+     */
+    public boolean markQueuedForTrim() {
+        return queuedForTrim.compareAndSet(false, true);
+    }
+
+    /**
+     * Drops records older than the cutoff, then keeps only the newest maxRecords records, and rebuilds the
+     * visited-location index from what is left. Records are appended in time order, so only a prefix is removed.
+     *
+     * @return number of records removed because of age (high 32 bits) and because of the cap (low 32 bits)
+     */
+    public long trim(long cutoffMillis, int maxRecords, LocationDictionary dictionary) {
+        long stamp = maintenanceLock.writeLock();
+        try {
+            queuedForTrim.set(false);
+            List<TransactionRecord> current = records.snapshot();
+            int expired = 0;
+            for (TransactionRecord record : current) {
+                if (HistoryTime.toEpochMillis(record.getTimestamp()) >= cutoffMillis) {
+                    break;
+                }
+                expired++;
+            }
+            int overflow = Math.max(0, current.size() - expired - maxRecords);
+            if (expired + overflow == 0) {
+                return 0;
+            }
+
+            records.trimFront(records.startIndex() + expired + overflow);
+
+            IntHashSet rebuilt = new IntHashSet();
+            for (TransactionRecord record : records.snapshot()) {
+                rebuilt.add(dictionary.intern(record.getCity(), record.getState()));
+            }
+            visitedLocations = rebuilt;
+
+            return ((long) expired << 32) | overflow;
+        } finally {
+            maintenanceLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks this history as evicted so that no further records are added to it.
+     *
+     * @return number of records dropped with it
+     */
+    public int evict() {
+        long stamp = maintenanceLock.writeLock();
+        try {
+            evicted = true;
+            return records.size();
+        } finally {
+            maintenanceLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks this history as evicted only if no records are left (a concurrent save may have just added one).
+     */
+    public boolean evictIfEmpty() {
+        long stamp = maintenanceLock.writeLock();
+        try {
+            if (records.size() > 0) {
+                return false;
+            }
+            evicted = true;
+            return true;
+        } finally {
+            maintenanceLock.unlockWrite(stamp);
+        }
+    }
+}
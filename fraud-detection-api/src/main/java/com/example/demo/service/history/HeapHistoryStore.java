@@ -0,0 +1,401 @@
+package com.example.demo.service.history;
+
+import com.example.demo.config.HistoryProperties;
+import com.example.demo.domain.customer.CustomerIdentity;
+import com.example.demo.model.entity.TransactionRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The default HistoryStore (fraud.history.backend=heap): per-customer histories of TransactionRecord objects in a
+ * LongKeyedMap, each with a visited-location index and a velocity ring, so the evaluators' lookups do not depend on history length.
+ * It is the only backend with a per-customer record cap and snapshots; TransactionHistoryService drives its sweep and snapshots.
+ */
+@Slf4j
+public class HeapHistoryStore implements HistoryStore {
+
+    // Customer key -> transactions and derived counters
+    private final LongKeyedMap<CustomerHistory> transactionHistory = new LongKeyedMap<>();
+
+    // Shared (city, state) -> int encoding used by every customer's visited-location index
+    private final LocationDictionary locations = new LocationDictionary();
+
+    private final HistoryProperties properties;
+
+    // Keys of customers that went over the per-customer cap, trimmed first on the next sweep
+    private final Queue<Long> overCapacity = new ConcurrentLinkedQueue<>();
+
+    // Only touched by the (single) sweeping thread
+    private Iterator<LongKeyedMap.Entry<CustomerHistory>> sweepCursor;
+    private int sweepLargestCustomer;
+
+    // Raised by saves as they happen, reset to the largest size seen by the sweep each time it wraps around the map
+    private volatile int largestCustomerRecords;
+
+    private final AtomicLong totalRecords = new AtomicLong();
+    private final AtomicLong expiredRecords = new AtomicLong();
+    private final AtomicLong overflowRecords = new AtomicLong();
+    private final AtomicLong evictedCustomers = new AtomicLong();
+    private final AtomicLong velocityScans = new AtomicLong();
+
+    /**
+     * The state a snapshot is written from: location ids and each customer's (immutable) record view.
+     */
+    public record CapturedState(Map<String, Integer> locationIds,
+                                List<Map.Entry<String, List<TransactionRecord>>> customers) {
+    }
+
+    public HeapHistoryStore(HistoryProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void saveTransaction(TransactionRecord record) {
+        int locationId = locations.intern(record.getCity(), record.getState());
+        long customerKey = record.getCustomerKey();
+        CustomerHistory history;
+        int size;
+        do {
+            // A history evicted between lookup and add rejects the record; retry on a fresh one
+            history = transactionHistory.computeIfAbsent(customerKey, k -> newCustomerHistory(record.getCustomerName()));
+            size = history.add(record, locationId);
+        } while (size < 0);
+
+        totalRecords.incrementAndGet();
+        if (size > largestCustomerRecords) {
+            largestCustomerRecords = size; // Racy, but only ever off by a concurrent save
+        }
+        if (size > properties.getRetention().getMaxRecordsPerCustomer() && history.markQueuedForTrim()) {
+            overCapacity.offer(customerKey);
+        }
+
+        log.debug("Saved transaction for customer: {}", record.getCustomerName());
+    }
+
+    /**
+     * Returns a read-only snapshot that later saves do not affect; it is not a copy.
+     */
+    @Override
+    public List<TransactionRecord> getCustomerHistory(long customerKey) {
+        CustomerHistory history = transactionHistory.get(customerKey);
+        return history != null ? history.records() : List.of();
+    }
+
+    @Override
+    public List<TransactionRecord> getRecentTransactions(long customerKey, LocalDateTime since) {
+        return getCustomerHistory(customerKey).stream()
+                .filter(record -> record.getTimestamp().isAfter(since))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Answered from the customer's visited-location index.
+     */
+    @Override
+    public boolean hasVisitedLocation(long customerKey, String city, String state) {
+        CustomerHistory history = transactionHistory.get(customerKey);
+        if (history == null) {
+            return false;
+        }
+
+        int locationId = locations.idOf(city, state);
+        return locationId != LocationDictionary.UNKNOWN && history.hasVisited(locationId);
+    }
+
+    /**
+     * Windows that fit in the customer's velocity ring are answered from its bucket counters, plus the records in the
+     * bucket the window starts in, found by binary search (records are appended in time order). A record saved out of
+     * time order into that one bucket can be missed; everything else is exact. Longer windows scan the history.
+     */
+    @Override
+    public long countRecentTransactions(long customerKey, LocalDateTime since) {
+        CustomerHistory history = transactionHistory.get(customerKey);
+        if (history == null) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        long sinceMillis = HistoryTime.toEpochMillis(since);
+        SlidingWindowCounter velocity = history.velocity();
+        if (!velocity.covers(sinceMillis, now)) {
+            velocityScans.incrementAndGet();
+            return getRecentTransactions(customerKey, since).size();
+        }
+
+        return velocity.countAfterBucketOf(sinceMillis, now)
+                + countBefore(history.records(), since, velocity.bucketEnd(sinceMillis));
+    }
+
+    /**
+     * Counts the records after since and before endMillis, starting from a binary search for the first one after since.
+     */
+    private static int countBefore(List<TransactionRecord> records, LocalDateTime since, long endMillis) {
+        int low = 0;
+        int high = records.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (records.get(middle).getTimestamp().isAfter(since)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        int count = 0;
+        for (int i = low; i < records.size() && HistoryTime.toEpochMillis(records.get(i).getTimestamp()) < endMillis; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public long customerCount() {
+        return transactionHistory.size();
+    }
+
+    @Override
+    public long recordCount() {
+        return totalRecords.get();
+    }
+
+    /**
+     * Refreshed by every full retention sweep (and raised as saves happen), so after trims it can lag by up to one sweep cycle.
+     */
+    @Override
+    public int largestCustomerRecords() {
+        return largestCustomerRecords;
+    }
+
+    @Override
+    public long expiredRecords() {
+        return expiredRecords.get();
+    }
+
+    public long overflowRecords() {
+        return overflowRecords.get();
+    }
+
+    @Override
+    public long evictedCustomers() {
+        return evictedCustomers.get();
+    }
+
+    /**
+     * Velocity checks whose window was longer than the ring (fraud.history.velocity.window) and scanned the history.
+     */
+    public long velocityScans() {
+        return velocityScans.get();
+    }
+
+    /**
+     * Runs one incremental retention pass: trims customers that went over the per-customer cap, then expires and
+     * trims the next batch of customers, then evicts idle customers while the customer cap is exceeded.
+     * Each pass touches at most a few batches of customers; a full sweep of the map is spread across many passes.
+     */
+    @Override
+    public synchronized void sweep() {
+        HistoryProperties.Retention retention = properties.getRetention();
+        long cutoff = System.currentTimeMillis() - retention.getMaxAge().toMillis();
+
+        Long customerKey;
+        int trimmed = 0;
+        while (trimmed++ < retention.getSweepBatchSize() && (customerKey = overCapacity.poll()) != null) {
+            CustomerHistory history = transactionHistory.get(customerKey);
+            if (history != null) {
+                enforceRetention(customerKey, history, cutoff, retention);
+            }
+        }
+
+        int batch = Math.min(retention.getSweepBatchSize(), transactionHistory.size());
+        for (int visited = 0; visited < batch; visited++) {
+            LongKeyedMap.Entry<CustomerHistory> entry = nextForSweep();
+            if (entry == null) {
+                break;
+            }
+            enforceRetention(entry.key(), entry.value(), cutoff, retention);
+        }
+
+        int evictions = 0;
+        while (transactionHistory.size() > retention.getMaxCustomers()
+                && evictions++ < retention.getSweepBatchSize()) {
+            evictLeastRecentlyActive(retention.getEvictionSampleSize());
+        }
+    }
+
+    /**
+     * Captures what a snapshot needs. Callers block saves meanwhile, so the state matches a single log position.
+     */
+    public CapturedState capture() {
+        List<Map.Entry<String, List<TransactionRecord>>> captured = new ArrayList<>(transactionHistory.size());
+        for (Iterator<LongKeyedMap.Entry<CustomerHistory>> it = transactionHistory.iterator(); it.hasNext(); ) {
+            CustomerHistory history = it.next().value();
+            // Record views are immutable, so later saves and trims do not change what is written
+            captured.add(Map.entry(history.customerName(), history.records()));
+        }
+        return new CapturedState(locations.entries(), captured);
+    }
+
+    /**
+     * The captured customers as snapshot entries, derived lazily while the snapshot is written.
+     */
+    public Iterable<HistorySnapshot.CustomerState> customerStates(CapturedState state) {
+        return () -> state.customers().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> customerState(entry.getKey(), entry.getValue()))
+                .iterator();
+    }
+
+    /**
+     * A loader that rebuilds customer histories from a snapshot into this store.
+     */
+    public HistorySnapshot.Loader snapshotLoader() {
+        return new SnapshotLoader();
+    }
+
+    private void enforceRetention(long customerKey, CustomerHistory history, long cutoff,
+                                  HistoryProperties.Retention retention) {
+        long removed = history.trim(cutoff, retention.getMaxRecordsPerCustomer(), locations);
+        if (removed == 0) {
+            return;
+        }
+
+        int expired = (int) (removed >>> 32);
+        int overflow = (int) removed;
+        expiredRecords.addAndGet(expired);
+        overflowRecords.addAndGet(overflow);
+        totalRecords.addAndGet(-(expired + overflow));
+
+        if (history.evictIfEmpty()) {
+            transactionHistory.remove(customerKey, history);
+            evictedCustomers.incrementAndGet();
+        }
+    }
+
+    /**
+     * Approximate LRU: samples a few customers and evicts the one that has been idle the longest.
+     */
+    private void evictLeastRecentlyActive(int sampleSize) {
+        LongKeyedMap.Entry<CustomerHistory> oldest = null;
+        for (int i = 0; i < sampleSize; i++) {
+            LongKeyedMap.Entry<CustomerHistory> candidate = nextForSweep();
+            if (candidate == null) {
+                break;
+            }
+            if (oldest == null
+                    || candidate.value().lastActivityMillis() < oldest.value().lastActivityMillis()) {
+                oldest = candidate;
+            }
+        }
+
+        if (oldest != null) {
+            evict(oldest.key(), oldest.value());
+        }
+    }
+
+    private void evict(long customerKey, CustomerHistory history) {
+        // Flag first so concurrent saves retry on a fresh history instead of writing into the evicted one
+        totalRecords.addAndGet(-history.evict());
+        transactionHistory.remove(customerKey, history);
+        evictedCustomers.incrementAndGet();
+        log.debug("Evicted idle transaction history for customer: {}", history.customerName());
+    }
+
+    /**
+     * Advances the sweep cursor, wrapping around to the start of the map when it runs out.
+     */
+    private LongKeyedMap.Entry<CustomerHistory> nextForSweep() {
+        if (sweepCursor == null || !sweepCursor.hasNext()) {
+            if (sweepCursor != null) {
+                // A full cycle is done: publish the largest customer it saw, dropping sizes that have since been trimmed
+                largestCustomerRecords = sweepLargestCustomer;
+                sweepLargestCustomer = 0;
+            }
+            sweepCursor = transactionHistory.iterator();
+            if (!sweepCursor.hasNext()) {
+                return null;
+            }
+        }
+        LongKeyedMap.Entry<CustomerHistory> entry = sweepCursor.next();
+        sweepLargestCustomer = Math.max(sweepLargestCustomer, entry.value().size());
+        return entry;
+    }
+
+    /**
+     * Derives a customer's indexes from the captured records rather than copying the live ones, which may already
+     * include saves made after the capture (those are replayed from the log tail on the next startup).
+     */
+    private HistorySnapshot.CustomerState customerState(String customerName, List<TransactionRecord> records) {
+        SlidingWindowCounter velocity = newVelocityCounter();
+        IntHashSet visited = new IntHashSet();
+        for (TransactionRecord record : records) {
+            velocity.record(HistoryTime.toEpochMillis(record.getTimestamp()));
+            int locationId = locations.idOf(record.getCity(), record.getState());
+            if (locationId != LocationDictionary.UNKNOWN) {
+                visited.add(locationId);
+            }
+        }
+        return new HistorySnapshot.CustomerState(customerName, records, visited.toArray(), velocity.toArray());
+    }
+
+    /**
+     * Rebuilds customer histories from a snapshot. Velocity slots are reused when the ring layout has not changed
+     * since the snapshot was taken, otherwise they are recomputed from the records.
+     */
+    private final class SnapshotLoader implements HistorySnapshot.Loader {
+
+        private boolean velocityLayoutMatches;
+
+        @Override
+        public void header(HistorySnapshot.Header header) {
+            HistoryProperties.Velocity velocity = properties.getVelocity();
+            velocityLayoutMatches = header.velocityBuckets() == velocity.buckets()
+                    && header.velocityResolutionMillis() == velocity.getResolution().toMillis();
+        }
+
+        @Override
+        public void location(String key, int id) {
+            locations.restore(key, id);
+        }
+
+        @Override
+        public void customer(HistorySnapshot.CustomerState customer) {
+            SlidingWindowCounter velocity;
+            if (velocityLayoutMatches) {
+                velocity = SlidingWindowCounter.fromArray(customer.velocitySlots(),
+                        properties.getVelocity().getResolution().toMillis());
+            } else {
+                velocity = newVelocityCounter();
+                for (TransactionRecord record : customer.records()) {
+                    velocity.record(HistoryTime.toEpochMillis(record.getTimestamp()));
+                }
+            }
+
+            CustomerHistory history = CustomerHistory.restore(customer.customerName(), customer.records(), velocity,
+                    customer.visitedLocationIds());
+            long customerKey = CustomerIdentity.keyOf(customer.customerName());
+            transactionHistory.put(customerKey, history);
+            totalRecords.addAndGet(history.size());
+            if (history.size() > properties.getRetention().getMaxRecordsPerCustomer() && history.markQueuedForTrim()) {
+                overCapacity.offer(customerKey);
+            }
+        }
+    }
+
+    private CustomerHistory newCustomerHistory(String customerName) {
+        return new CustomerHistory(customerName, newVelocityCounter());
+    }
+
+    private SlidingWindowCounter newVelocityCounter() {
+        HistoryProperties.Velocity velocity = properties.getVelocity();
+        return new SlidingWindowCounter(velocity.buckets(), velocity.getResolution().toMillis());
+    }
+}
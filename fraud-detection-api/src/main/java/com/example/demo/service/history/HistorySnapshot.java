@@ -0,0 +1,283 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time binary snapshot of the in-memory transaction history, including the derived indexes (location dictionary, visited-location ids, velocity slots), so loading does not rebuild them from the records.
+ * The file is a header followed by length-prefixed blocks (the location dictionary, then one block per customer) and an end marker; records use TransactionRecordCodec.
+ * Snapshots are written to a temporary file and atomically renamed, and loaded through a read-only memory mapping, so loading never reads half a file and never copies the file into the heap first.
+ */
+public final class HistorySnapshot {
+
+    /**
+     * Snapshot-wide values: when it was taken, the write-ahead log position it covers and the velocity ring layout its slots were recorded with.
+     */
+    public record Header(long createdAtMillis, long walPosition, int velocityBuckets, long velocityResolutionMillis) {
+    }
+
+    /**
+     * One customer's records and derived indexes.
+     */
+    public record CustomerState(String customerName, List<TransactionRecord> records, int[] visitedLocationIds,
+                                long[] velocitySlots) {
+    }
+
+    /**
+     * Receives the contents of a snapshot as it is loaded, in file order.
+     */
+    public interface Loader {
+
+        void header(Header header);
+
+        void location(String key, int id);
+
+        void customer(CustomerState customer);
+    }
+
+    /**
+     * What loading a snapshot read.
+     */
+    public record LoadResult(Path file, Header header, long bytes, int customers, long records) {
+    }
+
+    private static final int MAGIC = 0x46444853; // "FDHS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int END_OF_BLOCKS = -1;
+
+    private static final String FILE_PREFIX = "snapshot-";
+    private static final String FILE_SUFFIX = ".bin";
+
+    // Blocks are written with DataOutputStream, which is big-endian
+    private static final ValueLayout.OfInt BLOCK_LENGTH = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private HistorySnapshot() {
+    }
+
+    /**
+     * Writes a snapshot into the directory and returns its size in bytes. Customers are encoded one at a time, so
+     * the iterable can compute each customer's state lazily.
+     */
+    public static long write(Path directory, Header header, Map<String, Integer> locations,
+                             Iterable<CustomerState> customers) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%016d%s", FILE_PREFIX, header.createdAtMillis(), FILE_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        long bytes;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(header.createdAtMillis());
+            out.writeLong(header.walPosition());
+            out.writeInt(header.velocityBuckets());
+            out.writeLong(header.velocityResolutionMillis());
+
+            ByteBuffer block = ByteBuffer.allocate(1 << 16);
+            block = encodeLocations(block, locations);
+            writeBlock(out, block);
+            for (CustomerState customer : customers) {
+                block = encodeCustomer(block, customer);
+                writeBlock(out, block);
+            }
+            out.writeInt(END_OF_BLOCKS);
+            out.flush();
+
+            channel.force(true);
+            bytes = channel.size();
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return bytes;
+    }
+
+    /**
+     * The most recent complete snapshot in the directory, if any.
+     */
+    public static Optional<Path> newest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Maps a snapshot file and feeds its contents to the loader.
+     *
+     * @throws IllegalArgumentException if the file is not a complete snapshot of a supported version
+     */
+    public static LoadResult load(Path file, Loader loader) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (mapped.byteSize() < HEADER_BYTES + 4) {
+                throw new IllegalArgumentException("Snapshot " + file.getFileName() + " is truncated");
+            }
+
+            ByteBuffer headerBytes = mapped.asSlice(0, HEADER_BYTES).asByteBuffer();
+            if (headerBytes.getInt() != MAGIC || headerBytes.getInt() != VERSION) {
+                throw new IllegalArgumentException("Snapshot " + file.getFileName() + " has an unsupported format");
+            }
+            Header header = new Header(headerBytes.getLong(), headerBytes.getLong(), headerBytes.getInt(),
+                    headerBytes.getLong());
+            loader.header(header);
+
+            int customers = 0;
+            long records = 0;
+            long offset = HEADER_BYTES;
+            boolean locationsRead = false;
+            while (true) {
+                if (offset + 4 > mapped.byteSize()) {
+                    throw new IllegalArgumentException("Snapshot " + file.getFileName() + " is truncated");
+                }
+                int length = mapped.get(BLOCK_LENGTH, offset);
+                offset += 4;
+                if (length == END_OF_BLOCKS) {
+                    break;
+                }
+                if (length < 0 || offset + length > mapped.byteSize()) {
+                    throw new IllegalArgumentException("Snapshot " + file.getFileName() + " is truncated");
+                }
+
+                // Each block is decoded straight from the mapping
+                ByteBuffer block = mapped.asSlice(offset, length).asByteBuffer();
+                if (!locationsRead) {
+                    decodeLocations(block, loader);
+                    locationsRead = true;
+                } else {
+                    CustomerState customer = decodeCustomer(block);
+                    loader.customer(customer);
+                    customers++;
+                    records += customer.records().size();
+                }
+                offset += length;
+            }
+
+            return new LoadResult(file, header, mapped.byteSize(), customers, records);
+        }
+    }
+
+    /**
+     * Deletes every snapshot in the directory except the newest ones.
+     */
+    public static void deleteAllButNewest(Path directory, int keep) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (int i = 0; i < snapshots.size() - keep; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private static ByteBuffer encodeLocations(ByteBuffer block, Map<String, Integer> locations) {
+        int required = 4;
+        for (String key : locations.keySet()) {
+            required += 4 + TransactionRecordCodec.maxStringSize(key);
+        }
+        block = ensureCapacity(block, required);
+
+        block.putInt(locations.size());
+        for (Map.Entry<String, Integer> entry : locations.entrySet()) {
+            block.putInt(entry.getValue());
+            TransactionRecordCodec.putString(block, entry.getKey());
+        }
+        return block;
+    }
+
+    private static void decodeLocations(ByteBuffer block, Loader loader) {
+        int count = block.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = block.getInt();
+            loader.location(TransactionRecordCodec.getString(block), id);
+        }
+    }
+
+    private static ByteBuffer encodeCustomer(ByteBuffer block, CustomerState customer) {
+        int required = TransactionRecordCodec.maxStringSize(customer.customerName()) + 12
+                + 4 * customer.visitedLocationIds().length + 8 * customer.velocitySlots().length;
+        for (TransactionRecord record : customer.records()) {
+            required += TransactionRecordCodec.maxEncodedSize(record);
+        }
+        block = ensureCapacity(block, required);
+
+        TransactionRecordCodec.putString(block, customer.customerName());
+        block.putInt(customer.records().size());
+        for (TransactionRecord record : customer.records()) {
+            TransactionRecordCodec.encode(record, block);
+        }
+        block.putInt(customer.visitedLocationIds().length);
+        for (int locationId : customer.visitedLocationIds()) {
+            block.putInt(locationId);
+        }
+        block.putInt(customer.velocitySlots().length);
+        for (long slot : customer.velocitySlots()) {
+            block.putLong(slot);
+        }
+        return block;
+    }
+
+    private static CustomerState decodeCustomer(ByteBuffer block) {
+        String customerName = TransactionRecordCodec.getString(block);
+        int recordCount = block.getInt();
+        List<TransactionRecord> records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            records.add(TransactionRecordCodec.decode(block));
+        }
+        int[] visitedLocationIds = new int[block.getInt()];
+        for (int i = 0; i < visitedLocationIds.length; i++) {
+            visitedLocationIds[i] = block.getInt();
+        }
+        long[] velocitySlots = new long[block.getInt()];
+        for (int i = 0; i < velocitySlots.length; i++) {
+            velocitySlots[i] = block.getLong();
+        }
+        return new CustomerState(customerName, records, visitedLocationIds, velocitySlots);
+    }
+
+    private static void writeBlock(DataOutputStream out, ByteBuffer block) throws IOException {
+        out.writeInt(block.position());
+        out.write(block.array(), 0, block.position());
+    }
+
+    /**
+     * Returns a cleared buffer with room for the given number of bytes, reusing the current one when it is big enough.
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer block, int required) {
+        if (block.capacity() < required) {
+            return ByteBuffer.allocate(Math.max(required, block.capacity() * 2));
+        }
+        return block.clear();
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Where transaction history is kept: the saves and lookups TransactionHistoryService delegates to its backend
+ * (fraud.history.backend). Customers are identified by their CustomerIdentity key.
+ * Implementations are thread-safe; logging, write-behind and request timing stay in the service, in front of every backend.
+ */
+public interface HistoryStore extends Closeable {
+
+    void saveTransaction(TransactionRecord record);
+
+    /**
+     * All records of the customer, oldest first.
+     */
+    List<TransactionRecord> getCustomerHistory(long customerKey);
+
+    /**
+     * Records of the customer made after the given time, oldest first.
+     */
+    List<TransactionRecord> getRecentTransactions(long customerKey, LocalDateTime since);
+
+    /**
+     * Number of records of the customer made after the given time (the velocity check).
+     */
+    long countRecentTransactions(long customerKey, LocalDateTime since);
+
+    /**
+     * Whether the customer has made a purchase in the city and state before (compared ignoring case).
+     */
+    boolean hasVisitedLocation(long customerKey, String city, String state);
+
+    long customerCount();
+
+    long recordCount();
+
+    /**
+     * Records held by the customer with the most; only meaningful when tracksLargestCustomer().
+     */
+    int largestCustomerRecords();
+
+    default boolean tracksLargestCustomer() {
+        return true;
+    }
+
+    /**
+     * Records dropped so far because they were older than the maximum age.
+     */
+    default long expiredRecords() {
+        return 0;
+    }
+
+    /**
+     * Customers dropped so far by the retention policy.
+     */
+    default long evictedCustomers() {
+        return 0;
+    }
+
+    /**
+     * Runs one incremental retention pass (fraud.history.retention.*), called periodically by TransactionHistoryService.
+     */
+    default void sweep() {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
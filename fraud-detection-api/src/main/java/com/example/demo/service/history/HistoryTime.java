@@ -0,0 +1,23 @@
+package com.example.demo.service.history;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversions between the LocalDateTime timestamps stored on records and epoch milliseconds.
+ * Records are stamped with LocalDateTime.now(), so the system default zone is used in both directions.
+ */
+public final class HistoryTime {
+
+    private HistoryTime() {
+    }
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service.history;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of positive ints (linear probing, no boxing).
+ * Writers are serialized on the set itself; readers never lock and always see a fully built table because every write republishes it through a volatile field.
+ */
+public final class IntHashSet {
+
+    private static final int EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private volatile int[] table = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Checks membership with a single probe sequence over the current table.
+     */
+    public boolean contains(int value) {
+        int[] current = table;
+        int mask = current.length - 1;
+        int index = mix(value) & mask;
+
+        while (true) {
+            int slot = current[index];
+            if (slot == value) {
+                return value != EMPTY;
+            }
+            if (slot == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds a value, returning false if it was already present.
+     */
+    public synchronized boolean add(int value) {
+        if (value <= EMPTY) {
+            throw new IllegalArgumentException("Only positive values can be stored: " + value);
+        }
+
+        int[] current = table;
+        if ((size + 1) * 4 > current.length * 3) {
+            current = resize(current, current.length * 2);
+        }
+        if (!insert(current, value)) {
+            return false;
+        }
+
+        size++;
+        table = current; // Volatile write publishes the new element (and any resized table)
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Copies the values, in no particular order.
+     */
+    public int[] toArray() {
+        int[] current = table;
+        int[] values = new int[current.length];
+        int count = 0;
+        for (int value : current) {
+            if (value != EMPTY) {
+                values[count++] = value;
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int[] resize(int[] source, int capacity) {
+        int[] resized = new int[capacity];
+        for (int value : source) {
+            if (value != EMPTY) {
+                insert(resized, value);
+            }
+        }
+        return resized;
+    }
+
+    private static boolean insert(int[] target, int value) {
+        int mask = target.length - 1;
+        int index = mix(value) & mask;
+
+        while (target[index] != EMPTY) {
+            if (target[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        target[index] = value;
+        return true;
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
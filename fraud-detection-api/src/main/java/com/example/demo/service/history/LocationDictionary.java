@@ -0,0 +1,63 @@
+package com.example.demo.service.history;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dictionary encoding of (city, state) pairs to small positive ints.
+ * Names are trimmed and lower-cased once when a location is first seen, so "Boston, MA" and " boston , ma" share one id and per-customer lookups compare ints instead of strings.
+ */
+public final class LocationDictionary {
+
+    /**
+     * Returned by idOf for locations that have never been recorded
+     */
+    public static final int UNKNOWN = 0;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /**
+     * Returns the id for a location, assigning a new one if it has not been seen before.
+     */
+    public int intern(String city, String state) {
+        return ids.computeIfAbsent(key(city, state), k -> nextId.getAndIncrement());
+    }
+
+    /**
+     * Returns the id for a location, or UNKNOWN without assigning one.
+     */
+    public int idOf(String city, String state) {
+        Integer id = ids.get(key(city, state));
+        return id != null ? id : UNKNOWN;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Copies the normalized location keys and their ids, e.g. to persist them in a snapshot.
+     */
+    public Map<String, Integer> entries() {
+        return Map.copyOf(ids);
+    }
+
+    /**
+     * Restores a key/id pair saved by entries(). Only valid before any location has been interned.
+     */
+    public void restore(String key, int id) {
+        ids.put(key, id);
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    static String key(String city, String state) {
+        return normalize(city) + '\u0000' + normalize(state);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
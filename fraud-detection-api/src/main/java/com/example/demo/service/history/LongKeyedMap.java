@@ -0,0 +1,273 @@
+package com.example.demo.service.history;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+
+/**
+ * Concurrent map from well-mixed, non-zero long keys (see CustomerIdentity) to values, without boxing.
+ * Keys are split over independently locked stripes, each an open-addressing table (linear probing, backward-shift deletion).
+ * Readers take an optimistic read of their stripe and only fall back to its read lock if a writer got in the way, so lookups neither block nor allocate.
+ * Iteration is weakly consistent, like ConcurrentHashMap's: it never fails, and may or may not see concurrent changes.
+ */
+public final class LongKeyedMap<V> {
+
+    private static final long EMPTY = 0;
+    private static final int STRIPE_SHIFT = 6;
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * One key and its value, as returned by iteration.
+     */
+    public record Entry<V>(long key, V value) {
+    }
+
+    private final Stripe<V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public LongKeyedMap() {
+        stripes = new Stripe[1 << STRIPE_SHIFT];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    public V get(long key) {
+        return stripeOf(key).get(key);
+    }
+
+    /**
+     * The value for the key, created by the factory (under the stripe's lock) if there is none.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        V existing = get(key);
+        return existing != null ? existing : stripeOf(key).computeIfAbsent(key, factory);
+    }
+
+    public V put(long key, V value) {
+        return stripeOf(key).put(key, value);
+    }
+
+    /**
+     * Removes the key only while it still maps to the given value.
+     */
+    public boolean remove(long key, V value) {
+        return stripeOf(key).remove(key, value);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    /**
+     * Iterates one stripe at a time, each copied under its read lock.
+     */
+    public Iterator<Entry<V>> iterator() {
+        return new Iterator<>() {
+            private int nextStripe;
+            private Iterator<Entry<V>> current = List.<Entry<V>>of().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && nextStripe < stripes.length) {
+                    current = stripes[nextStripe++].entries().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Entry<V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    private Stripe<V> stripeOf(long key) {
+        return stripes[(int) (key >>> (64 - STRIPE_SHIFT))];
+    }
+
+    private static final class Stripe<V> {
+
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private volatile int size;
+
+        V get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                V value = find(keys, values, key);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+            long stamp = lock.writeLock();
+            try {
+                V existing = find(keys, values, key);
+                if (existing != null) {
+                    return existing;
+                }
+                V created = factory.apply(key);
+                insert(key, created);
+                return created;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V put(long key, V value) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slotOf(keys, key);
+                if (slot >= 0) {
+                    V previous = valueAt(values, slot);
+                    values[slot] = value;
+                    return previous;
+                }
+                insert(key, value);
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long key, V value) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slotOf(keys, key);
+                if (slot < 0 || values[slot] != value) {
+                    return false;
+                }
+                delete(slot);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        List<Entry<V>> entries() {
+            long stamp = lock.readLock();
+            try {
+                List<Entry<V>> entries = new ArrayList<>(size);
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (keys[slot] != EMPTY) {
+                        entries.add(new Entry<>(keys[slot], valueAt(values, slot)));
+                    }
+                }
+                return entries;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Probes for the key. Also used by optimistic readers, so it must terminate on a table that is being changed:
+         * it reads each array once and gives up after one pass.
+         */
+        private static <V> V find(long[] keys, Object[] values, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = keys[slot];
+                if (candidate == key) {
+                    return slot < values.length ? valueAt(values, slot) : null;
+                }
+                if (candidate == EMPTY) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int slotOf(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long key, V value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        /**
+         * Empties the slot and shifts later entries of the probe run back, so no tombstones are needed.
+         */
+        private void delete(int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = (int) keys[next] & mask;
+                // Move the entry into the hole unless its home lies cyclically in (hole, next]
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = (int) oldKeys[i] & mask;
+                    while (keys[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V valueAt(Object[] values, int slot) {
+            return (V) values[slot];
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.example.demo.service.history;
+
+import com.example.demo.domain.customer.CustomerIdentity;
+import com.example.demo.domain.ip.IpAddress;
+import com.example.demo.model.entity.TransactionRecord;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transaction history kept off-heap in MemorySegment columns (Foreign Function &amp; Memory API).
+ * Rows live in fixed-size pages; inside a page every column is contiguous (timestamp, amount in cents, city/state/merchant dictionary ids, IPv4 as an int, link to the customer's previous row), so a row costs {@value #BYTES_PER_ROW} bytes and nothing per row is visible to the GC.
+ * Each customer's rows form a chain from newest to oldest, so recent-window queries stop as soon as they reach an older row.
+ * The HistoryStore behind fraud.history.backend=off-heap. Retention works on whole pages: rows are taken in arrival order, so
+ * the oldest page is dropped once its newest row is past the maximum age (a row can outlive it by up to one page), and the
+ * least recently active customers are dropped above the customer cap. There is no per-customer cap.
+ * Row numbers are never reused, so a store takes at most 2^31 saves over its lifetime.
+ */
+public final class OffHeapTransactionStore implements HistoryStore {
+
+    public static final int BYTES_PER_ROW = 40;
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int ROWS_PER_PAGE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = ROWS_PER_PAGE - 1;
+    private static final int NO_ROW = -1;
+
+    // Column offsets inside a page
+    private static final long TIMESTAMP_COLUMN = 0;
+    private static final long AMOUNT_COLUMN = TIMESTAMP_COLUMN + 8L * ROWS_PER_PAGE;
+    private static final long CITY_COLUMN = AMOUNT_COLUMN + 8L * ROWS_PER_PAGE;
+    private static final long STATE_COLUMN = CITY_COLUMN + 4L * ROWS_PER_PAGE;
+    private static final long MERCHANT_COLUMN = STATE_COLUMN + 4L * ROWS_PER_PAGE;
+    private static final long IPV4_COLUMN = MERCHANT_COLUMN + 4L * ROWS_PER_PAGE;
+    private static final long IP_TEXT_COLUMN = IPV4_COLUMN + 4L * ROWS_PER_PAGE;
+    private static final long PREVIOUS_COLUMN = IP_TEXT_COLUMN + 4L * ROWS_PER_PAGE;
+    private static final long PAGE_BYTES = PREVIOUS_COLUMN + 4L * ROWS_PER_PAGE;
+
+    private final StringDictionary cities = new StringDictionary();
+    private final StringDictionary states = new StringDictionary();
+    private final StringDictionary merchants = new StringDictionary();
+
+    // Addresses that are not dotted IPv4 (e.g. IPv6) are kept as text
+    private final StringDictionary ipTexts = new StringDictionary();
+
+    private final LocationDictionary locations = new LocationDictionary();
+    private final LongKeyedMap<CustomerRows> customers = new LongKeyedMap<>();
+    private final AtomicInteger nextRow = new AtomicInteger();
+
+    // Rows below this one are in dropped pages; published before the page leaves the directory
+    private volatile int firstLiveRow;
+
+    // Readers take the directory once per query, which keeps its pages reachable (and so allocated) until they finish
+    private volatile MemorySegment[] pages = new MemorySegment[16];
+    private final Object pageLock = new Object();
+
+    private final long maxAgeMillis;
+    private final int maxCustomers;
+    private final int sweepBatchSize;
+    private final int evictionSampleSize;
+
+    // Only touched by the (single) sweeping thread
+    private Iterator<LongKeyedMap.Entry<CustomerRows>> sweepCursor;
+    private int sweepLargestCustomer;
+
+    // Raised by saves as they happen, reset to the largest count seen by the sweep each time it wraps around the map
+    private final AtomicInteger largestCustomerRows = new AtomicInteger();
+
+    private final AtomicLong expiredRecords = new AtomicLong();
+    private final AtomicLong evictedCustomers = new AtomicLong();
+
+    /**
+     * Per-customer entry point into the row chain, plus the visited-location index and the customer's name (held once, not per row).
+     * Saves and the sweep synchronize on it.
+     */
+    private static final class CustomerRows {
+        final String customerName;
+        volatile int newestRow = NO_ROW;
+        int oldestRow = NO_ROW;
+        int rowCount;
+        boolean evicted;
+        volatile IntHashSet visitedLocations = new IntHashSet();
+
+        CustomerRows(String customerName) {
+            this.customerName = customerName;
+        }
+
+        /**
+         * Links a written row in as the customer's newest.
+         *
+         * @return the customer's row count after the add, or -1 if the customer has been evicted and the caller must retry on a fresh entry
+         */
+        synchronized int append(MemorySegment page, long slot, int row, int locationId) {
+            if (evicted) {
+                return -1;
+            }
+            page.set(ValueLayout.JAVA_INT, PREVIOUS_COLUMN + slot * 4, newestRow);
+            visitedLocations.add(locationId);
+            if (oldestRow == NO_ROW) {
+                oldestRow = row;
+            }
+            newestRow = row; // Volatile write publishes the row's columns to readers
+            return ++rowCount;
+        }
+    }
+
+    /**
+     * A store without retention.
+     */
+    public OffHeapTransactionStore() {
+        this(Long.MAX_VALUE, Integer.MAX_VALUE, 1_000, 16);
+    }
+
+    /**
+     * @param maxAgeMillis       Rows are dropped (a page at a time) once older than this
+     * @param maxCustomers       Above this many customers the least recently active ones are dropped
+     * @param sweepBatchSize     Customers visited per sweep
+     * @param evictionSampleSize Customers sampled per eviction
+     */
+    public OffHeapTransactionStore(long maxAgeMillis, int maxCustomers, int sweepBatchSize, int evictionSampleSize) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxCustomers = maxCustomers;
+        this.sweepBatchSize = sweepBatchSize;
+        this.evictionSampleSize = evictionSampleSize;
+    }
+
+    /**
+     * Save a transaction to history.
+     */
+    @Override
+    public void saveTransaction(TransactionRecord record) {
+        int row = nextRow.getAndIncrement();
+        if (row < 0) {
+            throw new IllegalStateException("Off-heap transaction store is full");
+        }
+
+        MemorySegment page = page(row);
+        long slot = row & PAGE_MASK;
+        long ipv4 = IpAddress.parseIpv4(record.getIpAddress());
+
+        page.set(ValueLayout.JAVA_LONG, TIMESTAMP_COLUMN + slot * 8, HistoryTime.toEpochMillis(record.getTimestamp()));
+        page.set(ValueLayout.JAVA_LONG, AMOUNT_COLUMN + slot * 8, Math.round(record.getAmount() * 100));
+        page.set(ValueLayout.JAVA_INT, CITY_COLUMN + slot * 4, cities.intern(record.getCity()));
+        page.set(ValueLayout.JAVA_INT, STATE_COLUMN + slot * 4, states.intern(record.getState()));
+        page.set(ValueLayout.JAVA_INT, MERCHANT_COLUMN + slot * 4, merchants.intern(record.getMerchantName()));
+        page.set(ValueLayout.JAVA_INT, IPV4_COLUMN + slot * 4, ipv4 >= 0 ? (int) ipv4 : 0);
+        page.set(ValueLayout.JAVA_INT, IP_TEXT_COLUMN + slot * 4, ipv4 >= 0 ? 0 : ipTexts.intern(record.getIpAddress()));
+
+        int locationId = locations.intern(record.getCity(), record.getState());
+        int count;
+        do {
+            // A customer evicted between lookup and append rejects the row; link it to a fresh entry instead
+            CustomerRows rows = customers.computeIfAbsent(record.getCustomerKey(), k -> new CustomerRows(record.getCustomerName()));
+            count = rows.append(page, slot, row, locationId);
+        } while (count < 0);
+        if (count > largestCustomerRows.get()) {
+            largestCustomerRows.accumulateAndGet(count, Math::max);
+        }
+    }
+
+    /**
+     * Get all transactions for a customer, oldest first.
+     */
+    public List<TransactionRecord> getCustomerHistory(String customerName) {
+        return getCustomerHistory(CustomerIdentity.keyOf(customerName));
+    }
+
+    @Override
+    public List<TransactionRecord> getCustomerHistory(long customerKey) {
+        return collect(customerKey, Long.MIN_VALUE);
+    }
+
+    /**
+     * Get recent transactions within a time window.
+     */
+    public List<TransactionRecord> getRecentTransactions(String customerName, LocalDateTime since) {
+        return getRecentTransactions(CustomerIdentity.keyOf(customerName), since);
+    }
+
+    @Override
+    public List<TransactionRecord> getRecentTransactions(long customerKey, LocalDateTime since) {
+        return collect(customerKey, HistoryTime.toEpochMillis(since));
+    }
+
+    /**
+     * Check if customer has purchased from a specific location before.
+     */
+    public boolean hasVisitedLocation(String customerName, String city, String state) {
+        return hasVisitedLocation(CustomerIdentity.keyOf(customerName), city, state);
+    }
+
+    @Override
+    public boolean hasVisitedLocation(long customerKey, String city, String state) {
+        CustomerRows rows = customers.get(customerKey);
+        if (rows == null) {
+            return false;
+        }
+        int locationId = locations.idOf(city, state);
+        return locationId != LocationDictionary.UNKNOWN && rows.visitedLocations.contains(locationId);
+    }
+
+    /**
+     * Count transactions in a time window (for velocity check). Walks only the rows inside the window.
+     */
+    public long countRecentTransactions(String customerName, LocalDateTime since) {
+        return countRecentTransactions(CustomerIdentity.keyOf(customerName), since);
+    }
+
+    @Override
+    public long countRecentTransactions(long customerKey, LocalDateTime since) {
+        CustomerRows rows = customers.get(customerKey);
+        if (rows == null) {
+            return 0;
+        }
+
+        long sinceMillis = HistoryTime.toEpochMillis(since);
+        MemorySegment[] directory = pages;
+        int first = firstLiveRow;
+        long count = 0;
+        for (int row = rows.newestRow; row >= first; row = previous(directory, row)) {
+            if (timestamp(directory, row) <= sinceMillis) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public long customerCount() {
+        return customers.size();
+    }
+
+    /**
+     * Rows in pages not yet dropped, including rows of customers evicted since.
+     */
+    @Override
+    public long recordCount() {
+        return nextRow.get() - (long) firstLiveRow;
+    }
+
+    /**
+     * Refreshed by every full sweep (and raised as saves happen), so after pages are dropped it can lag by up to one sweep cycle.
+     */
+    @Override
+    public int largestCustomerRecords() {
+        return largestCustomerRows.get();
+    }
+
+    @Override
+    public long expiredRecords() {
+        return expiredRecords.get();
+    }
+
+    @Override
+    public long evictedCustomers() {
+        return evictedCustomers.get();
+    }
+
+    /**
+     * Drops expired pages, then brings the next batch of customers in line with what is left (row count, visited locations,
+     * or the whole customer once all its rows are gone), then evicts idle customers while the customer cap is exceeded.
+     */
+    @Override
+    public synchronized void sweep() {
+        dropExpiredPages(System.currentTimeMillis() - maxAgeMillis);
+
+        int batch = Math.min(sweepBatchSize, customers.size());
+        for (int visited = 0; visited < batch; visited++) {
+            LongKeyedMap.Entry<CustomerRows> entry = nextForSweep();
+            if (entry == null) {
+                break;
+            }
+            prune(entry.key(), entry.value());
+        }
+
+        int evictions = 0;
+        while (customers.size() > maxCustomers && evictions++ < sweepBatchSize) {
+            evictLeastRecentlyActive();
+        }
+    }
+
+    /**
+     * Off-heap bytes reserved for row pages (dictionaries and the per-customer index stay on the heap).
+     */
+    public long offHeapBytes() {
+        long allocated = 0;
+        for (MemorySegment page : pages) {
+            if (page != null) {
+                allocated += page.byteSize();
+            }
+        }
+        return allocated;
+    }
+
+    private List<TransactionRecord> collect(long customerKey, long afterMillis) {
+        CustomerRows rows = customers.get(customerKey);
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+
+        MemorySegment[] directory = pages;
+        int first = firstLiveRow;
+        List<TransactionRecord> records = new ArrayList<>();
+        for (int row = rows.newestRow; row >= first; row = previous(directory, row)) {
+            long timestamp = timestamp(directory, row);
+            if (timestamp <= afterMillis) {
+                break;
+            }
+            records.add(decode(directory, row, rows.customerName, timestamp));
+        }
+        Collections.reverse(records);
+        return records;
+    }
+
+    private TransactionRecord decode(MemorySegment[] directory, int row, String customerName, long timestamp) {
+        MemorySegment page = directory[row >>> PAGE_SHIFT];
+        long slot = row & PAGE_MASK;
+
+        int ipText = page.get(ValueLayout.JAVA_INT, IP_TEXT_COLUMN + slot * 4);
+        String ipAddress = ipText != 0
+                ? ipTexts.valueOf(ipText)
+                : formatIpv4(page.get(ValueLayout.JAVA_INT, IPV4_COLUMN + slot * 4));
+
+        return new TransactionRecord(
+                customerName,
+                cities.valueOf(page.get(ValueLayout.JAVA_INT, CITY_COLUMN + slot * 4)),
+                states.valueOf(page.get(ValueLayout.JAVA_INT, STATE_COLUMN + slot * 4)),
+                page.get(ValueLayout.JAVA_LONG, AMOUNT_COLUMN + slot * 8) / 100.0,
+                HistoryTime.fromEpochMillis(timestamp),
+                ipAddress,
+                merchants.valueOf(page.get(ValueLayout.JAVA_INT, MERCHANT_COLUMN + slot * 4))
+        );
+    }
+
+    private static long timestamp(MemorySegment[] directory, int row) {
+        return directory[row >>> PAGE_SHIFT].get(ValueLayout.JAVA_LONG, TIMESTAMP_COLUMN + (row & PAGE_MASK) * 8L);
+    }
+
+    private static int previous(MemorySegment[] directory, int row) {
+        return directory[row >>> PAGE_SHIFT].get(ValueLayout.JAVA_INT, PREVIOUS_COLUMN + (row & PAGE_MASK) * 4L);
+    }
+
+    /**
+     * Drops pages from the oldest while their newest row is older than the cutoff. The page being filled and the one
+     * before it are kept, since saves that took a row there may still be writing it.
+     */
+    private void dropExpiredPages(long cutoffMillis) {
+        while (true) {
+            int index = firstLiveRow >>> PAGE_SHIFT;
+            int filling = Math.max(nextRow.get() - 1, 0) >>> PAGE_SHIFT;
+            if (index >= filling - 1 || newestTimestamp(pages[index]) >= cutoffMillis) {
+                return;
+            }
+
+            synchronized (pageLock) {
+                firstLiveRow = (index + 1) << PAGE_SHIFT;
+                MemorySegment[] current = Arrays.copyOf(pages, pages.length);
+                current[index] = null; // Freed by its auto arena once no reader's directory refers to it
+                pages = current;
+            }
+            expiredRecords.addAndGet(ROWS_PER_PAGE);
+        }
+    }
+
+    private static long newestTimestamp(MemorySegment page) {
+        long newest = Long.MIN_VALUE;
+        for (long slot = 0; slot < ROWS_PER_PAGE; slot++) {
+            newest = Math.max(newest, page.get(ValueLayout.JAVA_LONG, TIMESTAMP_COLUMN + slot * 8));
+        }
+        return newest;
+    }
+
+    /**
+     * Forgets a customer whose rows have all been dropped, or recounts the live rows and rebuilds the visited-location
+     * index of one that lost some.
+     */
+    private void prune(long customerKey, CustomerRows rows) {
+        MemorySegment[] directory = pages;
+        int first = firstLiveRow;
+        synchronized (rows) {
+            if (rows.newestRow == NO_ROW) {
+                return; // Just created, its first row is still being written
+            }
+            if (rows.newestRow < first) {
+                rows.evicted = true;
+                customers.remove(customerKey, rows);
+                evictedCustomers.incrementAndGet();
+                return;
+            }
+
+            if (rows.oldestRow < first) {
+                IntHashSet visited = new IntHashSet();
+                int count = 0;
+                for (int row = rows.newestRow; row >= first; row = previous(directory, row)) {
+                    long slot = row & PAGE_MASK;
+                    MemorySegment page = directory[row >>> PAGE_SHIFT];
+                    visited.add(locations.intern(
+                            cities.valueOf(page.get(ValueLayout.JAVA_INT, CITY_COLUMN + slot * 4)),
+                            states.valueOf(page.get(ValueLayout.JAVA_INT, STATE_COLUMN + slot * 4))));
+                    rows.oldestRow = row;
+                    count++;
+                }
+                rows.visitedLocations = visited;
+                rows.rowCount = count;
+            }
+        }
+    }
+
+    /**
+     * Approximate LRU: samples a few customers and evicts the one whose newest row is the oldest.
+     */
+    private void evictLeastRecentlyActive() {
+        LongKeyedMap.Entry<CustomerRows> oldest = null;
+        for (int i = 0; i < evictionSampleSize; i++) {
+            LongKeyedMap.Entry<CustomerRows> candidate = nextForSweep();
+            if (candidate == null) {
+                break;
+            }
+            if (oldest == null || candidate.value().newestRow < oldest.value().newestRow) {
+                oldest = candidate;
+            }
+        }
+
+        if (oldest != null) {
+            synchronized (oldest.value()) {
+                // Flag first so concurrent saves link their row to a fresh entry instead of this one
+                oldest.value().evicted = true;
+            }
+            customers.remove(oldest.key(), oldest.value());
+            evictedCustomers.incrementAndGet();
+        }
+    }
+
+    /**
+     * Advances the sweep cursor, wrapping around to the start of the map when it runs out.
+     */
+    private LongKeyedMap.Entry<CustomerRows> nextForSweep() {
+        if (sweepCursor == null || !sweepCursor.hasNext()) {
+            if (sweepCursor != null) {
+                // A full cycle is done: publish the largest customer it saw, dropping counts that have since gone down
+                largestCustomerRows.set(sweepLargestCustomer);
+                sweepLargestCustomer = 0;
+            }
+            sweepCursor = customers.iterator();
+            if (!sweepCursor.hasNext()) {
+                return null;
+            }
+        }
+        LongKeyedMap.Entry<CustomerRows> entry = sweepCursor.next();
+        sweepLargestCustomer = Math.max(sweepLargestCustomer, entry.value().rowCount);
+        return entry;
+    }
+
+    /**
+     * Returns the page holding the row, allocating it (and growing the page directory) on first use.
+     */
+    private MemorySegment page(int row) {
+        int index = row >>> PAGE_SHIFT;
+        MemorySegment[] current = pages;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+
+        synchronized (pageLock) {
+            current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, index + 1));
+            }
+            if (current[index] == null) {
+                // Auto arena: the page is released when the store becomes unreachable
+                current[index] = Arena.ofAuto().allocate(PAGE_BYTES, 8);
+            }
+            pages = current;
+            return current[index];
+        }
+    }
+
+    static String formatIpv4(int address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "."
+                + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+}
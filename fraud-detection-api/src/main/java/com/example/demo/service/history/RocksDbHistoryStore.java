@@ -0,0 +1,502 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transaction history in an embedded RocksDB database, so it survives restarts without a separate log or snapshot.
+ * Column families:
+ * - records: [customer key][timestamp][sequence] -> record (TransactionRecordCodec). Keys sort by customer, then time,
+ *   so a velocity window is one short range scan from its start, bounded by the end of the customer's range.
+ * - visited: [customer key][normalized city and state] -> empty, a point lookup (behind a bloom filter) per location check.
+ * - customers: [customer key] -> name, for the customer count.
+ * - default: where the record sequence stopped at the last close.
+ * All fields are fixed-width big-endian, with the timestamp's sign bit flipped, so byte order matches numeric order.
+ * Velocity checks are answered from an in-memory ring per customer (as in the heap backend) once the ring has been tracking
+ * the customer for the whole window, which assumes records are saved close to their timestamp; until then, a range scan.
+ * The sweep expires records older than the maximum age with one range delete per customer (no per-customer or customer cap).
+ */
+public final class RocksDbHistoryStore implements HistoryStore {
+
+    private static final int KEY_BYTES = 8;
+    private static final int RECORD_KEY_BYTES = 24;
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] SEQUENCE = bytes("sequence");
+    private static final byte NO_UTF8 = (byte) 0xFF;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final RocksDB db;
+    private final ColumnFamilyHandle metadata;
+    private final ColumnFamilyHandle records;
+    private final ColumnFamilyHandle visited;
+    private final ColumnFamilyHandle customers;
+    private final WriteOptions writeOptions;
+
+    // Tells apart records of one customer saved in the same millisecond; keeps growing across restarts (see close)
+    private final AtomicLong sequence;
+
+    private final long maxAgeMillis;
+    private final int sweepBatchSize;
+    private final int velocityBuckets;
+    private final long velocityResolutionMillis;
+
+    // Customer key -> velocity ring, for customers saved to since startup and not idle for longer than the ring spans
+    private final LongKeyedMap<VelocityRing> velocity = new LongKeyedMap<>();
+
+    // Only touched by the (single) sweeping thread
+    private byte[] sweepPosition;
+    private Iterator<LongKeyedMap.Entry<VelocityRing>> ringCursor;
+
+    private final AtomicLong expiredRecords = new AtomicLong();
+    private final AtomicLong evictedCustomers = new AtomicLong();
+
+    /**
+     * A customer's velocity ring and the time it started counting: it holds every record saved since then.
+     */
+    private static final class VelocityRing {
+        final SlidingWindowCounter counter;
+        final long trackedFromMillis;
+        volatile long lastSaveMillis;
+
+        VelocityRing(SlidingWindowCounter counter, long trackedFromMillis) {
+            this.counter = counter;
+            this.trackedFromMillis = trackedFromMillis;
+            this.lastSaveMillis = trackedFromMillis;
+        }
+    }
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    /**
+     * A store without retention, with a 10 minute velocity ring.
+     */
+    public RocksDbHistoryStore(Path directory, boolean syncWrites) {
+        this(directory, syncWrites, Long.MAX_VALUE, 1_000, 61, 10_000);
+    }
+
+    /**
+     * @param maxAgeMillis             Records are deleted by the sweep once older than this
+     * @param sweepBatchSize           Customers visited per sweep
+     * @param velocityBuckets          Buckets in each customer's velocity ring
+     * @param velocityResolutionMillis Time span of one bucket
+     */
+    public RocksDbHistoryStore(Path directory, boolean syncWrites, long maxAgeMillis, int sweepBatchSize,
+                               int velocityBuckets, long velocityResolutionMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+        this.sweepBatchSize = sweepBatchSize;
+        this.velocityBuckets = velocityBuckets;
+        this.velocityResolutionMillis = velocityResolutionMillis;
+        try {
+            Files.createDirectories(directory);
+
+            // Range scans stay within one customer: a prefix bloom filter on the customer key skips files without them
+            ColumnFamilyOptions recordOptions = track(new ColumnFamilyOptions()
+                    .useFixedLengthPrefixExtractor(KEY_BYTES)
+                    .setTableFormatConfig(new BlockBasedTableConfig()
+                            .setFilterPolicy(track(new BloomFilter(10)))
+                            .setWholeKeyFiltering(false)));
+            ColumnFamilyOptions visitedOptions = track(new ColumnFamilyOptions()
+                    .setTableFormatConfig(new BlockBasedTableConfig().setFilterPolicy(track(new BloomFilter(10)))));
+            ColumnFamilyOptions defaultOptions = track(new ColumnFamilyOptions());
+            DBOptions dbOptions = track(new DBOptions()
+                    .setCreateIfMissing(true)
+                    .setCreateMissingColumnFamilies(true));
+
+            List<ColumnFamilyHandle> handles = new ArrayList<>();
+            db = track(RocksDB.open(dbOptions, directory.toString(), List.of(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultOptions),
+                    new ColumnFamilyDescriptor(bytes("records"), recordOptions),
+                    new ColumnFamilyDescriptor(bytes("visited"), visitedOptions),
+                    new ColumnFamilyDescriptor(bytes("customers"), defaultOptions)), handles));
+            handles.forEach(this::track);
+            metadata = handles.get(0);
+            records = handles.get(1);
+            visited = handles.get(2);
+            customers = handles.get(3);
+            writeOptions = track(new WriteOptions().setSync(syncWrites));
+
+            byte[] saved = db.get(metadata, SEQUENCE);
+            long clock = System.currentTimeMillis() << 20;
+            sequence = new AtomicLong(saved == null ? clock : Math.max(clock, ByteBuffer.wrap(saved).getLong()));
+        } catch (IOException ex) {
+            closeQuietly();
+            throw new UncheckedIOException("Cannot create RocksDB history directory " + directory, ex);
+        } catch (RocksDBException ex) {
+            closeQuietly();
+            throw failure("Cannot open RocksDB history in " + directory, ex);
+        }
+    }
+
+    /**
+     * Writes the record, the customer's visited location and the customer in one atomic batch, then counts it in the
+     * customer's velocity ring.
+     */
+    @Override
+    public void saveTransaction(TransactionRecord record) {
+        long customerKey = record.getCustomerKey();
+        long timestamp = HistoryTime.toEpochMillis(record.getTimestamp());
+        long now = System.currentTimeMillis();
+        VelocityRing ring = velocity.computeIfAbsent(customerKey, k -> new VelocityRing(
+                new SlidingWindowCounter(velocityBuckets, velocityResolutionMillis), now));
+
+        ByteBuffer value = ByteBuffer.allocate(TransactionRecordCodec.maxEncodedSize(record));
+        TransactionRecordCodec.encode(record, value);
+        try (WriteBatch batch = new WriteBatch()) {
+            batch.put(records, recordKey(customerKey, timestamp, sequence.getAndIncrement()),
+                    Arrays.copyOf(value.array(), value.position()));
+            batch.put(visited, visitedKey(customerKey, record.getCity(), record.getState()), EMPTY);
+            batch.put(customers, longBytes(customerKey), bytes(record.getCustomerName()));
+            db.write(writeOptions, batch);
+        } catch (RocksDBException ex) {
+            throw failure("Cannot save transaction to RocksDB history", ex);
+        }
+
+        ring.counter.record(timestamp);
+        ring.lastSaveMillis = now;
+    }
+
+    @Override
+    public List<TransactionRecord> getCustomerHistory(long customerKey) {
+        return scan(customerKey, Long.MIN_VALUE);
+    }
+
+    @Override
+    public List<TransactionRecord> getRecentTransactions(long customerKey, LocalDateTime since) {
+        return scan(customerKey, HistoryTime.toEpochMillis(since) + 1);
+    }
+
+    /**
+     * Answered from the customer's velocity ring, plus a scan of the bucket the window starts in, when the ring has been
+     * tracking the customer since before the window started; otherwise counts the keys in the window (without reading the records).
+     */
+    @Override
+    public long countRecentTransactions(long customerKey, LocalDateTime since) {
+        long sinceMillis = HistoryTime.toEpochMillis(since);
+        long now = System.currentTimeMillis();
+        VelocityRing ring = velocity.get(customerKey);
+        if (ring != null && sinceMillis >= ring.trackedFromMillis && ring.counter.covers(sinceMillis, now)) {
+            return ring.counter.countAfterBucketOf(sinceMillis, now)
+                    + countKeys(customerKey, sinceMillis + 1, recordKey(customerKey, ring.counter.bucketEnd(sinceMillis), 0));
+        }
+        return countKeys(customerKey, sinceMillis + 1, recordKey(customerKey, Long.MAX_VALUE, -1));
+    }
+
+    @Override
+    public boolean hasVisitedLocation(long customerKey, String city, String state) {
+        try {
+            return db.get(visited, visitedKey(customerKey, city, state)) != null;
+        } catch (RocksDBException ex) {
+            throw failure("Cannot read RocksDB history", ex);
+        }
+    }
+
+    /**
+     * RocksDB's estimate, which can be off until overwritten keys are compacted away.
+     */
+    @Override
+    public long customerCount() {
+        return estimateKeys(customers);
+    }
+
+    /**
+     * RocksDB's estimate of the number of records.
+     */
+    @Override
+    public long recordCount() {
+        return estimateKeys(records);
+    }
+
+    /**
+     * Not tracked (see tracksLargestCustomer): it would take a per-customer counter updated on every save.
+     */
+    @Override
+    public int largestCustomerRecords() {
+        return 0;
+    }
+
+    @Override
+    public boolean tracksLargestCustomer() {
+        return false;
+    }
+
+    @Override
+    public long expiredRecords() {
+        return expiredRecords.get();
+    }
+
+    @Override
+    public long evictedCustomers() {
+        return evictedCustomers.get();
+    }
+
+    /**
+     * Expires the records of the next batch of customers, then drops the velocity rings of a batch of idle customers.
+     */
+    @Override
+    public synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        if (maxAgeMillis != Long.MAX_VALUE) {
+            expireBatch(now - maxAgeMillis);
+        }
+
+        long span = (long) velocityBuckets * velocityResolutionMillis;
+        for (int checked = 0; checked < sweepBatchSize; checked++) {
+            if (ringCursor == null || !ringCursor.hasNext()) {
+                ringCursor = velocity.iterator();
+                if (!ringCursor.hasNext()) {
+                    break;
+                }
+            }
+            LongKeyedMap.Entry<VelocityRing> entry = ringCursor.next();
+            if (now - entry.value().lastSaveMillis > span) {
+                velocity.remove(entry.key(), entry.value()); // Counts nothing any more; a new save starts a new ring
+            }
+        }
+    }
+
+    /**
+     * Saves where the sequence stopped, so a store reopened right away does not reuse it. After a crash the clock seed
+     * alone has to do, which it does unless more than a million records a millisecond were saved.
+     */
+    @Override
+    public void close() {
+        if (!resources.isEmpty()) {
+            try {
+                db.put(metadata, writeOptions, SEQUENCE, longBytes(sequence.get()));
+            } catch (RocksDBException ex) {
+                // Still close: the clock seed covers a missing mark
+            }
+        }
+        closeQuietly();
+    }
+
+    /**
+     * Visits customers in key order from where the last sweep stopped, wrapping around once the end is reached.
+     */
+    private void expireBatch(long cutoffMillis) {
+        try (RocksIterator iterator = db.newIterator(customers)) {
+            if (sweepPosition == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(sweepPosition);
+            }
+            for (int swept = 0; swept < sweepBatchSize && iterator.isValid(); swept++) {
+                long customerKey = ByteBuffer.wrap(iterator.key()).getLong();
+                expire(customerKey, cutoffMillis);
+                iterator.next();
+            }
+            sweepPosition = iterator.isValid() ? iterator.key() : null;
+            iterator.status();
+        } catch (RocksDBException ex) {
+            throw failure("Cannot expire RocksDB history", ex);
+        }
+    }
+
+    /**
+     * Deletes the customer's records before the cutoff with one range delete, and the visited locations only those
+     * records had (or the customer itself, if nothing is left). Saves running meanwhile are not locked out: any record
+     * written after the live records were read has its location and customer entries put back afterwards.
+     */
+    private void expire(long customerKey, long cutoffMillis) throws RocksDBException {
+        byte[] cutoffKey = recordKey(customerKey, cutoffMillis, 0);
+        long expired = countKeys(customerKey, Long.MIN_VALUE, cutoffKey);
+        if (expired == 0) {
+            return;
+        }
+
+        // Visited locations first, so any location saved after this read also has its record in the scan below
+        List<byte[]> visitedBefore = new ArrayList<>();
+        try (Slice upperBound = new Slice(visitedEnd(customerKey));
+             ReadOptions readOptions = new ReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(visited, readOptions)) {
+            for (iterator.seek(longBytes(customerKey)); iterator.isValid(); iterator.next()) {
+                visitedBefore.add(iterator.key());
+            }
+            iterator.status();
+        }
+
+        Set<String> liveLocations = new HashSet<>();
+        byte[] lastSeen = null;
+        try (Slice upperBound = new Slice(recordKey(customerKey, Long.MAX_VALUE, -1));
+             ReadOptions readOptions = new ReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(records, readOptions)) {
+            for (iterator.seek(cutoffKey); iterator.isValid(); iterator.next()) {
+                TransactionRecord record = TransactionRecordCodec.decode(ByteBuffer.wrap(iterator.value()));
+                liveLocations.add(LocationDictionary.key(record.getCity(), record.getState()));
+                lastSeen = iterator.key();
+            }
+            iterator.status();
+        }
+
+        try (WriteBatch batch = new WriteBatch()) {
+            batch.deleteRange(records, recordKey(customerKey, Long.MIN_VALUE, 0), cutoffKey);
+            for (byte[] visitedKey : visitedBefore) {
+                String location = new String(visitedKey, KEY_BYTES, visitedKey.length - KEY_BYTES, StandardCharsets.UTF_8);
+                if (!liveLocations.contains(location)) {
+                    batch.delete(visited, visitedKey);
+                }
+            }
+            if (lastSeen == null) {
+                batch.delete(customers, longBytes(customerKey));
+            }
+            db.write(writeOptions, batch);
+        }
+        expiredRecords.addAndGet(expired);
+
+        boolean savedSince = restoreSavedSince(customerKey, lastSeen != null ? lastSeen : cutoffKey);
+        if (lastSeen == null && !savedSince) {
+            evictedCustomers.incrementAndGet();
+        }
+    }
+
+    /**
+     * Puts back the visited location and customer entries of records after the given key.
+     *
+     * @return whether there were any
+     */
+    private boolean restoreSavedSince(long customerKey, byte[] afterKey) throws RocksDBException {
+        boolean restored = false;
+        try (Slice upperBound = new Slice(recordKey(customerKey, Long.MAX_VALUE, -1));
+             ReadOptions readOptions = new ReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(records, readOptions);
+             WriteBatch batch = new WriteBatch()) {
+            for (iterator.seek(afterKey); iterator.isValid(); iterator.next()) {
+                if (Arrays.equals(iterator.key(), afterKey)) {
+                    continue;
+                }
+                TransactionRecord record = TransactionRecordCodec.decode(ByteBuffer.wrap(iterator.value()));
+                batch.put(visited, visitedKey(customerKey, record.getCity(), record.getState()), EMPTY);
+                batch.put(customers, longBytes(customerKey), bytes(record.getCustomerName()));
+                restored = true;
+            }
+            iterator.status();
+            if (restored) {
+                db.write(writeOptions, batch);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Counts the customer's keys from the given time up to (not including) the upper bound, without reading the records.
+     */
+    private long countKeys(long customerKey, long fromMillis, byte[] upperKey) {
+        long count = 0;
+        try (Slice upperBound = new Slice(upperKey);
+             ReadOptions readOptions = new ReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(records, readOptions)) {
+            for (iterator.seek(recordKey(customerKey, fromMillis, 0)); iterator.isValid(); iterator.next()) {
+                count++;
+            }
+            iterator.status();
+        } catch (RocksDBException ex) {
+            throw failure("Cannot read RocksDB history", ex);
+        }
+        return count;
+    }
+
+    private List<TransactionRecord> scan(long customerKey, long fromMillis) {
+        List<TransactionRecord> found = new ArrayList<>();
+        try (Slice upperBound = new Slice(recordKey(customerKey, Long.MAX_VALUE, -1));
+             ReadOptions readOptions = new ReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(records, readOptions)) {
+            for (iterator.seek(recordKey(customerKey, fromMillis, 0)); iterator.isValid(); iterator.next()) {
+                TransactionRecord record = TransactionRecordCodec.decode(ByteBuffer.wrap(iterator.value()));
+                record.setCustomerKey(customerKey);
+                found.add(record);
+            }
+            iterator.status();
+        } catch (RocksDBException ex) {
+            throw failure("Cannot read RocksDB history", ex);
+        }
+        return found;
+    }
+
+    private long estimateKeys(ColumnFamilyHandle columnFamily) {
+        try {
+            return db.getLongProperty(columnFamily, "rocksdb.estimate-num-keys");
+        } catch (RocksDBException ex) {
+            throw failure("Cannot read RocksDB history statistics", ex);
+        }
+    }
+
+    static byte[] recordKey(long customerKey, long epochMillis, long sequence) {
+        return ByteBuffer.allocate(RECORD_KEY_BYTES)
+                .putLong(customerKey)
+                .putLong(epochMillis ^ Long.MIN_VALUE)
+                .putLong(sequence)
+                .array();
+    }
+
+    static byte[] visitedKey(long customerKey, String city, String state) {
+        byte[] location = bytes(LocationDictionary.key(city, state));
+        return ByteBuffer.allocate(KEY_BYTES + location.length).putLong(customerKey).put(location).array();
+    }
+
+    /**
+     * Sorts after every visited key of the customer: 0xFF never occurs in UTF-8.
+     */
+    private static byte[] visitedEnd(long customerKey) {
+        return ByteBuffer.allocate(KEY_BYTES + 1).putLong(customerKey).put(NO_UTF8).array();
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private <T extends AutoCloseable> T track(T resource) {
+        resources.add(resource);
+        return resource;
+    }
+
+    /**
+     * Releases the native handles in reverse order of creation: column families before the database, options last.
+     */
+    private void closeQuietly() {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            try {
+                resources.get(i).close();
+            } catch (Exception ignored) {
+                // Nothing useful left to do with a handle that fails to close
+            }
+        }
+        resources.clear();
+    }
+
+    private static UncheckedIOException failure(String message, RocksDBException ex) {
+        return new UncheckedIOException(message, new IOException(ex));
+    }
+}
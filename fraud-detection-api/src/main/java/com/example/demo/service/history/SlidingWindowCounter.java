@@ -0,0 +1,125 @@
+package com.example.demo.service.history;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-bucketed ring buffer that counts events in a sliding window.
+ * Each slot packs the bucket number and its event count into a single long, so recording an event is one CAS and counting is a fixed scan over the ring, independent of how many events were ever recorded.
+ * The bucket containing the start of a window is only partly inside it, so the ring leaves it out (see countAfterBucketOf)
+ * and callers count that part from the records themselves.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long resolutionMillis;
+    private final int buckets;
+
+    // Each slot holds (bucketNumber << COUNT_BITS) | count
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter(int buckets, long resolutionMillis) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be greater than zero");
+        }
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Bucket resolution must be greater than zero");
+        }
+        this.buckets = buckets;
+        this.resolutionMillis = resolutionMillis;
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    /**
+     * Records one event at the given time.
+     * Events older than the bucket currently occupying their slot have already left the window and are ignored.
+     */
+    public void record(long epochMillis) {
+        long bucket = Math.floorDiv(epochMillis, resolutionMillis);
+        int slot = (int) Math.floorMod(bucket, (long) buckets);
+
+        while (true) {
+            long current = slots.get(slot);
+            long currentBucket = current >>> COUNT_BITS;
+            long next;
+
+            if (currentBucket == bucket) {
+                if ((current & COUNT_MASK) == COUNT_MASK) {
+                    return; // Saturated, a velocity alert has long since fired
+                }
+                next = current + 1;
+            } else if (currentBucket < bucket) {
+                // Slot still holds an expired bucket - reuse it
+                next = (bucket << COUNT_BITS) | 1;
+            } else {
+                return;
+            }
+
+            if (slots.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Counts events recorded in the buckets after the one containing sinceMillis, up to nowMillis.
+     * Events in sinceMillis's own bucket, i.e. before bucketEnd(sinceMillis), are not included.
+     */
+    public long countAfterBucketOf(long sinceMillis, long nowMillis) {
+        long newest = Math.floorDiv(nowMillis, resolutionMillis);
+        long oldest = Math.floorDiv(sinceMillis, resolutionMillis) + 1;
+
+        long total = 0;
+        for (int i = 0; i < buckets; i++) {
+            long value = slots.get(i);
+            long bucket = value >>> COUNT_BITS;
+            if (bucket >= oldest && bucket <= newest) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Start of the bucket after the one containing the given time.
+     */
+    public long bucketEnd(long epochMillis) {
+        return (Math.floorDiv(epochMillis, resolutionMillis) + 1) * resolutionMillis;
+    }
+
+    /**
+     * Whether every bucket after the one containing sinceMillis is still in the ring, i.e. countAfterBucketOf can answer
+     * a window starting at sinceMillis. A ring of window / resolution + 1 buckets covers any window up to that length.
+     */
+    public boolean covers(long sinceMillis, long nowMillis) {
+        long newest = Math.floorDiv(nowMillis, resolutionMillis);
+        return Math.floorDiv(sinceMillis, resolutionMillis) >= newest - buckets;
+    }
+
+    public long spanMillis() {
+        return resolutionMillis * buckets;
+    }
+
+    /**
+     * Copies the packed slots, e.g. to persist them in a snapshot.
+     */
+    public long[] toArray() {
+        long[] copy = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            copy[i] = slots.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Rebuilds a counter from slots returned by toArray on a counter with the same buckets and resolution.
+     */
+    public static SlidingWindowCounter fromArray(long[] packedSlots, long resolutionMillis) {
+        SlidingWindowCounter counter = new SlidingWindowCounter(packedSlots.length, resolutionMillis);
+        for (int i = 0; i < packedSlots.length; i++) {
+            counter.slots.set(i, packedSlots[i]);
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.service.history;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-way dictionary between strings and dense positive int ids.
+ * Lookups in both directions are lock-free; assigning a new id is serialized, which is rare once the working set of values has been seen.
+ */
+public final class StringDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Index 0 is unused so that 0 can mean "no value" in columns
+    private volatile String[] values = new String[64];
+    private int nextId = 1;
+
+    /**
+     * Returns the id for a value, assigning a new one if it has not been seen before.
+     */
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        return assign(value);
+    }
+
+    /**
+     * Returns the id for a value, or 0 if it has never been interned.
+     */
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id != null ? id : 0;
+    }
+
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private synchronized int assign(String value) {
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = nextId++;
+        String[] current = values;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = value;
+        values = current;
+
+        // Published after the reverse entry is in place, so valueOf never sees a missing id
+        ids.put(value, id);
+        return id;
+    }
+}
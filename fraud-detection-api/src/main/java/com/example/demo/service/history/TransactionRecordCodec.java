@@ -0,0 +1,111 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of a TransactionRecord, shared by the write-ahead log and snapshots.
+ * Layout: timestamp as epoch millis (8 bytes), amount as IEEE double (8 bytes), then customer, city, state, IP address and merchant as varint-length-prefixed UTF-8.
+ * String lengths are stored plus one so that null round-trips as length 0; every field round-trips exactly (timestamps to the millisecond).
+ */
+public final class TransactionRecordCodec {
+
+    private TransactionRecordCodec() {
+    }
+
+    /**
+     * Upper bound on the encoded size of a record, used to size buffers before encoding.
+     */
+    public static int maxEncodedSize(TransactionRecord record) {
+        return 16 + maxStringSize(record.getCustomerName()) + maxStringSize(record.getCity())
+                + maxStringSize(record.getState()) + maxStringSize(record.getIpAddress())
+                + maxStringSize(record.getMerchantName());
+    }
+
+    public static void encode(TransactionRecord record, ByteBuffer target) {
+        target.putLong(HistoryTime.toEpochMillis(record.getTimestamp()));
+        target.putDouble(record.getAmount() != null ? record.getAmount() : Double.NaN);
+        putString(target, record.getCustomerName());
+        putString(target, record.getCity());
+        putString(target, record.getState());
+        putString(target, record.getIpAddress());
+        putString(target, record.getMerchantName());
+    }
+
+    /**
+     * Decodes one record from the buffer's current position.
+     *
+     * @throws IllegalArgumentException if the bytes do not form a complete record
+     */
+    public static TransactionRecord decode(ByteBuffer source) {
+        try {
+            long timestamp = source.getLong();
+            double amount = source.getDouble();
+            String customerName = getString(source);
+            String city = getString(source);
+            String state = getString(source);
+            String ipAddress = getString(source);
+            String merchantName = getString(source);
+
+            return new TransactionRecord(customerName, city, state, Double.isNaN(amount) ? null : amount,
+                    HistoryTime.fromEpochMillis(timestamp), ipAddress, merchantName);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Truncated transaction record", ex);
+        }
+    }
+
+    static int maxStringSize(String value) {
+        // varint length (<= 5 bytes) + worst-case UTF-8 expansion
+        return value == null ? 1 : 5 + value.length() * 3;
+    }
+
+    static void putString(ByteBuffer target, String value) {
+        if (value == null) {
+            putVarInt(target, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // Length is stored +1 so that 0 can mean null
+        putVarInt(target, bytes.length + 1);
+        target.put(bytes);
+    }
+
+    static String getString(ByteBuffer source) {
+        int length = getVarInt(source);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > source.remaining()) {
+            throw new IllegalArgumentException("Truncated transaction record");
+        }
+        byte[] bytes = new byte[length - 1];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarInt(ByteBuffer target, int value) {
+        while ((value & ~0x7F) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        target.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer source) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = source.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed length in transaction record");
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of transaction records in memory-mapped segment files.
+ * Each entry is [payload length][CRC32C of payload][payload encoded by TransactionRecordCodec]; segments are pre-sized and zero-filled, so a zero length marks the end of a segment and a bad checksum marks a torn write.
+ * Appending is an encode into a thread-local buffer plus a memory copy under a short lock. Durability follows the fsync policy:
+ * ALWAYS waits until the entry is forced to disk (concurrent writers share one force - group commit), INTERVAL forces in the background, NEVER leaves it to the OS.
+ */
+@Slf4j
+public final class WriteAheadLog implements Closeable {
+
+    public enum FsyncPolicy {
+        ALWAYS,
+        INTERVAL,
+        NEVER
+    }
+
+    /**
+     * Outcome of replaying the log on startup.
+     */
+    public record ReplayResult(long records, long bytes, int segments) {
+    }
+
+    private static final int ENTRY_HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledExecutorService flusher;
+
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+
+    // Guards the current segment; held only for the copy into the mapped buffer
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+
+    // Log position (segmentIndex * segmentBytes + offset) just after the last written entry
+    private volatile long writtenPosition;
+
+    // Guards forcing; whoever holds it forces everything written so far on behalf of all waiters
+    private final Object syncLock = new Object();
+    private long durablePosition;
+
+    public WriteAheadLog(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy, Duration fsyncInterval) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = listSegments();
+            // New entries always go to a fresh segment after anything left by a previous run
+            this.segmentIndex = existing.isEmpty() ? 0 : segmentIndexOf(existing.get(existing.size() - 1)) + 1;
+            // Everything before the fresh segment belongs to previous runs, so a snapshot taken now covers it
+            this.writtenPosition = segmentIndex * (long) segmentBytes;
+            this.durablePosition = writtenPosition;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, ex);
+        }
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, fsyncInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Appends a record and returns the log position just after it.
+     * Under the ALWAYS policy this returns only once the record is on disk.
+     */
+    public long append(TransactionRecord record) {
+        ByteBuffer entry = encode(record);
+        if (entry.remaining() > segmentBytes) {
+            throw new IllegalArgumentException("Transaction record is larger than a log segment");
+        }
+
+        long position;
+        synchronized (writeLock) {
+            try {
+                if (segment == null || segment.remaining() < entry.remaining()) {
+                    rollSegment();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot roll write-ahead log segment", ex);
+            }
+            segment.put(entry);
+            position = segmentIndex * segmentBytes + segment.position();
+            writtenPosition = position;
+        }
+
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            sync(position);
+        }
+        return position;
+    }
+
+    /**
+     * Blocks until everything up to the given position is on disk.
+     */
+    public void sync(long position) {
+        synchronized (syncLock) {
+            if (durablePosition >= position) {
+                return; // Another writer's force already covered this entry
+            }
+
+            long target;
+            MappedByteBuffer current;
+            synchronized (writeLock) {
+                target = writtenPosition;
+                current = segment;
+            }
+            if (current != null) {
+                current.force();
+            }
+            durablePosition = target;
+        }
+    }
+
+    /**
+     * Replays every complete entry left by previous runs, oldest first.
+     * Must be called before the first append; replay stops at the first zero length or bad checksum in a segment.
+     */
+    public ReplayResult replay(Consumer<TransactionRecord> consumer) {
+        return replay(0, consumer);
+    }
+
+    /**
+     * Replays the entries left by previous runs that end after the given log position (e.g. the tail after a snapshot).
+     */
+    public ReplayResult replay(long fromPosition, Consumer<TransactionRecord> consumer) {
+        long records = 0;
+        long bytes = 0;
+        int segments = 0;
+
+        try {
+            for (Path path : listSegments()) {
+                long index = segmentIndexOf(path);
+                if (index >= segmentIndex || (index + 1) * segmentBytes <= fromPosition) {
+                    continue;
+                }
+                long segmentStart = index * segmentBytes;
+                segments++;
+                try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    MappedByteBuffer mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                    CRC32C crc = new CRC32C();
+
+                    while (mapped.remaining() >= ENTRY_HEADER_BYTES) {
+                        int length = mapped.getInt();
+                        int checksum = mapped.getInt();
+                        if (length <= 0 || length > mapped.remaining()) {
+                            break;
+                        }
+
+                        ByteBuffer payload = mapped.slice(mapped.position(), length);
+                        crc.reset();
+                        crc.update(payload.duplicate());
+                        if ((int) crc.getValue() != checksum) {
+                            log.warn("Write-ahead log {} has a torn entry at offset {}; ignoring the rest of the segment",
+                                    path.getFileName(), mapped.position() - ENTRY_HEADER_BYTES);
+                            break;
+                        }
+
+                        mapped.position(mapped.position() + length);
+                        if (segmentStart + mapped.position() <= fromPosition) {
+                            continue; // Already covered by the snapshot
+                        }
+                        consumer.accept(TransactionRecordCodec.decode(payload));
+                        records++;
+                        bytes += ENTRY_HEADER_BYTES + length;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot replay write-ahead log in " + directory, ex);
+        }
+
+        return new ReplayResult(records, bytes, segments);
+    }
+
+    /**
+     * Deletes segments that lie entirely before the given log position (e.g. once a snapshot covers them).
+     */
+    public void deleteSegmentsBefore(long position) throws IOException {
+        long firstNeeded = position / segmentBytes;
+        for (Path path : listSegments()) {
+            if (segmentIndexOf(path) < firstNeeded) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Position just after the last written entry.
+     */
+    public long writtenPosition() {
+        return writtenPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        synchronized (writeLock) {
+            if (segment != null) {
+                segment.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private ByteBuffer encode(TransactionRecord record) {
+        int required = ENTRY_HEADER_BYTES + TransactionRecordCodec.maxEncodedSize(record);
+        ByteBuffer buffer = scratch.get();
+        if (buffer.capacity() < required) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(required) << 1);
+            scratch.set(buffer);
+        }
+
+        buffer.clear();
+        buffer.position(ENTRY_HEADER_BYTES);
+        TransactionRecordCodec.encode(record, buffer);
+        int length = buffer.position() - ENTRY_HEADER_BYTES;
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), ENTRY_HEADER_BYTES, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Closes the current segment (forcing it unless the policy is NEVER) and maps the next one.
+     */
+    private void rollSegment() throws IOException {
+        if (segment != null) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                segment.force();
+            }
+            channel.close();
+            segmentIndex++;
+        }
+
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentIndex, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        log.debug("Opened write-ahead log segment {}", path.getFileName());
+    }
+
+    private void flushQuietly() {
+        try {
+            sync(writtenPosition);
+        } catch (RuntimeException ex) {
+            log.warn("Background write-ahead log flush failed", ex);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static long segmentIndexOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
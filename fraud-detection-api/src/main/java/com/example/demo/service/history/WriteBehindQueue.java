@@ -0,0 +1,257 @@
+package com.example.demo.service.history;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded queue drained by a single writer thread that applies items in batches, in the order they were offered (so per-key order is kept).
+ * Every key tracks how many of its items are still queued, so a reader can wait for its own key's writes without waiting for the whole queue (read-your-writes).
+ * Waiting readers are parked on their key's entry and unparked only when that key's last queued item is applied, so a batch wakes nobody else.
+ * When the queue is full, offers either block until there is room or drop the item, depending on the overflow policy; both events are counted.
+ */
+@Slf4j
+public final class WriteBehindQueue<T> implements Closeable {
+
+    public enum OverflowPolicy {
+        /**
+         * The caller waits for room (backpressure onto the request thread)
+         */
+        BLOCK,
+
+        /**
+         * The item is discarded and counted
+         */
+        DROP
+    }
+
+    // How often an idle writer checks whether the queue was closed
+    private static final long IDLE_POLL_MILLIS = 50;
+
+    private final BlockingQueue<T> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Function<T, ?> keyOf;
+    private final Consumer<List<T>> applier;
+    private final Thread writer;
+
+    // key -> items offered but not yet applied and the readers waiting for them; absent means none
+    private final Map<Object, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong staleReads = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public WriteBehindQueue(String name, int capacity, int batchSize, OverflowPolicy overflowPolicy,
+                            Function<T, ?> keyOf, Consumer<List<T>> applier) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.keyOf = keyOf;
+        this.applier = applier;
+        this.writer = new Thread(this::drain, name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues an item for the writer.
+     *
+     * @return false if the item was dropped because the queue was full (DROP policy) or the queue is closed
+     */
+    public boolean offer(T item) {
+        if (closed) {
+            return false;
+        }
+
+        Object key = keyOf.apply(item);
+        // Counted before it is visible to the writer, so the writer's decrement can never come first
+        pending.compute(key, (k, entry) -> {
+            Pending counted = entry != null ? entry : new Pending();
+            counted.count++;
+            return counted;
+        });
+
+        if (queue.offer(item)) {
+            return true;
+        }
+
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            dropped.incrementAndGet();
+            applied(key);
+            return false;
+        }
+
+        blocked.incrementAndGet();
+        try {
+            queue.put(item);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            applied(key);
+            return false;
+        }
+    }
+
+    /**
+     * Waits until every item offered for the key so far has been applied, or the timeout expires.
+     *
+     * @return false if the wait timed out (the caller reads possibly stale data; counted as a stale read)
+     */
+    public boolean awaitApplied(Object key, long timeoutNanos) {
+        if (!pending.containsKey(key)) {
+            return true; // Fast path: nothing of this key in flight
+        }
+
+        Thread reader = Thread.currentThread();
+        // Registered under the key's map lock, so the writer either sees this reader or has already removed the entry
+        Pending awaited = pending.computeIfPresent(key, (k, entry) -> {
+            if (entry.waiters == null) {
+                entry.waiters = new ArrayList<>(2);
+            }
+            entry.waiters.add(reader);
+            return entry;
+        });
+        if (awaited == null) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + timeoutNanos;
+        try {
+            // Items offered meanwhile join the same entry, so it goes away only once all of them are applied
+            while (pending.get(key) == awaited) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    staleReads.incrementAndGet();
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    reader.interrupt();
+                    staleReads.incrementAndGet();
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            pending.computeIfPresent(key, (k, entry) -> {
+                if (entry == awaited) {
+                    entry.waiters.remove(reader);
+                }
+                return entry;
+            });
+        }
+    }
+
+    /**
+     * Items waiting to be applied.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Offers that had to wait for room (BLOCK policy).
+     */
+    public long blocked() {
+        return blocked.get();
+    }
+
+    /**
+     * Reads that gave up waiting for their key's writes.
+     */
+    public long staleReads() {
+        return staleReads.get();
+    }
+
+    /**
+     * Stops accepting items, applies everything already queued and stops the writer.
+     * The writer is not interrupted: an applier doing channel I/O on an interrupted thread would have its channel closed
+     * and lose the rest of the drain, so the writer notices the closed flag on its next idle poll instead.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (true) {
+            T first;
+            try {
+                first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                continue; // close() does not interrupt the writer; whatever did, keep draining
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+
+            try {
+                applier.accept(batch);
+            } catch (RuntimeException ex) {
+                log.error("Write-behind batch of {} items failed", batch.size(), ex);
+            }
+
+            for (T item : batch) {
+                applied(keyOf.apply(item));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Counts one item of the key as applied; the last one removes the key's entry and wakes the readers parked on it.
+     */
+    private void applied(Object key) {
+        Pending[] done = new Pending[1];
+        pending.computeIfPresent(key, (k, entry) -> {
+            if (--entry.count > 0) {
+                return entry;
+            }
+            done[0] = entry;
+            return null;
+        });
+        // Unparked only once the entry is gone from the map, so a woken reader cannot find it again and park for nothing
+        if (done[0] != null && done[0].waiters != null) {
+            for (Thread reader : done[0].waiters) {
+                LockSupport.unpark(reader);
+            }
+        }
+    }
+
+    /**
+     * A key's queued items and parked readers; only changed inside the map's compute for that key.
+     */
+    private static final class Pending {
+        int count;
+        List<Thread> waiters; // null until a reader waits
+    }
+}
@@ -2,6 +2,8 @@ package com.example.demo.controller;
 
 import com.example.demo.model.dto.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -9,7 +11,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -126,7 +132,26 @@ class FraudDetectionControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.signals[0].details").isArray())
-                .andExpect(jsonPath("$.signals[0].details", not(empty())));
+                .andExpect(jsonPath("$.signals[0].details", not(empty())))
+                .andExpect(jsonPath("$.signals[0].reasons[0].code").exists());
+    }
+    
+    @Test
+    void shouldReturnReasonCodesWithoutDetails_WhenCompactRequested() throws Exception {
+        // Arrange
+        TransactionRequest request = createFraudulentTransaction();
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/score-transaction")
+                .param("compact", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ruleVersion").exists())
+                .andExpect(jsonPath("$.signals", hasSize(4)))
+                .andExpect(jsonPath("$.signals[*].potentialFraud").exists())
+                .andExpect(jsonPath("$.signals[*].reasons[*].code", hasItem("IP_BLOCKLISTED")))
+                .andExpect(jsonPath("$.signals[*].details").doesNotExist());
     }
     
     @Test
@@ -144,6 +169,170 @@ class FraudDetectionControllerIntegrationTest {
                 .andExpect(jsonPath("$.signals[?(@.signal=='cardDetails')].potentialFraud").value(false));
     }
     
+    @Test
+    void shouldScoreBatch_WithPerItemValidationErrors() throws Exception {
+        // Arrange: One valid item, one with a negative amount
+        TransactionRequest invalid = createNormalTransaction();
+        invalid.getPaymentDetails().setCardAmount(-50.0);
+        List<TransactionRequest> batch = List.of(createNormalTransaction(), invalid);
+        
+        // Act & Assert
+        mockMvc.perform(post("/api/score-transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(2)))
+                .andExpect(jsonPath("$.results[0].index").value(0))
+                .andExpect(jsonPath("$.results[0].signals", hasSize(4)))
+                .andExpect(jsonPath("$.results[0].errors").doesNotExist())
+                .andExpect(jsonPath("$.results[1].index").value(1))
+                .andExpect(jsonPath("$.results[1].errors[0]", containsString("cardAmount")))
+                .andExpect(jsonPath("$.results[1].signals").doesNotExist());
+    }
+    
+    @Test
+    void shouldReturnBadRequest_ForEmptyBatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/score-transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.messages").isArray());
+    }
+    
+    @Test
+    void shouldStreamOneResultPerLine_ForNdjsonRequest() throws Exception {
+        // Arrange: Valid line, malformed line, blank line, invalid line
+        TransactionRequest invalid = createNormalTransaction();
+        invalid.getTransactionDetails().setPurchasedItemCount(-1);
+        String body = objectMapper.writeValueAsString(createNormalTransaction()) + "\n"
+                + "{invalid json}\n"
+                + "\n"
+                + objectMapper.writeValueAsString(invalid) + "\n";
+        
+        // Act
+        String content = mockMvc.perform(post("/api/score-transactions/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        
+        // Assert: One output line per non-blank input line, in order
+        String[] lines = content.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(4, objectMapper.readTree(lines[0]).get("signals").size());
+        assertEquals("Malformed JSON Request", objectMapper.readTree(lines[1]).get("error").asText());
+        assertEquals(400, objectMapper.readTree(lines[2]).get("status").asInt());
+        assertTrue(objectMapper.readTree(lines[2]).get("messages").get(0).asText().startsWith("line 4: "));
+    }
+    
+    @Test
+    void shouldAnswerErrorLine_ForOverLongNdjsonLine() throws Exception {
+        // Arrange: A line past the default 65,536-character limit between two valid lines
+        String valid = objectMapper.writeValueAsString(createNormalTransaction());
+        String body = valid + "\n"
+                + "{\"padding\":\"" + "x".repeat(100_000) + "\"}\n"
+                + valid + "\n";
+        
+        // Act
+        String content = mockMvc.perform(post("/api/score-transactions/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        
+        // Assert: The long line is skipped with an error and the stream carries on
+        String[] lines = content.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(4, objectMapper.readTree(lines[0]).get("signals").size());
+        assertEquals("Line Too Long", objectMapper.readTree(lines[1]).get("error").asText());
+        assertTrue(objectMapper.readTree(lines[1]).get("messages").get(0).asText().startsWith("line 2: "));
+        assertEquals(4, objectMapper.readTree(lines[2]).get("signals").size());
+    }
+    
+    @Test
+    void shouldScoreTransaction_InCbor() throws Exception {
+        // Arrange
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        byte[] body = cbor.writeValueAsBytes(createFraudulentTransaction());
+        
+        // Act
+        byte[] content = mockMvc.perform(post("/api/score-transaction")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        // Assert: Same DTO, binary encoding
+        FraudScoreResponse response = cbor.readValue(content, FraudScoreResponse.class);
+        assertEquals(4, response.getSignals().size());
+        assertTrue(response.getSignals().stream()
+                .anyMatch(signal -> signal.getSignal().equals("ipAddress") && signal.getPotentialFraud()));
+    }
+    
+    @Test
+    void shouldScoreTransaction_InSmile() throws Exception {
+        // Arrange
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        MediaType smileType = MediaType.valueOf("application/x-jackson-smile");
+        
+        // Act
+        byte[] content = mockMvc.perform(post("/api/score-transaction")
+                .contentType(smileType)
+                .accept(smileType)
+                .content(smile.writeValueAsBytes(createNormalTransaction())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        // Assert
+        assertEquals(4, smile.readValue(content, FraudScoreResponse.class).getSignals().size());
+    }
+    
+    @Test
+    void shouldDefaultToJson_WhenClientAcceptsAnything() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/score-transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.ALL)
+                .content(objectMapper.writeValueAsString(createNormalTransaction())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+    
+    @Test
+    void shouldReturnServerTiming_WhenTimingRequested() throws Exception {
+        // Act & Assert: Every stage is reported, in the header and in the body
+        mockMvc.perform(post("/api/score-transaction")
+                .header("X-Server-Timing", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createNormalTransaction())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", allOf(containsString("bind;dur="),
+                        containsString("validation;dur="), containsString("eval-location;dur="),
+                        containsString("history-read;dur="), containsString("history-write;dur="),
+                        containsString("total;dur="))))
+                .andExpect(jsonPath("$.timing.bind").isNumber())
+                .andExpect(jsonPath("$.timing['eval-transaction']").isNumber())
+                .andExpect(jsonPath("$.timing.total").isNumber());
+    }
+    
+    @Test
+    void shouldNotReturnServerTiming_ByDefault() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/score-transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createNormalTransaction())))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"))
+                .andExpect(jsonPath("$.timing").doesNotExist());
+    }
+    
     // Helper methods
     private TransactionRequest createNormalTransaction() {
         Location location = new Location("Boston", "MA");
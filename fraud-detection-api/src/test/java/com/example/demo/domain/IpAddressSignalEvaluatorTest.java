@@ -1,9 +1,13 @@
 package com.example.demo.domain;
 
+import com.example.demo.config.IpReputationProperties;
 import com.example.demo.model.dto.*;
+import com.example.demo.service.IpBlocklistService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -16,7 +20,7 @@ class IpAddressSignalEvaluatorTest {
     
     @BeforeEach
     void setUp() {
-        evaluator = new IpAddressSignalEvaluator();
+        evaluator = new IpAddressSignalEvaluator(new IpReputationProperties(), new IpBlocklistService());
     }
     
     @Test
@@ -91,6 +95,64 @@ class IpAddressSignalEvaluatorTest {
                 "Should detect private IP starting with 172");
     }
     
+    @Test
+    void shouldNotDetectPrivateNetwork_OutsideRfc1918Range() {
+        // Arrange: 172.32.0.0 is just past 172.16.0.0/12
+        TransactionRequest request = createTransactionRequest("172.32.0.1");
+        
+        // Act
+        FraudSignal signal = evaluator.evaluate(request);
+        
+        // Assert
+        assertTrue(signal.getDetails().stream()
+                .noneMatch(detail -> detail.contains("private network")),
+                "Should not flag public 172.x addresses as private");
+    }
+    
+    @Test
+    void shouldDetectFraud_WhenBlacklistedIpIsWrittenAsIpv4MappedIpv6() {
+        // Arrange
+        TransactionRequest request = createTransactionRequest("::ffff:192.168.1.100");
+        
+        // Act
+        FraudSignal signal = evaluator.evaluate(request);
+        
+        // Assert
+        assertTrue(signal.getPotentialFraud(), "Should match IPv4-mapped addresses against IPv4 blocks");
+    }
+    
+    @Test
+    void shouldDetectFraud_WhenIpv6AddressIsInConfiguredBlock() {
+        // Arrange
+        IpReputationProperties properties = new IpReputationProperties();
+        properties.setBlocklist(List.of("2001:db8::/32", "203.0.113.0/24"));
+        IpAddressSignalEvaluator configured = new IpAddressSignalEvaluator(properties, new IpBlocklistService());
+        
+        // Act
+        FraudSignal ipv6 = configured.evaluate(createTransactionRequest("2001:db8:abcd::7"));
+        FraudSignal ipv4 = configured.evaluate(createTransactionRequest("203.0.113.45"));
+        FraudSignal clean = configured.evaluate(createTransactionRequest("2001:4860::8888"));
+        
+        // Assert
+        assertTrue(ipv6.getPotentialFraud());
+        assertTrue(ipv4.getPotentialFraud());
+        assertFalse(clean.getPotentialFraud());
+    }
+    
+    @Test
+    void shouldNotDetectFraud_WhenIpIsMalformed() {
+        // Arrange
+        TransactionRequest request = createTransactionRequest("999.1.1.1");
+        
+        // Act
+        FraudSignal signal = evaluator.evaluate(request);
+        
+        // Assert
+        assertFalse(signal.getPotentialFraud());
+        assertTrue(signal.getDetails().stream()
+                .anyMatch(detail -> detail.contains("not a valid IPv4 or IPv6 address")));
+    }
+    
     // Helper method
     private TransactionRequest createTransactionRequest(String ipAddress) {
         Location location = new Location("Boston", "MA");
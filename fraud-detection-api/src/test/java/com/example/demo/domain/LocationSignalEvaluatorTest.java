@@ -9,6 +9,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -29,7 +30,7 @@ class LocationSignalEvaluatorTest {
         evaluator = new LocationSignalEvaluator(historyService);
         
         // Default: Mock that customer has visited location before (to isolate location mismatch tests)
-        when(historyService.hasVisitedLocation(anyString(), anyString(), anyString())).thenReturn(true);
+        when(historyService.hasVisitedLocation(anyLong(), anyString(), anyString())).thenReturn(true);
     }
     
     @Test
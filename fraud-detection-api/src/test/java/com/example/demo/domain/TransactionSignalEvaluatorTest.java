@@ -1,6 +1,8 @@
 package com.example.demo.domain;
 
+import com.example.demo.domain.rules.RuleSet;
 import com.example.demo.model.dto.*;
+import com.example.demo.service.RuleSetService;
 import com.example.demo.service.TransactionHistoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,7 +14,7 @@ import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 
 /**
@@ -32,7 +34,7 @@ class TransactionSignalEvaluatorTest {
         evaluator = new TransactionSignalEvaluator(historyService);
         
         // Default: Mock normal velocity (0 recent transactions)
-        when(historyService.countRecentTransactions(anyString(), any(LocalDateTime.class))).thenReturn(0L);
+        when(historyService.countRecentTransactions(anyLong(), any(LocalDateTime.class))).thenReturn(0L);
     }
     
     @Test
@@ -92,6 +94,25 @@ class TransactionSignalEvaluatorTest {
         assertTrue(signal.getPotentialFraud(), "Should flag just over threshold");
     }
     
+    @Test
+    void shouldUseThresholdsFromCurrentRuleSet() {
+        // Arrange: Rules with a higher amount limit and a longer velocity window
+        RuleSetService ruleSetService = new RuleSetService();
+        TransactionSignalEvaluator configured = new TransactionSignalEvaluator(historyService, ruleSetService);
+        RuleSet rules = new RuleSet("test-rules",
+                new RuleSet.TransactionRules(2000.0, 10, 500.0, false, 3, 30),
+                RuleSet.defaults().location());
+        TransactionRequest request = createTransactionRequest(1500.0, 2);
+        
+        // Act
+        FraudSignal signal = ruleSetService.withRuleSet(rules, () -> configured.evaluate(request));
+        
+        // Assert
+        assertFalse(signal.getPotentialFraud(), "1500 is under the configured 2000 limit");
+        assertTrue(signal.getDetails().stream()
+                .anyMatch(detail -> detail.contains("in last 30 minutes")));
+    }
+    
     // Helper method
     private TransactionRequest createTransactionRequest(double amount, int itemCount) {
         Location location = new Location("Boston", "MA");
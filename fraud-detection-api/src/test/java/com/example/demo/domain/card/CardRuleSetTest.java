@@ -0,0 +1,97 @@
+package com.example.demo.domain.card;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CardRuleSet.
+ * Tests the compiled suffix table, rule actions and the denylist name check.
+ */
+class CardRuleSetTest {
+
+    @Test
+    void shouldMatchRepeatedDigitsAndSequentialRuns() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder().build();
+
+        // Act & Assert
+        assertEquals(List.of(CardRuleSet.Rule.REPEATED_DIGITS), CardRuleSet.rules(ruleSet.match("0000", "Jane Doe")));
+        assertEquals(List.of(CardRuleSet.Rule.REPEATED_DIGITS), CardRuleSet.rules(ruleSet.match("7777", "Jane Doe")));
+        assertEquals(List.of(CardRuleSet.Rule.SEQUENTIAL_RUN), CardRuleSet.rules(ruleSet.match("0123", "Jane Doe")));
+        assertEquals(List.of(CardRuleSet.Rule.SEQUENTIAL_RUN), CardRuleSet.rules(ruleSet.match("9876", "Jane Doe")));
+        assertEquals(0, ruleSet.match("1235", "Jane Doe"));
+        assertEquals(0, ruleSet.match("8901", "Jane Doe"), "Runs do not wrap around from 9 to 0");
+    }
+
+    @Test
+    void shouldFlagOnlyRulesWithFlagAction() {
+        // Arrange: Sequential runs and test cards are advisory by default
+        CardRuleSet ruleSet = CardRuleSet.builder().build();
+
+        // Act & Assert
+        assertTrue(ruleSet.flags(ruleSet.match("5555", "Jane Doe")));
+        assertFalse(ruleSet.flags(ruleSet.match("1234", "Jane Doe")));
+    }
+
+    @Test
+    void shouldNotMatchDisabledRules() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder()
+                .action(CardRuleSet.Rule.REPEATED_DIGITS, CardRuleSet.Action.OFF)
+                .build();
+
+        // Act & Assert
+        assertEquals(0, ruleSet.match("5555", "Jane Doe"));
+    }
+
+    @Test
+    void shouldMatchTestCardSuffixes_AsAdvisoryByDefault() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder().testCardSuffix("4242").build();
+
+        // Act
+        int matched = ruleSet.match("4242", "Jane Doe");
+
+        // Assert
+        assertEquals(List.of(CardRuleSet.Rule.TEST_CARD), CardRuleSet.rules(matched));
+        assertFalse(ruleSet.flags(matched));
+    }
+
+    @Test
+    void shouldFlagTestCardSuffixes_WhenConfiguredToFlag() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder()
+                .testCardSuffix("4242")
+                .action(CardRuleSet.Rule.TEST_CARD, CardRuleSet.Action.FLAG)
+                .build();
+
+        // Act & Assert
+        assertTrue(ruleSet.flags(ruleSet.match("4242", "Jane Doe")));
+    }
+
+    @Test
+    void shouldMatchDenylistOnlyForDenylistedName() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder().denylist("4821", "John Doe").build();
+
+        // Act & Assert
+        assertEquals(List.of(CardRuleSet.Rule.DENYLISTED_NAME), CardRuleSet.rules(ruleSet.match("4821", "  JOHN DOE ")));
+        assertEquals(0, ruleSet.match("4821", "Jane Doe"));
+        assertEquals(0, ruleSet.match("4822", "John Doe"));
+    }
+
+    @Test
+    void shouldNotMatchMalformedSuffixes() {
+        // Arrange
+        CardRuleSet ruleSet = CardRuleSet.builder().build();
+
+        // Act & Assert
+        assertEquals(0, ruleSet.match("111", "Jane Doe"));
+        assertEquals(0, ruleSet.match("11111", "Jane Doe"));
+        assertEquals(0, ruleSet.match("1a11", "Jane Doe"));
+        assertThrows(IllegalArgumentException.class, () -> CardRuleSet.builder().testCardSuffix("42"));
+    }
+}
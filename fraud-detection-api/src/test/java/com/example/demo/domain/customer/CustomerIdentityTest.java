@@ -0,0 +1,55 @@
+package com.example.demo.domain.customer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CustomerIdentity.
+ * Tests that spellings of the same name share a key and that the ASCII fast path agrees with full normalization.
+ */
+class CustomerIdentityTest {
+
+    @Test
+    void shouldGiveSameKey_ForCaseAndWhitespaceVariants() {
+        // Arrange
+        long key = CustomerIdentity.keyOf("John Smith");
+
+        // Act & Assert
+        assertEquals(key, CustomerIdentity.keyOf("JOHN SMITH"));
+        assertEquals(key, CustomerIdentity.keyOf("  john   smith "));
+        assertEquals(key, CustomerIdentity.keyOf("John\tSmith"));
+        assertNotEquals(key, CustomerIdentity.keyOf("John Smyth"));
+        assertNotEquals(key, CustomerIdentity.keyOf("JohnSmith"));
+    }
+
+    @Test
+    void shouldNormalizeUnicodeForms() {
+        // Arrange: full-width letters, a no-break space, a decomposed accent and a sharp s
+        String fullWidth = "\uFF2A\uFF2F\uFF28\uFF2E smith";
+        String noBreakSpace = "John\u00A0Smith";
+        String decomposed = "Jose\u0301 Garci\u0301a";
+
+        // Act & Assert
+        assertEquals(CustomerIdentity.keyOf("john smith"), CustomerIdentity.keyOf(fullWidth));
+        assertEquals(CustomerIdentity.keyOf("john smith"), CustomerIdentity.keyOf(noBreakSpace));
+        assertEquals(CustomerIdentity.keyOf("JOS\u00C9 GARC\u00CDA"), CustomerIdentity.keyOf(decomposed));
+        assertEquals("strasse", CustomerIdentity.normalize("Stra\u00DFe"));
+        assertEquals(CustomerIdentity.keyOf("STRASSE"), CustomerIdentity.keyOf("Stra\u00DFe"));
+    }
+
+    @Test
+    void shouldAgreeWithNormalizedForm_OnAsciiFastPath() {
+        // Arrange
+        String name = "  Mary  Ann   O'Neil ";
+
+        // Act
+        String normalized = CustomerIdentity.normalize(name);
+
+        // Assert
+        assertEquals("mary ann o'neil", normalized);
+        assertEquals(CustomerIdentity.keyOf(normalized), CustomerIdentity.keyOf(name));
+        assertNotEquals(CustomerIdentity.NO_KEY, CustomerIdentity.keyOf(name));
+        assertNotEquals(CustomerIdentity.NO_KEY, CustomerIdentity.keyOf(""));
+    }
+}
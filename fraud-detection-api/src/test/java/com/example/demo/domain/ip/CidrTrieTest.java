@@ -0,0 +1,152 @@
+package com.example.demo.domain.ip;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CidrTrie and IpAddress.
+ * Tests address parsing for both families and longest-prefix matching of CIDR blocks.
+ */
+class CidrTrieTest {
+
+    @Test
+    void shouldParseIpv4AndIpv6Addresses() {
+        // Arrange
+        IpAddress address = new IpAddress();
+
+        // Act & Assert
+        assertTrue(address.parse("203.0.113.7"));
+        assertTrue(address.isIpv4());
+        assertEquals(0xCB00_7107L, address.ipv4());
+
+        assertTrue(address.parse("2001:db8::1"));
+        assertFalse(address.isIpv4());
+        assertEquals(0x2001_0DB8_0000_0000L, address.high());
+        assertEquals(1L, address.low());
+
+        assertTrue(address.parse("::"));
+        assertEquals(0L, address.high());
+        assertEquals(0L, address.low());
+
+        assertTrue(address.parse("64:ff9b::192.0.2.33"));
+        assertFalse(address.isIpv4());
+        assertEquals(0xC000_0221L, address.low());
+    }
+
+    @Test
+    void shouldTreatIpv4MappedAddressesAsIpv4() {
+        // Arrange
+        IpAddress plain = new IpAddress();
+        IpAddress mapped = new IpAddress();
+
+        // Act
+        plain.parse("10.0.0.1");
+        mapped.parse("::ffff:10.0.0.1");
+
+        // Assert
+        assertTrue(mapped.isIpv4());
+        assertEquals(plain.high(), mapped.high());
+        assertEquals(plain.low(), mapped.low());
+        assertEquals("10.0.0.1", mapped.toString());
+    }
+
+    @Test
+    void shouldRejectMalformedAddresses() {
+        // Arrange
+        IpAddress address = new IpAddress();
+        String[] malformed = {"", "1.2.3", "1.2.3.256", "1.2.3.4.5", "1.2.3.4a", ":1", "1:", "1::2::3",
+                "12345::", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7:8::", "fe80::1%eth0", "[::1]", "not-an-ip"};
+
+        // Act & Assert
+        for (String text : malformed) {
+            assertFalse(address.parse(text), "Should reject " + text);
+        }
+    }
+
+    @Test
+    void shouldReturnMostSpecificMatchingBlock() {
+        // Arrange
+        CidrTrie trie = new CidrTrie();
+        trie.add("10.0.0.0/8", 1);
+        trie.add("10.1.0.0/16", 2);
+        trie.add("10.1.2.3", 3);
+        trie.add("2001:db8::/32", 4);
+
+        // Act & Assert
+        assertEquals(1, lookup(trie, "10.200.0.1"));
+        assertEquals(2, lookup(trie, "10.1.9.9"));
+        assertEquals(3, lookup(trie, "10.1.2.3"));
+        assertEquals(3, lookup(trie, "::ffff:10.1.2.3"));
+        assertEquals(4, lookup(trie, "2001:db8:ffff::1"));
+        assertEquals(CidrTrie.NO_MATCH, lookup(trie, "11.0.0.1"));
+        assertEquals(CidrTrie.NO_MATCH, lookup(trie, "2001:db9::1"));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    void shouldMatchOnlyInsideBlockBoundaries() {
+        // Arrange: 172.16.0.0/12 covers 172.16.0.0 - 172.31.255.255
+        CidrTrie trie = new CidrTrie();
+        trie.add("172.16.0.0/12", 1);
+
+        // Act & Assert
+        assertEquals(CidrTrie.NO_MATCH, lookup(trie, "172.15.255.255"));
+        assertEquals(1, lookup(trie, "172.16.0.0"));
+        assertEquals(1, lookup(trie, "172.31.255.255"));
+        assertEquals(CidrTrie.NO_MATCH, lookup(trie, "172.32.0.0"));
+    }
+
+    @Test
+    void shouldAgreeWithLinearScan_ForRandomBlocks() {
+        // Arrange
+        Random random = new Random(42);
+        int count = 2_000;
+        long[] networks = new long[count];
+        int[] lengths = new int[count];
+        CidrTrie trie = new CidrTrie(count);
+        for (int i = 0; i < count; i++) {
+            lengths[i] = 8 + random.nextInt(25);
+            networks[i] = (random.nextInt() & 0xFFFF_FFFFL) & (0xFFFF_FFFFL << (32 - lengths[i]));
+            trie.add(0, IpAddress.IPV4_MAPPED_PREFIX | networks[i], 96 + lengths[i], i);
+        }
+
+        // Act & Assert
+        for (int query = 0; query < 5_000; query++) {
+            long address = query % 2 == 0
+                    ? networks[random.nextInt(count)] | random.nextInt(256)
+                    : random.nextInt() & 0xFFFF_FFFFL;
+
+            int expected = CidrTrie.NO_MATCH;
+            int expectedLength = -1;
+            for (int i = 0; i < count; i++) {
+                long mask = 0xFFFF_FFFFL << (32 - lengths[i]) & 0xFFFF_FFFFL;
+                if ((address & mask) == networks[i] && lengths[i] >= expectedLength) {
+                    expected = i;
+                    expectedLength = lengths[i];
+                }
+            }
+            assertEquals(expected, trie.lookup(0, IpAddress.IPV4_MAPPED_PREFIX | address));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidBlocks() {
+        // Arrange
+        CidrTrie trie = new CidrTrie();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> trie.add("10.0.0.0/33", 1));
+        assertThrows(IllegalArgumentException.class, () -> trie.add("10.0.0/8", 1));
+        assertThrows(IllegalArgumentException.class, () -> trie.add("2001:db8::/129", 1));
+        assertThrows(IllegalArgumentException.class, () -> trie.add("10.0.0.0/x", 1));
+    }
+
+    private static int lookup(CidrTrie trie, String text) {
+        IpAddress address = new IpAddress();
+        assertTrue(address.parse(text), "Should parse " + text);
+        return trie.lookup(address);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.domain.ip;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IpBlocklistTable.
+ * Tests compiling a feed, exact-match lookups and rejecting damaged tables.
+ */
+class IpBlocklistTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldContainEveryFeedAddressAndNothingElse() throws IOException {
+        // Arrange: Random IPv4 and IPv6 addresses, with duplicates, comments and blank lines
+        Random random = new Random(7);
+        Set<String> blocked = new HashSet<>();
+        List<String> lines = new ArrayList<>(List.of("# threat feed", ""));
+        for (int i = 0; i < 20_000; i++) {
+            String address = i % 4 == 0
+                    ? "2001:db8::" + Integer.toHexString(random.nextInt(1 << 16))
+                    : "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            blocked.add(address);
+            lines.add(address);
+            if (i % 100 == 0) {
+                lines.add("  " + address + "  ");
+            }
+        }
+        Path feed = writeFeed(lines);
+
+        // Act
+        IpBlocklistTable.CompileResult result = IpBlocklistTable.compile(feed, directory.resolve("feed.idx"));
+        IpBlocklistTable table = IpBlocklistTable.open(result.table());
+
+        // Assert
+        assertEquals(blocked.size(), table.size());
+        assertEquals(0, result.invalidLines());
+        IpAddress address = new IpAddress();
+        for (String text : blocked) {
+            address.parse(text);
+            assertTrue(table.contains(address), "Should contain " + text);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            String text = "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(256);
+            address.parse(text);
+            assertEquals(blocked.contains(text), table.contains(address), text);
+        }
+    }
+
+    @Test
+    void shouldSkipLinesThatAreNotAddresses() throws IOException {
+        // Arrange
+        Path feed = writeFeed(List.of("203.0.113.7", "not-an-ip", "203.0.113.0/24", "::ffff:198.51.100.1"));
+
+        // Act
+        IpBlocklistTable.CompileResult result = IpBlocklistTable.compile(feed, directory.resolve("feed.idx"));
+        IpBlocklistTable table = IpBlocklistTable.open(result.table());
+
+        // Assert
+        assertEquals(2, table.size());
+        assertEquals(2, result.invalidLines());
+        assertTrue(contains(table, "198.51.100.1"), "IPv4-mapped feed entries should match plain IPv4");
+        assertFalse(contains(table, "203.0.113.8"));
+        assertTrue(table.isCompiledFrom(feed));
+    }
+
+    @Test
+    void shouldBuildSameBloomFilter_WhenFeedRepeatsAddresses() throws IOException {
+        // Arrange: 100 addresses, each listed 100 times, and the same addresses listed once
+        List<String> distinct = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            distinct.add("10.0." + i / 256 + "." + i % 256);
+        }
+        List<String> repeated = new ArrayList<>();
+        for (int copy = 0; copy < 100; copy++) {
+            repeated.addAll(distinct);
+        }
+
+        // Act
+        Path repeatedTable = IpBlocklistTable.compile(writeFeed(repeated), directory.resolve("repeated.idx")).table();
+        Path distinctTable = IpBlocklistTable.compile(writeFeed(distinct), directory.resolve("distinct.idx")).table();
+
+        // Assert: No leftover entry bytes in the filter, so at most 7 bits per address are set
+        long[] repeatedBloom = bloomWords(repeatedTable);
+        assertArrayEquals(bloomWords(distinctTable), repeatedBloom);
+        long bitsSet = Arrays.stream(repeatedBloom).map(Long::bitCount).sum();
+        assertTrue(bitsSet <= 100 * 7, "Bloom filter has " + bitsSet + " bits set");
+        assertTrue(contains(IpBlocklistTable.open(repeatedTable), "10.0.0.99"));
+    }
+
+    @Test
+    void shouldCompileEmptyFeed() throws IOException {
+        // Arrange
+        Path feed = writeFeed(List.of("# nothing yet"));
+
+        // Act
+        IpBlocklistTable table = IpBlocklistTable.open(IpBlocklistTable.compile(feed, directory.resolve("feed.idx")).table());
+
+        // Assert
+        assertEquals(0, table.size());
+        assertFalse(contains(table, "203.0.113.7"));
+    }
+
+    @Test
+    void shouldRejectTruncatedTable() throws IOException {
+        // Arrange
+        Path feed = writeFeed(List.of("203.0.113.7", "203.0.113.8"));
+        Path table = IpBlocklistTable.compile(feed, directory.resolve("feed.idx")).table();
+        byte[] bytes = Files.readAllBytes(table);
+        Files.write(table, Arrays.copyOf(bytes, bytes.length - 8));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> IpBlocklistTable.open(table));
+    }
+
+    private Path writeFeed(List<String> lines) throws IOException {
+        return Files.write(directory.resolve("feed.txt"), lines);
+    }
+
+    /**
+     * The Bloom filter words of a table file, which follow the header (48 bytes) and the 16-byte entries.
+     */
+    private static long[] bloomWords(Path table) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(table)).order(ByteOrder.LITTLE_ENDIAN);
+        long count = bytes.getLong(8);
+        long[] words = new long[(int) bytes.getLong(16)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = bytes.getLong((int) (48 + count * 16) + i * 8);
+        }
+        return words;
+    }
+
+    private static boolean contains(IpBlocklistTable table, String text) {
+        IpAddress address = new IpAddress();
+        assertTrue(address.parse(text));
+        return table.contains(address);
+    }
+}
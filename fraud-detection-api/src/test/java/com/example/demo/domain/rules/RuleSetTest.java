@@ -0,0 +1,83 @@
+package com.example.demo.domain.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RuleSet.
+ * Tests compiling rule files, defaults for rules left out and rejecting invalid files.
+ */
+class RuleSetTest {
+
+    @Test
+    void shouldCompileRuleFile() {
+        // Arrange
+        String yaml = """
+                version: "2025-06-01.1"
+                transaction:
+                  high-amount: 2500
+                  high-item-count: 20
+                  high-price-per-item: 750.5
+                  flag-high-price-per-item: true
+                  velocity:
+                    threshold: 5
+                    window-minutes: 15
+                location:
+                  flag-merchant-mismatch: false
+                  flag-new-location: true
+                """;
+
+        // Act
+        RuleSet rules = RuleSet.parse(new StringReader(yaml));
+
+        // Assert
+        assertEquals("2025-06-01.1", rules.version());
+        assertEquals(new RuleSet.TransactionRules(2500.0, 20, 750.5, true, 5, 15), rules.transaction());
+        assertEquals(new RuleSet.LocationRules(false, true), rules.location());
+        assertTrue(rules.transaction().isHighAmount(2500.01));
+        assertFalse(rules.transaction().isHighAmount(2500.0));
+        assertTrue(rules.transaction().isHighVelocity(5));
+    }
+
+    @Test
+    void shouldKeepBuiltInValues_ForRulesLeftOut() {
+        // Arrange
+        String yaml = """
+                version: 7
+                transaction:
+                  high-amount: 300.0
+                """;
+
+        // Act
+        RuleSet rules = RuleSet.parse(new StringReader(yaml));
+
+        // Assert
+        RuleSet defaults = RuleSet.defaults();
+        assertEquals("7", rules.version());
+        assertEquals(300.0, rules.transaction().highAmount());
+        assertEquals(defaults.transaction().highItemCount(), rules.transaction().highItemCount());
+        assertEquals(defaults.transaction().velocityThreshold(), rules.transaction().velocityThreshold());
+        assertEquals(defaults.location(), rules.location());
+    }
+
+    @Test
+    void shouldRejectInvalidRuleFiles() {
+        // Act & Assert
+        assertInvalid("transaction:\n  high-amount: 300.0\n", "no version");
+        assertInvalid("version: 2025-06-01\n", "quote it");
+        assertInvalid("version: 1\ntransaction:\n  high-amonut: 300.0\n", "Unknown rule transaction.high-amonut");
+        assertInvalid("version: 1\ntransaction:\n  high-item-count: 2.5\n", "must be a whole number");
+        assertInvalid("version: 1\ntransaction:\n  high-amount: -1\n", "greater than zero");
+        assertInvalid("version: 1\nlocation:\n  flag-new-location: maybe\n", "true or false");
+        assertInvalid("version: 1\ntransaction: [1, 2\n", "not valid YAML");
+    }
+
+    private static void assertInvalid(String yaml, String expectedMessage) {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> RuleSet.parse(new StringReader(yaml)));
+        assertTrue(ex.getMessage().contains(expectedMessage), ex.getMessage());
+    }
+}
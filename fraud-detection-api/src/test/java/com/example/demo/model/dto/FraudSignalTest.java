@@ -0,0 +1,47 @@
+package com.example.demo.model.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FraudSignal and its reason codes.
+ */
+class FraudSignalTest {
+
+    @Test
+    void shouldRenderDetailsFromReasons() {
+        // Arrange
+        FraudSignal signal = FraudSignal.of("transaction", true, List.of(
+                Reason.of(ReasonCode.AMOUNT_HIGH, 1500.0, 1000.0),
+                Reason.of(ReasonCode.VELOCITY_HIGH, 4L, 10)));
+
+        // Act
+        List<String> details = signal.getDetails();
+
+        // Assert
+        assertEquals(List.of(
+                "Transaction amount ($1500.00) exceeds normal threshold ($1000.00)",
+                "Velocity alert: 4 transactions in last 10 minutes"), details);
+        assertSame(details, signal.getDetails(), "Details should be rendered only once");
+    }
+
+    @Test
+    void shouldShareReasonsWithoutParams() {
+        // Act & Assert
+        assertSame(Reason.of(ReasonCode.IP_NOT_LISTED), Reason.of(ReasonCode.IP_NOT_LISTED));
+        assertEquals("Card details appear legitimate", Reason.of(ReasonCode.CARD_LEGITIMATE).render());
+    }
+
+    @Test
+    void shouldKeepFreeTextDetails_WhenCreatedWithoutReasons() {
+        // Arrange
+        FraudSignal signal = new FraudSignal("location", false, List.of("OK"));
+
+        // Act & Assert
+        assertEquals(List.of("OK"), signal.getDetails());
+        assertTrue(signal.getReasons().isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.config.ScoringProperties;
+import com.example.demo.model.dto.*;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BatchScoringService.
+ * Uses a mocked FraudDetectionService and the real bean validator.
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchScoringServiceTest {
+
+    private static final TransactionRequestValidator VALIDATOR =
+            new TransactionRequestValidator(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Mock
+    private FraudDetectionService fraudDetectionService;
+
+    private ScoringProperties properties;
+    private BatchScoringService service;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ScoringProperties();
+        service = new BatchScoringService(fraudDetectionService, VALIDATOR, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void shouldReportValidationErrorsPerItem() {
+        // Arrange: Middle item has a negative amount
+        TransactionRequest invalid = createRequest("Jane Doe", 10.0);
+        invalid.getPaymentDetails().setCardAmount(-5.0);
+        List<TransactionRequest> batch = List.of(createRequest("John Doe", 10.0), invalid, createRequest("Bob Roe", 20.0));
+        when(fraudDetectionService.scoreTransaction(any())).thenReturn(
+                new FraudScoreResponse(List.of(new FraudSignal("location", false, List.of("OK"))), "built-in"));
+
+        // Act
+        BatchScoreResponse response = service.scoreTransactions(batch);
+
+        // Assert: Results in request order, only the invalid item rejected
+        assertEquals(3, response.getResults().size());
+        assertEquals(0, response.getResults().get(0).getIndex());
+        assertNotNull(response.getResults().get(0).getSignals());
+        assertEquals(List.of("paymentDetails.cardAmount: Transaction amount must be greater than zero"),
+                response.getResults().get(1).getErrors());
+        assertNull(response.getResults().get(1).getSignals());
+        assertNotNull(response.getResults().get(2).getSignals());
+        verify(fraudDetectionService, times(2)).scoreTransaction(any());
+    }
+
+    @Test
+    void shouldScoreSameCustomerInRequestOrder() {
+        // Arrange: Interleaved customers; amounts identify the items
+        List<TransactionRequest> batch = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            batch.add(createRequest(i % 2 == 0 ? "John Doe" : "Jane Doe", i));
+        }
+        List<Double> johnOrder = Collections.synchronizedList(new ArrayList<>());
+        when(fraudDetectionService.scoreTransaction(any())).thenAnswer(invocation -> {
+            TransactionRequest request = invocation.getArgument(0);
+            if (request.getCustomerName().equals("John Doe")) {
+                johnOrder.add(request.getPaymentDetails().getCardAmount());
+            }
+            return new FraudScoreResponse(List.of(), "built-in");
+        });
+
+        // Act
+        service.scoreTransactions(batch);
+
+        // Assert
+        assertEquals(List.of(2.0, 4.0, 6.0, 8.0, 10.0, 12.0, 14.0, 16.0, 18.0, 20.0), johnOrder);
+    }
+
+    @Test
+    void shouldRejectBatchLargerThanMaximum() {
+        // Arrange
+        properties.getBatch().setMaxItems(2);
+        List<TransactionRequest> batch = List.of(
+                createRequest("A", 1.0), createRequest("B", 1.0), createRequest("C", 1.0));
+
+        // Act & Assert
+        assertThrows(InvalidBatchException.class, () -> service.scoreTransactions(batch));
+        assertThrows(InvalidBatchException.class, () -> service.scoreTransactions(List.of()));
+        verifyNoInteractions(fraudDetectionService);
+    }
+
+    // Helper method
+    private TransactionRequest createRequest(String customer, double amount) {
+        Location location = new Location("Boston", "MA");
+        return new TransactionRequest(
+                customer,
+                "8.8.8.8",
+                location,
+                new PaymentDetails("4567", customer, amount),
+                new TransactionDetails("Store", location, 1)
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.domain.customer.CustomerIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CustomerShards.
+ * Tests that one customer's tasks never overlap, that results and failures reach the caller, and that queues and waits are bounded.
+ */
+class CustomerShardsTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void shouldRunOneCustomersTasksOneAfterAnother() throws Exception {
+        // Arrange: An unsynchronized read-then-write, which loses updates if two tasks overlap
+        CustomerShards shards = new CustomerShards(4, 1_024);
+        long customerKey = CustomerIdentity.keyOf("John Doe");
+        int[] counter = new int[1];
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return shards.call(customerKey, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    int seen = counter[0];
+                    counter[0] = seen + 1;
+                    running.decrementAndGet();
+                    return seen;
+                }, TIMEOUT);
+            }));
+        }
+
+        // Act
+        start.countDown();
+        boolean[] seen = new boolean[1_000];
+        for (Future<Integer> result : results) {
+            seen[result.get(10, TimeUnit.SECONDS)] = true;
+        }
+        callers.shutdown();
+        shards.close();
+
+        // Assert: Every task saw a different count, none was lost
+        assertEquals(1_000, counter[0]);
+        assertEquals(1, maxRunning.get());
+        for (boolean value : seen) {
+            assertTrue(value);
+        }
+    }
+
+    @Test
+    void shouldRouteEachCustomerToOneShard_AndSpreadCustomers() {
+        // Arrange
+        CustomerShards shards = new CustomerShards(8, 1_024);
+        int[] perShard = new int[8];
+
+        // Act
+        for (int i = 0; i < 8_000; i++) {
+            long key = CustomerIdentity.keyOf("Customer " + i);
+            assertEquals(shards.shardOf(key), shards.shardOf(key));
+            perShard[shards.shardOf(key)]++;
+        }
+        shards.close();
+
+        // Assert: Roughly 1,000 customers per shard
+        for (int count : perShard) {
+            assertTrue(count > 800 && count < 1_200, "Uneven shard: " + count);
+        }
+    }
+
+    @Test
+    void shouldRethrowTaskFailure_OnCallerThread() throws Exception {
+        // Arrange
+        CustomerShards shards = new CustomerShards(2, 1_024);
+
+        // Act & Assert
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> shards.call(1L, () -> {
+                    throw new IllegalArgumentException("bad request");
+                }, TIMEOUT));
+        int answer = shards.call(1L, () -> 42, TIMEOUT);
+        shards.close();
+        assertEquals("bad request", thrown.getMessage());
+        assertEquals(42, answer);
+    }
+
+    @Test
+    void shouldRejectTasks_WhenShardQueueIsFull() throws Exception {
+        // Arrange: One task holds the shard thread, one more fills its queue
+        CustomerShards shards = new CustomerShards(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> shards.call(1L, () -> release.await(10, TimeUnit.SECONDS), TIMEOUT));
+        Thread.sleep(100);
+        callers.submit(() -> shards.call(1L, () -> true, TIMEOUT));
+        Thread.sleep(100);
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> shards.call(1L, () -> true, TIMEOUT));
+        release.countDown();
+        callers.shutdown();
+        shards.close();
+    }
+
+    @Test
+    void shouldTimeOut_AndStillRunTheTaskInItsTurn() throws Exception {
+        // Arrange: The shard thread is held past the caller's timeout
+        CustomerShards shards = new CustomerShards(1, 8);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        caller.submit(() -> shards.call(1L, () -> release.await(10, TimeUnit.SECONDS), TIMEOUT));
+        Thread.sleep(100);
+
+        // Act
+        assertThrows(TimeoutException.class, () -> shards.call(1L, () -> {
+            ran.countDown();
+            return true;
+        }, Duration.ofMillis(50)));
+        release.countDown();
+
+        // Assert
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        caller.shutdown();
+        shards.close();
+    }
+}
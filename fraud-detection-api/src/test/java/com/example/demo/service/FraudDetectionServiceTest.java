@@ -1,14 +1,26 @@
 package com.example.demo.service;
 
+import com.example.demo.config.ScoringProperties;
 import com.example.demo.domain.*;
+import com.example.demo.domain.rules.RuleSet;
 import com.example.demo.model.dto.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,13 +52,17 @@ class FraudDetectionServiceTest {
     
     @BeforeEach
     void setUp() {
-        service = new FraudDetectionService(
-                locationEvaluator,
-                ipAddressEvaluator,
-                transactionEvaluator,
-                cardDetailsEvaluator,
-                historyService
-        );
+        // Pipeline metadata as declared by the real evaluators
+        lenient().when(locationEvaluator.name()).thenReturn("location");
+        lenient().when(locationEvaluator.cost()).thenReturn(SignalEvaluator.COST_HISTORY);
+        lenient().when(ipAddressEvaluator.name()).thenReturn("ipAddress");
+        lenient().when(ipAddressEvaluator.cost()).thenReturn(SignalEvaluator.COST_STATELESS);
+        lenient().when(transactionEvaluator.name()).thenReturn("transaction");
+        lenient().when(transactionEvaluator.cost()).thenReturn(SignalEvaluator.COST_HISTORY);
+        lenient().when(cardDetailsEvaluator.name()).thenReturn("cardDetails");
+        lenient().when(cardDetailsEvaluator.cost()).thenReturn(SignalEvaluator.COST_STATELESS + 1);
+        
+        service = new FraudDetectionService(evaluators(), historyService);
     }
     
     @Test
@@ -100,6 +116,27 @@ class FraudDetectionServiceTest {
         assertEquals(4, response.getSignals().size(), "Should return exactly 4 signals");
     }
     
+    @Test
+    void shouldReportRuleVersion() {
+        // Arrange
+        TransactionRequest request = createSampleRequest();
+        
+        when(locationEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("location", false, Arrays.asList("OK")));
+        when(ipAddressEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("ipAddress", false, Arrays.asList("OK")));
+        when(transactionEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("transaction", false, Arrays.asList("OK")));
+        when(cardDetailsEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("cardDetails", false, Arrays.asList("OK")));
+        
+        // Act
+        FraudScoreResponse response = service.scoreTransaction(request);
+        
+        // Assert: No rule file configured, so the built-in rules were used
+        assertEquals(RuleSet.BUILT_IN_VERSION, response.getRuleVersion());
+    }
+    
     @Test
     void shouldIncludeAllSignalTypes() {
         // Arrange
@@ -152,7 +189,190 @@ class FraudDetectionServiceTest {
         assertEquals(2, fraudCount, "Should have 2 fraud signals");
     }
     
-    // Helper method
+    @Test
+    void shouldReturnDegradedSignal_WhenEvaluatorMissesDeadlineInParallelMode() {
+        // Arrange: Parallel mode with a short budget; the location evaluator hangs
+        ScoringProperties properties = new ScoringProperties();
+        properties.setExecution(ScoringProperties.Execution.PARALLEL);
+        properties.setEvaluatorTimeout(Duration.ofMillis(100));
+        FraudDetectionService parallelService = new FraudDetectionService(evaluators(), historyService, properties);
+        TransactionRequest request = createSampleRequest();
+        
+        when(locationEvaluator.evaluate(any())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return new FraudSignal("location", true, Arrays.asList("Too late"));
+        });
+        when(ipAddressEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("ipAddress", false, Arrays.asList("OK")));
+        when(transactionEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("transaction", true, Arrays.asList("High amount")));
+        when(cardDetailsEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("cardDetails", false, Arrays.asList("OK")));
+        
+        // Act
+        long start = System.nanoTime();
+        FraudScoreResponse response = parallelService.scoreTransaction(request);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        parallelService.close();
+        
+        // Assert: Response is not held up, the slow signal is degraded and the others are kept in order
+        assertTrue(elapsedMillis < 5_000, "Response should not wait for the hung evaluator");
+        assertEquals(4, response.getSignals().size());
+        FraudSignal location = response.getSignals().get(2);
+        assertEquals("location", location.getSignal());
+        assertFalse(location.getPotentialFraud());
+        assertTrue(location.getDetails().get(0).contains("timed out"));
+        assertTrue(response.getSignals().get(3).getPotentialFraud());
+        verify(historyService, times(1)).saveTransaction(any());
+    }
+    
+    @Test
+    void shouldDegradeHistorySignals_WhenShardMissesTimeoutInShardedMode() {
+        // Arrange: Sharded mode with a short wait; the location evaluator hangs on the shard
+        ScoringProperties properties = new ScoringProperties();
+        properties.setExecution(ScoringProperties.Execution.SHARDED);
+        properties.setShards(1);
+        properties.setShardTimeout(Duration.ofMillis(100));
+        FraudDetectionService shardedService = new FraudDetectionService(evaluators(), historyService, properties);
+        TransactionRequest request = createSampleRequest();
+
+        when(locationEvaluator.evaluate(any())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return new FraudSignal("location", true, Arrays.asList("Too late"));
+        });
+        when(ipAddressEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("ipAddress", true, Arrays.asList("Blocked IP")));
+        when(cardDetailsEvaluator.evaluate(any())).thenReturn(
+                new FraudSignal("cardDetails", false, Arrays.asList("OK")));
+
+        // Act
+        long start = System.nanoTime();
+        FraudScoreResponse response = shardedService.scoreTransaction(request);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        shardedService.close();
+
+        // Assert: Stateless signals are still evaluated, the history ones are degraded, nothing is saved twice
+        assertTrue(elapsedMillis < 5_000, "Response should not wait for the hung shard");
+        assertEquals(4, response.getSignals().size());
+        assertTrue(response.getSignals().get(0).getPotentialFraud());
+        assertFalse(response.getSignals().get(2).getPotentialFraud());
+        assertTrue(response.getSignals().get(2).getDetails().get(0).contains("timed out"));
+        assertTrue(response.getSignals().get(3).getDetails().get(0).contains("timed out"));
+        verify(historyService, never()).saveTransaction(any());
+    }
+
+    @Test
+    void shouldRecordLatencyAndOutcomePerSignal() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScoringProperties properties = new ScoringProperties();
+        properties.setShortCircuit(true);
+        FraudDetectionService meteredService = new FraudDetectionService(evaluators(), historyService, properties,
+                new RuleSetService(), new ScoringMetrics(registry));
+        TransactionRequest request = createSampleRequest();
+        
+        FraudSignal blocked = new FraudSignal("ipAddress", true, Arrays.asList("Blocked"));
+        when(ipAddressEvaluator.evaluate(any())).thenReturn(blocked);
+        when(ipAddressEvaluator.isDefinitiveBlock(blocked)).thenReturn(true);
+        
+        // Act
+        meteredService.scoreTransaction(request);
+        meteredService.close();
+        
+        // Assert: One end-to-end timing, the evaluated signal flagged, the skipped ones unavailable
+        assertEquals(1, registry.get("fraud.score.duration").timer().count());
+        assertEquals(1, registry.get("fraud.evaluator.duration").tag("signal", "ipAddress").timer().count());
+        assertEquals(0, registry.get("fraud.evaluator.duration").tag("signal", "location").timer().count());
+        assertEquals(1, registry.get("fraud.signal.outcomes")
+                .tags("signal", "ipAddress", "outcome", "flagged").counter().count());
+        assertEquals(1, registry.get("fraud.signal.outcomes")
+                .tags("signal", "location", "outcome", "unavailable").counter().count());
+    }
+    
+    @Test
+    void shouldCountEveryEarlierTransaction_WhenSameCustomerScoresConcurrentlyInShardedMode() throws Exception {
+        // Arrange: Real history and velocity check, a burst of transactions for one customer from many threads
+        ScoringProperties properties = new ScoringProperties();
+        properties.setExecution(ScoringProperties.Execution.SHARDED);
+        properties.setShards(4);
+        TransactionHistoryService history = new TransactionHistoryService();
+        RuleSetService ruleSetService = new RuleSetService();
+        FraudDetectionService shardedService = new FraudDetectionService(
+                List.of(new TransactionSignalEvaluator(history, ruleSetService)), history, properties, ruleSetService);
+        int burst = 64;
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<FraudScoreResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < burst; i++) {
+            responses.add(callers.submit(() -> {
+                start.await();
+                return shardedService.scoreTransaction(createSampleRequest());
+            }));
+        }
+        
+        // Act
+        start.countDown();
+        long flagged = 0;
+        for (Future<FraudScoreResponse> response : responses) {
+            flagged += response.get(10, TimeUnit.SECONDS).getSignals().get(0).getReasons().stream()
+                    .filter(reason -> reason.code() == ReasonCode.VELOCITY_HIGH)
+                    .count();
+        }
+        callers.shutdown();
+        shardedService.close();
+        
+        // Assert: Transactions were scored one after another, so exactly those past the threshold are flagged
+        int threshold = ruleSetService.current().transaction().velocityThreshold();
+        assertEquals(burst - threshold, flagged);
+        assertEquals(burst, history.getCustomerHistory("John Doe").size());
+    }
+    
+    @Test
+    void shouldRunCheapStatelessEvaluatorsFirst() {
+        // Act & Assert: Stateless checks by cost, then history-backed checks (ties by name)
+        assertEquals(List.of("ipAddress", "cardDetails", "location", "transaction"), service.pipelineOrder());
+    }
+    
+    @Test
+    void shouldSkipHistoryEvaluators_WhenShortCircuitAndDefinitiveBlock() {
+        // Arrange: Known fraudulent IP is a definitive block
+        ScoringProperties properties = new ScoringProperties();
+        properties.setShortCircuit(true);
+        FraudDetectionService shortCircuitService = new FraudDetectionService(evaluators(), historyService, properties);
+        TransactionRequest request = createSampleRequest();
+        
+        FraudSignal blocked = new FraudSignal("ipAddress", true, Arrays.asList("Blocked"));
+        when(ipAddressEvaluator.evaluate(any())).thenReturn(blocked);
+        when(ipAddressEvaluator.isDefinitiveBlock(blocked)).thenReturn(true);
+        
+        // Act
+        FraudScoreResponse response = shortCircuitService.scoreTransaction(request);
+        shortCircuitService.close();
+        
+        // Assert: Every signal is still reported, the expensive ones were never evaluated
+        assertEquals(4, response.getSignals().size());
+        assertTrue(response.getSignals().get(1).getDetails().get(0).contains("already blocked by the ipAddress signal"));
+        verify(cardDetailsEvaluator, never()).evaluate(any());
+        verify(locationEvaluator, never()).evaluate(any());
+        verify(transactionEvaluator, never()).evaluate(any());
+        verify(historyService, times(1)).saveTransaction(any());
+    }
+    
+    @Test
+    void shouldRejectCyclicEvaluatorDependencies() {
+        // Arrange
+        when(locationEvaluator.dependsOn()).thenReturn(Set.of("transaction"));
+        when(transactionEvaluator.dependsOn()).thenReturn(Set.of("location"));
+        
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new FraudDetectionService(evaluators(), historyService));
+    }
+    
+    // Helper methods
+    private List<SignalEvaluator> evaluators() {
+        return List.of(locationEvaluator, ipAddressEvaluator, transactionEvaluator, cardDetailsEvaluator);
+    }
+    
     private TransactionRequest createSampleRequest() {
         Location location = new Location("Boston", "MA");
         PaymentDetails paymentDetails = new PaymentDetails("1234", "John Doe", 100.0);
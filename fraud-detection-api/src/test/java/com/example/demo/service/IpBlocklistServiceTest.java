@@ -0,0 +1,125 @@
+package com.example.demo.service;
+
+import com.example.demo.config.IpReputationProperties;
+import com.example.demo.domain.ip.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IpBlocklistService.
+ * Tests loading the feed on startup, reloading it when it changes and keeping the current list when a load fails.
+ */
+class IpBlocklistServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReloadWhenFeedChanges() throws IOException {
+        // Arrange
+        Path feed = Files.write(directory.resolve("feed.txt"), List.of("203.0.113.7"));
+        IpBlocklistService service = new IpBlocklistService(properties(feed));
+        assertTrue(contains(service, "203.0.113.7"));
+
+        // Act
+        Files.write(feed, List.of("198.51.100.1", "2001:db8::1"));
+        Files.setLastModifiedTime(feed, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        service.reloadIfChanged();
+
+        // Assert
+        assertEquals(2, service.size());
+        assertFalse(contains(service, "203.0.113.7"));
+        assertTrue(contains(service, "198.51.100.1"));
+        assertTrue(contains(service, "2001:db8::1"));
+    }
+
+    @Test
+    void shouldReuseTableCompiledFromSameFeed() throws IOException {
+        // Arrange: A second service (e.g. another JVM on the host) finds the table already compiled
+        Path feed = Files.write(directory.resolve("feed.txt"), List.of("203.0.113.7"));
+        new IpBlocklistService(properties(feed));
+        Path table = directory.resolve("feed.txt.idx");
+        FileTime compiledAt = Files.getLastModifiedTime(table);
+
+        // Act
+        IpBlocklistService second = new IpBlocklistService(properties(feed));
+
+        // Assert
+        assertTrue(contains(second, "203.0.113.7"));
+        assertEquals(compiledAt, Files.getLastModifiedTime(table));
+    }
+
+    @Test
+    void shouldKeepCurrentList_WhenFeedDisappears() throws IOException {
+        // Arrange
+        Path feed = Files.write(directory.resolve("feed.txt"), List.of("203.0.113.7"));
+        IpBlocklistService service = new IpBlocklistService(properties(feed));
+
+        // Act
+        Files.delete(feed);
+        service.reloadIfChanged();
+
+        // Assert
+        assertTrue(contains(service, "203.0.113.7"));
+    }
+
+    @Test
+    void shouldStartEmptyAndLoadLater_WhenFeedIsMissingAtStartup() throws IOException {
+        // Arrange
+        Path feed = directory.resolve("feed.txt");
+        IpBlocklistService service = new IpBlocklistService(properties(feed));
+        assertEquals(0, service.size());
+
+        // Act
+        Files.write(feed, List.of("203.0.113.7"));
+        service.reloadIfChanged();
+
+        // Assert
+        assertTrue(contains(service, "203.0.113.7"));
+    }
+
+    @Test
+    void shouldStartEmpty_WhenFeedCannotBeLoadedAtStartup() throws IOException {
+        // Arrange: A directory where the feed file should be cannot be read as a feed
+        Path feed = Files.createDirectory(directory.resolve("feed.txt"));
+
+        // Act
+        IpBlocklistService service = new IpBlocklistService(properties(feed));
+
+        // Assert
+        assertEquals(0, service.size());
+    }
+
+    @Test
+    void shouldBeEmpty_WhenNoFeedIsConfigured() {
+        // Arrange
+        IpBlocklistService service = new IpBlocklistService();
+
+        // Act
+        service.reloadIfChanged();
+
+        // Assert
+        assertEquals(0, service.size());
+        assertFalse(contains(service, "203.0.113.7"));
+    }
+
+    private static IpReputationProperties properties(Path feed) {
+        IpReputationProperties properties = new IpReputationProperties();
+        properties.getFeed().setFile(feed);
+        return properties;
+    }
+
+    private static boolean contains(IpBlocklistService service, String text) {
+        IpAddress address = new IpAddress();
+        assertTrue(address.parse(text));
+        return service.contains(address);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RuleProperties;
+import com.example.demo.domain.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RuleSetService.
+ * Tests reloading the rule file, keeping the current rules when a file is invalid and pinning rules per thread.
+ */
+class RuleSetServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReloadWhenRuleFileChanges() throws IOException {
+        // Arrange
+        Path file = writeRules("version: v1\ntransaction:\n  high-amount: 500.0\n", 1);
+        RuleSetService service = new RuleSetService(properties(file));
+        assertEquals("v1", service.current().version());
+
+        // Act
+        writeRules("version: v2\ntransaction:\n  high-amount: 800.0\n", 2);
+        service.reloadIfChanged();
+
+        // Assert
+        assertEquals("v2", service.current().version());
+        assertEquals(800.0, service.current().transaction().highAmount());
+    }
+
+    @Test
+    void shouldKeepCurrentRules_WhenNewFileIsInvalid() throws IOException {
+        // Arrange
+        Path file = writeRules("version: v1\n", 1);
+        RuleSetService service = new RuleSetService(properties(file));
+
+        // Act
+        writeRules("version: v2\ntransaction:\n  high-amount: lots\n", 2);
+        service.reloadIfChanged();
+
+        // Assert
+        assertEquals("v1", service.current().version());
+    }
+
+    @Test
+    void shouldFailOnStartup_WhenRuleFileIsInvalid() throws IOException {
+        // Arrange
+        Path file = writeRules("transaction:\n  high-amount: 500.0\n", 1);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new RuleSetService(properties(file)));
+    }
+
+    @Test
+    void shouldUsePinnedRules_UntilScopeEnds() throws IOException {
+        // Arrange
+        Path file = writeRules("version: v1\n", 1);
+        RuleSetService service = new RuleSetService(properties(file));
+        RuleSet pinned = service.current();
+
+        // Act: The file changes while the rules are pinned
+        String seenInside = service.withRuleSet(pinned, () -> {
+            writeRulesUnchecked("version: v2\n", 2);
+            service.reloadIfChanged();
+            return service.current().version();
+        });
+
+        // Assert
+        assertEquals("v1", seenInside);
+        assertEquals("v2", service.current().version());
+    }
+
+    @Test
+    void shouldUseBuiltInRules_WhenNoFileIsConfigured() {
+        // Act
+        RuleSetService service = new RuleSetService();
+
+        // Assert
+        assertEquals(RuleSet.defaults(), service.current());
+    }
+
+    private Path writeRules(String yaml, int generation) throws IOException {
+        Path file = Files.writeString(directory.resolve("rules.yml"), yaml);
+        // Distinct modification times, however coarse the file system clock
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L * generation));
+        return file;
+    }
+
+    private void writeRulesUnchecked(String yaml, int generation) {
+        try {
+            writeRules(yaml, generation);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static RuleProperties properties(Path file) {
+        RuleProperties properties = new RuleProperties();
+        properties.setFile(file);
+        return properties;
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.demo.service;
+
+import com.example.demo.config.HistoryProperties;
+import com.example.demo.domain.rules.RuleSet;
+import com.example.demo.model.dto.HistoryStatsResponse;
+import com.example.demo.model.entity.TransactionRecord;
+import com.example.demo.service.history.WriteAheadLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TransactionHistoryService.
+ * Tests the derived lookups, the retention policy and recovery from snapshots.
+ */
+class TransactionHistoryServiceTest {
+
+    private HistoryProperties properties;
+    private TransactionHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HistoryProperties();
+        properties.getRetention().setMaxAge(Duration.ofDays(30));
+        properties.getRetention().setMaxRecordsPerCustomer(5);
+        properties.getRetention().setMaxCustomers(3);
+        historyService = new TransactionHistoryService(properties);
+    }
+
+    @Test
+    void shouldCountRecentTransactionsAndVisitedLocations() {
+        // Arrange
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+
+        // Act & Assert
+        assertEquals(2, historyService.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)));
+        assertTrue(historyService.hasVisitedLocation("John Doe", "boston", "ma"));
+        assertFalse(historyService.hasVisitedLocation("John Doe", "Chicago", "IL"));
+        assertFalse(historyService.hasVisitedLocation("Jane Doe", "Boston", "MA"));
+    }
+
+    @Test
+    void shouldShareHistory_BetweenSpellingsOfTheSameName() {
+        // Arrange
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        historyService.saveTransaction(record("  JOHN   doe ", "Denver", "CO", LocalDateTime.now()));
+
+        // Act
+        List<TransactionRecord> history = historyService.getCustomerHistory("john doe");
+
+        // Assert: One customer, and every record carries the name it was first seen with
+        assertEquals(2, history.size());
+        assertEquals(1, historyService.customerCount());
+        assertTrue(history.stream().allMatch(record -> record.getCustomerName().equals("John Doe")));
+        assertEquals(2, historyService.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)));
+    }
+
+    @Test
+    void shouldAnswerTheEvaluatorsVelocityWindow_FromTheRing_WithoutCountingRecordsBeforeIt() {
+        // Arrange: Records just outside, just inside and well inside the default rule's 10 minute window
+        LocalDateTime now = LocalDateTime.now();
+        int windowMinutes = RuleSet.defaults().transaction().velocityWindowMinutes();
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", now.minusMinutes(windowMinutes).minusSeconds(2)));
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", now.minusMinutes(windowMinutes).plusSeconds(2)));
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", now.minusMinutes(1)));
+
+        // Act: The window the evaluator asks for, starting from a slightly later "now"
+        long count = historyService.countRecentTransactions("John Doe",
+                LocalDateTime.now().minusMinutes(windowMinutes));
+
+        // Assert: Answered from the ring, and the record before the window start is not counted
+        assertEquals(2, count);
+        assertEquals(0, historyService.getStats().getVelocityScans());
+    }
+
+    @Test
+    void shouldScanHistory_ForWindowsLongerThanTheRing() {
+        // Arrange
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now().minusMinutes(20)));
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+
+        // Act
+        long count = historyService.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(30));
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals(1, historyService.getStats().getVelocityScans());
+    }
+
+    @Test
+    void shouldDropRecordsOlderThanMaxAge() {
+        // Arrange: One stale record, one fresh record
+        historyService.saveTransaction(record("John Doe", "Chicago", "IL", LocalDateTime.now().minusDays(45)));
+        historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+
+        // Act
+        historyService.sweep();
+
+        // Assert: The stale record and its location are forgotten
+        assertEquals(1, historyService.getCustomerHistory("John Doe").size());
+        assertFalse(historyService.hasVisitedLocation("John Doe", "Chicago", "IL"));
+        assertTrue(historyService.hasVisitedLocation("John Doe", "Boston", "MA"));
+        assertEquals(1, historyService.getStats().getExpiredRecords());
+    }
+
+    @Test
+    void shouldCapRecordsPerCustomer() {
+        // Arrange: Two more records than the cap
+        for (int i = 0; i < 7; i++) {
+            historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        }
+
+        // Act
+        historyService.sweep();
+
+        // Assert
+        HistoryStatsResponse stats = historyService.getStats();
+        assertEquals(5, historyService.getCustomerHistory("John Doe").size());
+        assertEquals(2, stats.getOverflowRecords());
+        assertEquals(5, stats.getRecords());
+    }
+
+    @Test
+    void shouldTrackLargestCustomer_AndLowerItAfterTrimming() {
+        // Arrange: Two more records than the cap for one customer, one record for another
+        for (int i = 0; i < 7; i++) {
+            historyService.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        }
+        historyService.saveTransaction(record("Jane Doe", "Boston", "MA", LocalDateTime.now()));
+        assertEquals(7, historyService.largestCustomerRecords());
+
+        // Act: The first sweep trims, the second completes a full cycle over the trimmed history
+        historyService.sweep();
+        historyService.sweep();
+
+        // Assert
+        assertEquals(5, historyService.largestCustomerRecords());
+        assertEquals(2, historyService.customerCount());
+        assertEquals(6, historyService.recordCount());
+    }
+
+    @Test
+    void shouldEvictIdleCustomersAboveCustomerCap() {
+        // Arrange: One more customer than the cap
+        for (String customer : new String[]{"A", "B", "C", "D"}) {
+            historyService.saveTransaction(record(customer, "Boston", "MA", LocalDateTime.now()));
+        }
+
+        // Act
+        historyService.sweep();
+
+        // Assert
+        HistoryStatsResponse stats = historyService.getStats();
+        assertEquals(3, stats.getCustomers());
+        assertEquals(3, stats.getRecords());
+        assertEquals(1, stats.getEvictedCustomers());
+    }
+
+    @Test
+    void shouldNotLoseRecords_WhenSameCustomerIsSavedConcurrently() throws Exception {
+        // Arrange: Cap high enough that retention never kicks in
+        properties.getRetention().setMaxRecordsPerCustomer(Integer.MAX_VALUE);
+        int threads = 8;
+        int perThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        try {
+            // A reader keeps taking snapshots while the writers run; a snapshot must never contain a gap
+            Future<?> reader = executor.submit(() -> {
+                while (writing.get()) {
+                    for (TransactionRecord record : historyService.getCustomerHistory("John Doe")) {
+                        assertNotNull(record);
+                    }
+                }
+                return null;
+            });
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String merchant = "Merchant-" + t;
+                writers.add(executor.submit(() -> {
+                    startSignal.await();
+                    for (int i = 0; i < perThread; i++) {
+                        historyService.saveTransaction(new TransactionRecord("John Doe", "Boston", "MA",
+                                (double) i, LocalDateTime.now(), "8.8.8.8", merchant));
+                    }
+                    return null;
+                }));
+            }
+
+            // Act
+            startSignal.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert: Every (merchant, amount) pair was saved exactly once
+        List<TransactionRecord> history = historyService.getCustomerHistory("John Doe");
+        assertEquals(threads * perThread, history.size());
+        Set<String> distinct = new HashSet<>();
+        for (TransactionRecord record : history) {
+            distinct.add(record.getMerchantName() + "/" + record.getAmount());
+        }
+        assertEquals(threads * perThread, distinct.size());
+        assertEquals(threads * perThread, historyService.getStats().getRecords());
+    }
+
+    @Test
+    void shouldRestoreSnapshotAndLogTail_AfterRestart(@TempDir Path dataDirectory) throws Exception {
+        // Arrange: Two records before the snapshot, one after it
+        properties.getWal().setEnabled(true);
+        properties.getWal().setDirectory(dataDirectory.resolve("wal").toString());
+        properties.getWal().setFsync(WriteAheadLog.FsyncPolicy.NEVER);
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setDirectory(dataDirectory.resolve("snapshots").toString());
+
+        TransactionHistoryService first = new TransactionHistoryService(properties);
+        first.recover();
+        first.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        first.saveTransaction(record("Jane Doe", "Chicago", "IL", LocalDateTime.now()));
+        long snapshotBytes = first.snapshot();
+        first.saveTransaction(record("John Doe", "Denver", "CO", LocalDateTime.now()));
+        first.close();
+
+        // Act
+        TransactionHistoryService restarted = new TransactionHistoryService(properties);
+        TransactionHistoryService.RecoveryResult result = restarted.recover();
+
+        // Assert: Snapshot and log tail together hold every record exactly once
+        assertEquals(snapshotBytes, result.snapshotBytes());
+        assertEquals(2, result.snapshotRecords());
+        assertEquals(1, result.logRecords());
+        assertEquals(2, restarted.getCustomerHistory("John Doe").size());
+        assertEquals(2, restarted.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)));
+        assertTrue(restarted.hasVisitedLocation("John Doe", "Boston", "MA"));
+        assertTrue(restarted.hasVisitedLocation("John Doe", "Denver", "CO"));
+        assertTrue(restarted.hasVisitedLocation("Jane Doe", "Chicago", "IL"));
+        assertEquals(3, restarted.getStats().getRecords());
+        try (Stream<Path> snapshots = Files.list(dataDirectory.resolve("snapshots"))) {
+            assertEquals(1, snapshots.count());
+        }
+        restarted.close();
+    }
+
+    @Test
+    void shouldKeepHistory_AcrossRestarts_WithRocksDbBackend(@TempDir Path dataDirectory) throws Exception {
+        // Arrange
+        properties.setBackend(HistoryProperties.Backend.ROCKSDB);
+        properties.getRocksdb().setDirectory(dataDirectory.toString());
+
+        TransactionHistoryService first = new TransactionHistoryService(properties);
+        first.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        first.saveTransaction(record("Jane Doe", "Chicago", "IL", LocalDateTime.now()));
+        first.close();
+
+        // Act: No log or snapshot to recover from, the database itself is the history
+        TransactionHistoryService restarted = new TransactionHistoryService(properties);
+        restarted.saveTransaction(record("JOHN  doe", "Denver", "CO", LocalDateTime.now()));
+
+        // Assert
+        assertEquals(2, restarted.getCustomerHistory("John Doe").size());
+        assertEquals(2, restarted.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)));
+        assertTrue(restarted.hasVisitedLocation("John Doe", "Boston", "MA"));
+        assertTrue(restarted.hasVisitedLocation("Jane Doe", "Chicago", "IL"));
+        assertFalse(restarted.hasVisitedLocation("Jane Doe", "Boston", "MA"));
+        restarted.close();
+    }
+
+    @Test
+    void shouldReadOwnWrites_WhenWriteBehindIsEnabled() throws Exception {
+        // Arrange
+        properties.getRetention().setMaxRecordsPerCustomer(Integer.MAX_VALUE);
+        properties.getWriteBehind().setEnabled(true);
+        TransactionHistoryService writeBehindService = new TransactionHistoryService(properties);
+
+        // Act: Every read comes straight after the save it depends on
+        for (int i = 1; i <= 200; i++) {
+            writeBehindService.saveTransaction(record("John Doe", "City " + i, "MA", LocalDateTime.now()));
+            assertTrue(writeBehindService.hasVisitedLocation("John Doe", "City " + i, "MA"));
+            assertEquals(i, writeBehindService.getCustomerHistory("John Doe").size());
+        }
+
+        // Assert
+        HistoryStatsResponse stats = writeBehindService.getStats();
+        assertEquals(200, stats.getRecords());
+        assertEquals(0, stats.getWriteBehindDropped());
+        assertEquals(0, stats.getWriteBehindStaleReads());
+        writeBehindService.close();
+    }
+
+    private TransactionRecord record(String customer, String city, String state, LocalDateTime timestamp) {
+        return new TransactionRecord(customer, city, state, 100.0, timestamp, "8.8.8.8", "Test Merchant");
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AppendLog.
+ * Tests snapshots, front trimming and concurrent appends.
+ */
+class AppendLogTest {
+
+    @Test
+    void shouldKeepSnapshotStable_WhenMoreItemsAreAppended() {
+        // Arrange
+        AppendLog<Integer> log = new AppendLog<>();
+        for (int i = 0; i < 100; i++) {
+            log.append(i);
+        }
+
+        // Act
+        List<Integer> snapshot = log.snapshot();
+        log.append(100);
+
+        // Assert
+        assertEquals(100, snapshot.size());
+        assertEquals(99, snapshot.get(99));
+        assertEquals(101, log.size());
+    }
+
+    @Test
+    void shouldDropItemsBeforeTrimPoint() {
+        // Arrange: Spans several chunks
+        AppendLog<Integer> log = new AppendLog<>();
+        for (int i = 0; i < 200; i++) {
+            log.append(i);
+        }
+
+        // Act
+        log.trimFront(150);
+
+        // Assert
+        List<Integer> snapshot = log.snapshot();
+        assertEquals(50, snapshot.size());
+        assertEquals(150, snapshot.get(0));
+        assertEquals(199, snapshot.get(49));
+        assertEquals(150, log.startIndex());
+    }
+
+    @Test
+    void shouldReadAnyIndex_AcrossChunksAndTrims() {
+        // Arrange: Many chunks, trimmed at points that do not line up with chunk boundaries
+        AppendLog<Integer> log = new AppendLog<>();
+        for (int i = 0; i < 1_000; i++) {
+            log.append(i);
+        }
+        List<Integer> beforeTrim = log.snapshot();
+
+        // Act
+        log.trimFront(130);
+        log.trimFront(517);
+        for (int i = 1_000; i < 1_200; i++) {
+            log.append(i);
+        }
+        List<Integer> afterTrim = log.snapshot();
+
+        // Assert: Random access matches iteration order, and an older snapshot still reads the trimmed items
+        assertEquals(683, afterTrim.size());
+        for (int i = 0; i < afterTrim.size(); i++) {
+            assertEquals(517 + i, afterTrim.get(i));
+        }
+        for (int i = 0; i < beforeTrim.size(); i++) {
+            assertEquals(i, beforeTrim.get(i));
+        }
+    }
+
+    @Test
+    void shouldReadSameItemsByIndexAsByIteration_WhileAppending() throws InterruptedException {
+        // Arrange: Appenders keep linking new chunks while snapshots are read
+        AppendLog<Integer> log = new AppendLog<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 50_000;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    log.append(offset + i);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        // Act & Assert
+        while (writers.stream().anyMatch(Thread::isAlive)) {
+            List<Integer> snapshot = log.snapshot();
+            int position = 0;
+            for (Integer value : snapshot) {
+                assertEquals(value, snapshot.get(position++));
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(200_000, log.snapshot().size());
+    }
+
+    @Test
+    void shouldPublishEveryItem_WhenAppendedFromManyThreads() throws InterruptedException {
+        // Arrange
+        AppendLog<Integer> log = new AppendLog<>();
+        int threads = 8;
+        int perThread = 20_000;
+        List<Thread> writers = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    log.append(offset + i);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Assert: No item lost or duplicated
+        BitSet seen = new BitSet();
+        for (Integer value : log.snapshot()) {
+            assertFalse(seen.get(value), "Duplicate item " + value);
+            seen.set(value);
+        }
+        assertEquals(threads * perThread, seen.cardinality());
+    }
+}
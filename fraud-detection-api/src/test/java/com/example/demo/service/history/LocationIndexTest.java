@@ -0,0 +1,54 @@
+package com.example.demo.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the visited-location index (LocationDictionary + IntHashSet).
+ */
+class LocationIndexTest {
+
+    @Test
+    void shouldEncodeNormalizedLocationsToSameId() {
+        // Arrange
+        LocationDictionary dictionary = new LocationDictionary();
+
+        // Act
+        int id = dictionary.intern("Boston", "MA");
+
+        // Assert: Case and surrounding whitespace do not matter
+        assertEquals(id, dictionary.idOf(" boston ", "ma"));
+        assertEquals(LocationDictionary.UNKNOWN, dictionary.idOf("Boston", "NY"));
+    }
+
+    @Test
+    void shouldKeepCityAndStateSeparate() {
+        LocationDictionary dictionary = new LocationDictionary();
+
+        int springfieldMa = dictionary.intern("Springfield", "MA");
+        int springfieldIl = dictionary.intern("Springfield", "IL");
+
+        assertNotEquals(springfieldMa, springfieldIl);
+    }
+
+    @Test
+    void shouldContainAddedValuesAcrossResizes() {
+        // Arrange
+        IntHashSet set = new IntHashSet();
+
+        // Act: Force several resizes
+        for (int i = 1; i <= 1_000; i++) {
+            assertTrue(set.add(i));
+        }
+
+        // Assert
+        assertFalse(set.add(500), "Duplicates should be rejected");
+        assertEquals(1_000, set.size());
+        for (int i = 1; i <= 1_000; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertFalse(set.contains(1_001));
+        assertFalse(set.contains(LocationDictionary.UNKNOWN));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LongKeyedMap.
+ * Tests lookups across resizes, removal from the middle of probe runs and iteration.
+ */
+class LongKeyedMapTest {
+
+    @Test
+    void shouldFindEveryKey_AfterGrowing() {
+        // Arrange
+        LongKeyedMap<String> map = new LongKeyedMap<>();
+
+        // Act: far beyond the initial capacity of every stripe
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key * 0x9E3779B97F4A7C15L, "value " + key);
+        }
+
+        // Assert
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals("value " + key, map.get(key * 0x9E3779B97F4A7C15L));
+        }
+        assertNull(map.get(42));
+    }
+
+    @Test
+    void shouldKeepProbeRunsIntact_WhenRemoving() {
+        // Arrange: same stripe (top bits) and same home slot (low bits), so all three collide
+        LongKeyedMap<String> map = new LongKeyedMap<>();
+        long first = 0x0100_0000_0000_0010L;
+        long second = 0x0100_0000_0001_0010L;
+        long third = 0x0100_0000_0002_0010L;
+        map.put(first, "first");
+        map.put(second, "second");
+        map.put(third, "third");
+
+        // Act
+        boolean removedWrongValue = map.remove(second, "other");
+        boolean removed = map.remove(first, "first");
+
+        // Assert
+        assertFalse(removedWrongValue);
+        assertTrue(removed);
+        assertNull(map.get(first));
+        assertEquals("second", map.get(second));
+        assertEquals("third", map.get(third));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldCreateOnce_AndIterateAllEntries() {
+        // Arrange
+        LongKeyedMap<StringBuilder> map = new LongKeyedMap<>();
+        StringBuilder created = map.computeIfAbsent(7, key -> new StringBuilder("seven"));
+
+        // Act
+        StringBuilder again = map.computeIfAbsent(7, key -> new StringBuilder("other"));
+        map.put(-3, new StringBuilder("minus three"));
+        Map<Long, String> seen = new HashMap<>();
+        for (Iterator<LongKeyedMap.Entry<StringBuilder>> it = map.iterator(); it.hasNext(); ) {
+            LongKeyedMap.Entry<StringBuilder> entry = it.next();
+            seen.put(entry.key(), entry.value().toString());
+        }
+
+        // Assert
+        assertSame(created, again);
+        assertEquals(Map.of(7L, "seven", -3L, "minus three"), seen);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OffHeapTransactionStore.
+ * Tests that records round-trip through the off-heap columns and that queries match the heap backend.
+ */
+class OffHeapTransactionStoreTest {
+
+    @Test
+    void shouldRoundTripRecords() {
+        // Arrange
+        OffHeapTransactionStore store = new OffHeapTransactionStore();
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        store.saveTransaction(new TransactionRecord("John Doe", "Boston", "MA", 123.45, timestamp, "8.8.8.8", "Store A"));
+        store.saveTransaction(new TransactionRecord("John Doe", "Chicago", "IL", 10.0, timestamp, "2001:db8::1", "Store B"));
+
+        // Act
+        List<TransactionRecord> history = store.getCustomerHistory("John Doe");
+
+        // Assert: Oldest first, all fields restored
+        assertEquals(2, history.size());
+        assertEquals(new TransactionRecord("John Doe", "Boston", "MA", 123.45, timestamp, "8.8.8.8", "Store A"),
+                history.get(0));
+        assertEquals("2001:db8::1", history.get(1).getIpAddress());
+        assertTrue(store.getCustomerHistory("Jane Doe").isEmpty());
+    }
+
+    @Test
+    void shouldAnswerVelocityAndLocationQueries() {
+        // Arrange
+        OffHeapTransactionStore store = new OffHeapTransactionStore();
+        store.saveTransaction(new TransactionRecord("John Doe", "Boston", "MA", 10.0,
+                LocalDateTime.now().minusHours(2), "8.8.8.8", "Store"));
+        store.saveTransaction(new TransactionRecord("John Doe", "Boston", "MA", 10.0,
+                LocalDateTime.now(), "8.8.8.8", "Store"));
+
+        // Act & Assert
+        assertEquals(1, store.countRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)));
+        assertEquals(1, store.getRecentTransactions("John Doe", LocalDateTime.now().minusMinutes(10)).size());
+        assertTrue(store.hasVisitedLocation("John Doe", "boston", "ma"));
+        assertFalse(store.hasVisitedLocation("John Doe", "Chicago", "IL"));
+    }
+
+    @Test
+    void shouldSpanMultiplePages() {
+        // Arrange: More rows than fit in one page
+        OffHeapTransactionStore store = new OffHeapTransactionStore();
+        LocalDateTime timestamp = LocalDateTime.now();
+        int rows = 70_000;
+        for (int i = 0; i < rows; i++) {
+            store.saveTransaction(new TransactionRecord("Customer " + (i % 10), "Boston", "MA", 1.0,
+                    timestamp, "10.0.0." + (i % 256), "Store"));
+        }
+
+        // Act & Assert
+        assertEquals(rows, store.recordCount());
+        assertEquals(rows / 10, store.getCustomerHistory("Customer 3").size());
+        assertTrue(store.offHeapBytes() >= (long) rows * OffHeapTransactionStore.BYTES_PER_ROW);
+    }
+
+    @Test
+    void shouldKeepAddressesThatAreNotDottedIpv4_AsText() {
+        // Arrange
+        OffHeapTransactionStore store = new OffHeapTransactionStore();
+        for (String address : new String[]{"255.255.255.255", "256.1.1.1", "1.2.3", "::1"}) {
+            store.saveTransaction(new TransactionRecord("John Doe", "Boston", "MA", 1.0,
+                    LocalDateTime.now(), address, "Store"));
+        }
+
+        // Act
+        List<TransactionRecord> history = store.getCustomerHistory("John Doe");
+
+        // Assert
+        assertEquals(List.of("255.255.255.255", "256.1.1.1", "1.2.3", "::1"),
+                history.stream().map(TransactionRecord::getIpAddress).toList());
+        assertEquals("192.168.1.100", OffHeapTransactionStore.formatIpv4(0xC0A80164));
+    }
+
+    @Test
+    void shouldDropExpiredPages_AndForgetCustomersWithNoRowsLeft() {
+        // Arrange: Two pages of rows older than the maximum age, then two pages and a bit of fresh rows
+        OffHeapTransactionStore store = new OffHeapTransactionStore(Duration.ofDays(1).toMillis(), 1_000, 1_000, 16);
+        int page = 65_536;
+        for (int i = 0; i < 2 * page; i++) {
+            store.saveTransaction(new TransactionRecord("Old " + (i % 10), "Chicago", "IL", 1.0,
+                    LocalDateTime.now().minusDays(2), "10.0.0.1", "Store"));
+        }
+        for (int i = 0; i < 2 * page + 1; i++) {
+            store.saveTransaction(new TransactionRecord("New " + (i % 10), "Boston", "MA", 1.0,
+                    LocalDateTime.now(), "10.0.0.1", "Store"));
+        }
+
+        // Act
+        store.sweep();
+
+        // Assert: The old pages are gone, along with the customers that only had rows in them
+        assertEquals(2L * page, store.expiredRecords());
+        assertEquals(2L * page + 1, store.recordCount());
+        assertTrue(store.getCustomerHistory("Old 3").isEmpty());
+        assertFalse(store.hasVisitedLocation("Old 3", "Chicago", "IL"));
+        assertEquals(10, store.customerCount());
+        assertEquals(10, store.evictedCustomers());
+        assertEquals(page * 2 / 10, store.getCustomerHistory("New 3").size());
+        assertTrue(store.offHeapBytes() < 4L * page * OffHeapTransactionStore.BYTES_PER_ROW);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyActiveCustomers_AboveCustomerCap() {
+        // Arrange
+        OffHeapTransactionStore store = new OffHeapTransactionStore(Duration.ofDays(1).toMillis(), 2, 1_000, 16);
+        for (String customer : new String[]{"A", "B", "C", "D"}) {
+            store.saveTransaction(new TransactionRecord(customer, "Boston", "MA", 1.0,
+                    LocalDateTime.now(), "10.0.0.1", "Store"));
+        }
+
+        // Act
+        store.sweep();
+
+        // Assert
+        assertEquals(2, store.customerCount());
+        assertEquals(2, store.evictedCustomers());
+        assertEquals(1, store.getCustomerHistory("D").size());
+        assertTrue(store.getCustomerHistory("A").isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.service.history;
+
+import com.example.demo.domain.customer.CustomerIdentity;
+import com.example.demo.model.entity.TransactionRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RocksDbHistoryStore.
+ * Tests that records come back in time order, that range and point queries stay within one customer, and that history survives reopening.
+ */
+class RocksDbHistoryStoreTest {
+
+    private static final long JOHN = CustomerIdentity.keyOf("John Doe");
+    private static final long JANE = CustomerIdentity.keyOf("Jane Doe");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnRecordsInTimeOrder_WithAllFields() throws Exception {
+        // Arrange: Saved out of order, two of them in the same millisecond
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try (RocksDbHistoryStore store = new RocksDbHistoryStore(directory, false)) {
+            store.saveTransaction(record("John Doe", "Boston", "MA", now));
+            store.saveTransaction(record("John Doe", "Chicago", "IL", now.minusDays(1)));
+            store.saveTransaction(record("John Doe", "Denver", "CO", now));
+
+            // Act
+            List<TransactionRecord> history = store.getCustomerHistory(JOHN);
+
+            // Assert
+            assertEquals(3, history.size());
+            assertEquals("Chicago", history.get(0).getCity());
+            assertEquals(now.minusDays(1), history.get(0).getTimestamp());
+            assertEquals("John Doe", history.get(1).getCustomerName());
+            assertEquals(Double.valueOf(12.5), history.get(1).getAmount());
+            assertEquals("8.8.8.8", history.get(1).getIpAddress());
+            assertEquals("Store", history.get(1).getMerchantName());
+            assertTrue(store.getCustomerHistory(JANE).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldAnswerVelocityAndLocationQueries_ForOneCustomerOnly() throws Exception {
+        // Arrange
+        try (RocksDbHistoryStore store = new RocksDbHistoryStore(directory, false)) {
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now().minusHours(2)));
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+            store.saveTransaction(record("Jane Doe", "Chicago", "IL", LocalDateTime.now()));
+            LocalDateTime windowStart = LocalDateTime.now().minusMinutes(10);
+
+            // Act & Assert
+            assertEquals(1, store.countRecentTransactions(JOHN, windowStart));
+            assertEquals(1, store.getRecentTransactions(JOHN, windowStart).size());
+            assertEquals(1, store.countRecentTransactions(JANE, windowStart));
+            assertTrue(store.hasVisitedLocation(JOHN, "boston", "ma"));
+            assertFalse(store.hasVisitedLocation(JOHN, "Chicago", "IL"));
+            assertTrue(store.hasVisitedLocation(JANE, "Chicago", "IL"));
+        }
+    }
+
+    @Test
+    void shouldKeepHistory_AfterReopening() throws Exception {
+        // Arrange
+        try (RocksDbHistoryStore store = new RocksDbHistoryStore(directory, true)) {
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+        }
+
+        // Act
+        try (RocksDbHistoryStore reopened = new RocksDbHistoryStore(directory, false)) {
+            reopened.saveTransaction(record("John Doe", "Denver", "CO", LocalDateTime.now()));
+
+            // Assert
+            assertEquals(2, reopened.getCustomerHistory(JOHN).size());
+            assertEquals(2, reopened.countRecentTransactions(JOHN, LocalDateTime.now().minusMinutes(10)));
+            assertTrue(reopened.hasVisitedLocation(JOHN, "Boston", "MA"));
+        }
+    }
+
+    @Test
+    void shouldExpireOldRecords_AndTheLocationsOnlyTheyHad() throws Exception {
+        // Arrange: John has an old and a fresh record, Jane only an old one
+        try (RocksDbHistoryStore store = new RocksDbHistoryStore(directory, false,
+                Duration.ofDays(1).toMillis(), 1_000, 61, 10_000)) {
+            store.saveTransaction(record("John Doe", "Chicago", "IL", LocalDateTime.now().minusDays(2)));
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+            store.saveTransaction(record("Jane Doe", "Denver", "CO", LocalDateTime.now().minusDays(3)));
+
+            // Act
+            store.sweep();
+
+            // Assert
+            assertEquals(1, store.getCustomerHistory(JOHN).size());
+            assertFalse(store.hasVisitedLocation(JOHN, "Chicago", "IL"));
+            assertTrue(store.hasVisitedLocation(JOHN, "Boston", "MA"));
+            assertTrue(store.getCustomerHistory(JANE).isEmpty());
+            assertFalse(store.hasVisitedLocation(JANE, "Denver", "CO"));
+            assertEquals(2, store.expiredRecords());
+            assertEquals(1, store.evictedCustomers());
+            assertEquals(1, store.customerCount());
+        }
+    }
+
+    @Test
+    void shouldCountVelocityExactly_BeforeAndAfterTheRingCoversTheWindow() throws Exception {
+        // Arrange: A ring of 61 x 10ms, started by the first save
+        try (RocksDbHistoryStore store = new RocksDbHistoryStore(directory, false, Long.MAX_VALUE, 1_000, 61, 10)) {
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+            Thread.sleep(50);
+            LocalDateTime since = LocalDateTime.now();
+            Thread.sleep(5);
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+            store.saveTransaction(record("John Doe", "Boston", "MA", LocalDateTime.now()));
+
+            // Act & Assert: A window inside the ring's lifetime, and one reaching back before it started
+            assertEquals(2, store.countRecentTransactions(JOHN, since));
+            assertEquals(3, store.countRecentTransactions(JOHN, since.minusSeconds(1)));
+        }
+    }
+
+    @Test
+    void shouldOrderKeysByCustomerThenTime() {
+        // Act
+        byte[] earlier = RocksDbHistoryStore.recordKey(JOHN, -5_000, 7);
+        byte[] later = RocksDbHistoryStore.recordKey(JOHN, 1_700_000_000_000L, 0);
+        byte[] sameMillis = RocksDbHistoryStore.recordKey(JOHN, 1_700_000_000_000L, 1);
+
+        // Assert: Byte order matches time order, also across the epoch
+        assertTrue(Arrays.compareUnsigned(earlier, later) < 0);
+        assertTrue(Arrays.compareUnsigned(later, sameMillis) < 0);
+        assertEquals(24, later.length);
+    }
+
+    private static TransactionRecord record(String customer, String city, String state, LocalDateTime timestamp) {
+        return new TransactionRecord(customer, city, state, 12.5, timestamp, "8.8.8.8", "Store");
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SlidingWindowCounter.
+ * Tests bucket expiry, window coverage and concurrent recording.
+ */
+class SlidingWindowCounterTest {
+
+    private static final long RESOLUTION = 10_000L;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void shouldCountEventsInsideWindow() {
+        // Arrange: 60 x 10s ring (10 minutes)
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, RESOLUTION);
+        counter.record(NOW - 60_000);
+        counter.record(NOW - 30_000);
+        counter.record(NOW);
+
+        // Act
+        long count = counter.countAfterBucketOf(NOW - 600_000, NOW);
+
+        // Assert
+        assertEquals(3, count);
+    }
+
+    @Test
+    void shouldIgnoreEventsBeforeWindowStart() {
+        // Arrange
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, RESOLUTION);
+        counter.record(NOW - 300_000);
+        counter.record(NOW - 5_000);
+
+        // Act: Only ask for the last minute
+        long count = counter.countAfterBucketOf(NOW - 60_000, NOW);
+
+        // Assert
+        assertEquals(1, count);
+    }
+
+    @Test
+    void shouldExpireBucketsThatLeftTheRing() {
+        // Arrange: Event recorded, then the ring wraps around
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, RESOLUTION);
+        counter.record(NOW);
+        long later = NOW + 600_000;
+        counter.record(later);
+
+        // Act
+        long count = counter.countAfterBucketOf(later - 600_000, later);
+
+        // Assert: The old event shared a slot with the new one and must not be counted
+        assertEquals(1, count);
+    }
+
+    @Test
+    void shouldReportCoverageOfRing() {
+        // Arrange: The default layout, a 10 minute window at 10s resolution
+        SlidingWindowCounter counter = new SlidingWindowCounter(61, RESOLUTION);
+
+        // Act & Assert: A 10 minute window starting a little before "now" (as the evaluator's does) still fits
+        for (long offset : new long[]{0, 1, 5_000, 9_999}) {
+            assertTrue(counter.covers(NOW + offset - 600_000 - 3, NOW + offset));
+        }
+        assertFalse(counter.covers(NOW - 3_600_000, NOW));
+        assertEquals(610_000, counter.spanMillis());
+    }
+
+    @Test
+    void shouldLeaveOutTheBucketTheWindowStartsIn() {
+        // Arrange: One event early and one late in the bucket holding the window start
+        SlidingWindowCounter counter = new SlidingWindowCounter(61, RESOLUTION);
+        long since = NOW - 600_000 + 5_000;
+        counter.record(since - 4_000);
+        counter.record(since + 4_000);
+        counter.record(NOW);
+
+        // Act
+        long count = counter.countAfterBucketOf(since, NOW);
+
+        // Assert: Both events of the partial bucket are left to the caller
+        assertEquals(1, count);
+        assertEquals(NOW - 590_000, counter.bucketEnd(since));
+    }
+
+    @Test
+    void shouldNotLoseEventsUnderConcurrentRecording() throws InterruptedException {
+        // Arrange
+        SlidingWindowCounter counter = new SlidingWindowCounter(60, RESOLUTION);
+        int threads = 8;
+        int perThread = 10_000;
+        List<Thread> workers = new ArrayList<>();
+
+        // Act: All threads hammer the same bucket
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    counter.record(NOW);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        assertEquals((long) threads * perThread, counter.countAfterBucketOf(NOW - 60_000, NOW));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service.history;
+
+import com.example.demo.model.entity.TransactionRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteAheadLog.
+ * Tests replay after restart, segment rollover, torn writes and group commit.
+ */
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordsAfterRestart() throws IOException {
+        // Arrange: Small segments force several rollovers
+        LocalDateTime timestamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.NEVER)) {
+            for (int i = 0; i < 200; i++) {
+                wal.append(record("Customer " + i, timestamp));
+            }
+        }
+
+        // Act
+        List<TransactionRecord> replayed = new ArrayList<>();
+        WriteAheadLog.ReplayResult result;
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.NEVER)) {
+            result = wal.replay(replayed::add);
+        }
+
+        // Assert: Same records, same order
+        assertEquals(200, result.records());
+        assertTrue(result.segments() > 1, "Expected the log to span several segments");
+        assertEquals(record("Customer 0", timestamp), replayed.get(0));
+        assertEquals(record("Customer 199", timestamp), replayed.get(199));
+    }
+
+    @Test
+    void shouldStopAtTornEntry() throws IOException {
+        // Arrange
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.ALWAYS)) {
+            wal.append(record("Customer 1", LocalDateTime.now()));
+            wal.append(record("Customer 2", LocalDateTime.now()));
+        }
+
+        // Corrupt one byte of the second entry's payload
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        int firstEntryLength;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            firstEntryLength = 8 + header.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), firstEntryLength + 12);
+        }
+
+        // Act
+        List<TransactionRecord> replayed = new ArrayList<>();
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.NEVER)) {
+            wal.replay(replayed::add);
+        }
+
+        // Assert: Only the intact entry is replayed
+        assertEquals(1, replayed.size());
+        assertEquals("Customer 1", replayed.get(0).getCustomerName());
+    }
+
+    @Test
+    void shouldMakeEveryAppendDurable_WhenWritersShareForces() throws Exception {
+        // Arrange
+        int threads = 4;
+        int perThread = 50;
+        List<Thread> writers = new ArrayList<>();
+
+        // Act: Concurrent ALWAYS appends share each force (group commit)
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.ALWAYS)) {
+            for (int t = 0; t < threads; t++) {
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        wal.append(record("Customer", LocalDateTime.now()));
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        // Assert
+        try (WriteAheadLog wal = open(WriteAheadLog.FsyncPolicy.NEVER)) {
+            assertEquals(threads * perThread, wal.replay(record -> { }).records());
+        }
+    }
+
+    private WriteAheadLog open(WriteAheadLog.FsyncPolicy policy) {
+        return new WriteAheadLog(directory, 1024, policy, Duration.ofMillis(10));
+    }
+
+    private TransactionRecord record(String customer, LocalDateTime timestamp) {
+        return new TransactionRecord(customer, "Boston", "MA", 42.5, timestamp, "8.8.8.8", "Test Merchant");
+    }
+}
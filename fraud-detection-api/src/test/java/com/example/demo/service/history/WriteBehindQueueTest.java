@@ -0,0 +1,166 @@
+package com.example.demo.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteBehindQueue.
+ * Tests ordering, read-your-writes waits and the overflow policies.
+ */
+class WriteBehindQueueTest {
+
+    @Test
+    void shouldApplyItemsInOfferOrder() {
+        // Arrange
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test-writer", 16, 4,
+                WriteBehindQueue.OverflowPolicy.BLOCK, item -> item.substring(0, 1), applied::addAll);
+
+        // Act
+        List<String> offered = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String item = (i % 2 == 0 ? "a" : "b") + i;
+            offered.add(item);
+            assertTrue(queue.offer(item));
+        }
+        queue.close();
+
+        // Assert: Single writer, so global (and therefore per-key) order is kept
+        assertEquals(offered, applied);
+    }
+
+    @Test
+    void shouldWaitOnlyForOwnKey() throws Exception {
+        // Arrange: The writer is held inside the first batch
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test-writer", 16, 1,
+                WriteBehindQueue.OverflowPolicy.BLOCK, item -> item.substring(0, 1), batch -> {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        // Act
+        queue.offer("a1");
+
+        // Assert: Other keys are not held up; the pending key times out and is counted as a stale read
+        assertTrue(queue.awaitApplied("b", TimeUnit.MILLISECONDS.toNanos(10)));
+        assertFalse(queue.awaitApplied("a", TimeUnit.MILLISECONDS.toNanos(10)));
+        assertEquals(1, queue.staleReads());
+
+        release.countDown();
+        assertTrue(queue.awaitApplied("a", TimeUnit.SECONDS.toNanos(5)));
+        queue.close();
+    }
+
+    @Test
+    void shouldWakeOnlyReadersOfAppliedKey() throws Exception {
+        // Arrange: One item per batch, each batch waits for a permit
+        Semaphore permits = new Semaphore(0);
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test-writer", 16, 1,
+                WriteBehindQueue.OverflowPolicy.BLOCK, item -> item.substring(0, 1), batch -> {
+                    try {
+                        permits.tryAcquire(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        queue.offer("a1");
+        queue.offer("b1");
+        long fiveSeconds = TimeUnit.SECONDS.toNanos(5);
+        CompletableFuture<Boolean> readerA = CompletableFuture.supplyAsync(() -> queue.awaitApplied("a", fiveSeconds));
+        CompletableFuture<Boolean> readerB = CompletableFuture.supplyAsync(() -> queue.awaitApplied("b", fiveSeconds));
+
+        // Act: Let only the "a" batch through
+        permits.release();
+
+        // Assert: The "a" reader returns, the "b" reader keeps waiting for its own item
+        assertTrue(readerA.get(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertFalse(readerB.isDone());
+
+        permits.release();
+        assertTrue(readerB.get(5, TimeUnit.SECONDS));
+        assertEquals(0, queue.staleReads());
+        queue.close();
+    }
+
+    @Test
+    void shouldDrainWithoutInterruptingApplier_WhenClosedMidBatch() throws Exception {
+        // Arrange: The writer is inside the first batch when close() is called, two more items are queued
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> interrupted = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test-writer", 16, 1,
+                WriteBehindQueue.OverflowPolicy.BLOCK, item -> item, batch -> {
+                    writing.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    // An applier writing to a FileChannel would have it closed by a pending interrupt
+                    interrupted.add(Thread.currentThread().isInterrupted());
+                    applied.addAll(batch);
+                });
+        queue.offer("first");
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        queue.offer("second");
+        queue.offer("third");
+
+        // Act
+        Thread closer = new Thread(queue::close);
+        closer.start();
+        Thread.sleep(50);
+        release.countDown();
+        closer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Assert
+        assertEquals(List.of("first", "second", "third"), applied);
+        assertFalse(interrupted.contains(true), "The writer must not be interrupted while applying");
+    }
+
+    @Test
+    void shouldDropAndCount_WhenFullWithDropPolicy() {
+        // Arrange: Writer stuck on the first item, queue holds two more
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        WriteBehindQueue<String> queue = new WriteBehindQueue<>("test-writer", 2, 1,
+                WriteBehindQueue.OverflowPolicy.DROP, item -> item, batch -> {
+                    writing.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        // Act
+        assertTrue(queue.offer("first"));
+        assertDoesNotThrow(() -> writing.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer("second"));
+        assertTrue(queue.offer("third"));
+        boolean accepted = queue.offer("fourth");
+
+        // Assert
+        assertFalse(accepted);
+        assertEquals(1, queue.dropped());
+        assertEquals(2, queue.depth());
+        assertTrue(queue.awaitApplied("fourth", 0), "A dropped item must not leave a pending count behind");
+
+        release.countDown();
+        queue.close();
+    }
+}